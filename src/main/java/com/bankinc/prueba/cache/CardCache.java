@@ -0,0 +1,90 @@
+package com.bankinc.prueba.cache;
+
+import com.bankinc.prueba.repository.CardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Caché en proceso de tarjetas por cardId (Caffeine: tamaño acotado, TTL, expulsión W-TinyLFU).
+// Toda mutación de tarjeta invalida su entrada DESPUÉS del commit. Como la carga de Caffeine es
+// atómica por clave, una invalidación espera a una carga en curso y la descarta, así una lectura
+// nunca deja en caché un estado anterior a la mutación. El TTL acota lo que pueden tardar en verse
+// cambios hechos por otros nodos. Solo se guardan tarjetas existentes: un "no encontrada" no se cachea
+// (una tarjeta emitida en otro nodo, o consultada antes de existir, no puede quedar como inexistente
+// durante el TTL). Estadísticas: métricas cache.* con cache=cards.
+@Component
+public class CardCache {
+
+    private final CardRepository cardRepository;
+    private final Cache<String, CardSnapshot> cache;
+
+    public CardCache(CardRepository cardRepository,
+                     @Value("${app.card-cache.enabled:true}") boolean enabled,
+                     @Value("${app.card-cache.max-size:100000}") long maxSize,
+                     @Value("${app.card-cache.ttl-seconds:30}") long ttlSeconds,
+                     MeterRegistry meterRegistry) {
+        this.cardRepository = cardRepository;
+        this.cache = enabled
+                ? Caffeine.newBuilder()
+                          .maximumSize(maxSize)
+                          .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                          .recordStats()
+                          .build()
+                : null;
+        if (this.cache != null && meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "cards");
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public Optional<CardSnapshot> find(String cardId) {
+        if (cache == null || cardId == null) {
+            return load(cardId);
+        }
+        // Si la carga devuelve null, Caffeine no guarda nada y la siguiente consulta vuelve a la BD
+        return Optional.ofNullable(cache.get(cardId, id -> load(id).orElse(null)));
+    }
+
+    // Como find, pero un fallo se resuelve con loader y no se guarda: para lecturas de una réplica, que
+    // pueden ir atrasadas y no deben quedarse en caché más allá de lo que dura el atraso
+    public Optional<CardSnapshot> findWithoutStoring(String cardId, Supplier<Optional<CardSnapshot>> loader) {
+        CardSnapshot cached = cache == null || cardId == null ? null : cache.getIfPresent(cardId);
+        return cached != null ? Optional.of(cached) : loader.get();
+    }
+
+    // PK de la tarjeta: es inmutable, así que una tarjeta en caché siempre da la PK correcta aunque el resto
+    // del snapshot esté atrasado; si no está en caché se consulta la BD (las ausencias no se cachean)
+    public Optional<Long> findId(String cardId) {
+        if (cache == null) {
+            return cardRepository.findIdByCardId(cardId);
+        }
+        return find(cardId).map(CardSnapshot::id);
+    }
+
+    public void invalidate(String cardId) {
+        if (cache != null && cardId != null) {
+            cache.invalidate(cardId);
+        }
+    }
+
+    public void invalidateAll(Collection<String> cardIds) {
+        if (cache != null) {
+            cache.invalidateAll(cardIds);
+        }
+    }
+
+    private Optional<CardSnapshot> load(String cardId) {
+        return cardRepository.findByCardId(cardId).map(CardSnapshot::of);
+    }
+}
@@ -0,0 +1,20 @@
+package com.bankinc.prueba.cache;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+
+import java.time.LocalDate;
+
+// Copia inmutable de una tarjeta para la caché (nunca se cachean entidades gestionadas)
+public record CardSnapshot(Long id, String cardId, String productId, String holderName,
+                           LocalDate expirationDate, Money balance, boolean active, boolean blocked) {
+
+    public static CardSnapshot of(Card card) {
+        return new CardSnapshot(card.getId(), card.getCardId(), card.getProductId(), card.getHolderName(),
+                card.getExpirationDate(), card.getBalance(), card.isActive(), card.isBlocked());
+    }
+
+    public CardSnapshot withBalance(Money newBalance) {
+        return new CardSnapshot(id, cardId, productId, holderName, expirationDate, newBalance, active, blocked);
+    }
+}
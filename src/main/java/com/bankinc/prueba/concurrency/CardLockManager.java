@@ -0,0 +1,84 @@
+package com.bankinc.prueba.concurrency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Locks "striped" por cardId: serializa las mutaciones de saldo de una misma tarjeta
+// y deja que tarjetas distintas avancen en paralelo. Dos tarjetas pueden compartir
+// stripe (colisión de hash); eso solo serializa, nunca rompe la consistencia.
+@Component
+public class CardLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public CardLockManager(@Value("${app.card-locks.stripes:1024}") int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("app.card-locks.stripes debe ser positivo.");
+        }
+        // Redondea a potencia de dos para indexar con una máscara
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public <T> T callWithLock(String cardId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(cardId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void runWithLock(String cardId, Runnable action) {
+        ReentrantLock lock = lockFor(cardId);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Toma los locks de varias tarjetas (p. ej. un lote de compras). Los stripes se adquieren
+    // en orden ascendente y sin repetir, así dos lotes solapados no pueden bloquearse entre sí.
+    public <T> T callWithLocks(Collection<String> cardIds, Supplier<T> action) {
+        int[] indexes = cardIds.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    ReentrantLock lockFor(String cardId) {
+        return stripes[stripeIndex(cardId)];
+    }
+
+    private int stripeIndex(String cardId) {
+        int h = Objects.hashCode(cardId);
+        h ^= (h >>> 16); // mezcla los bits altos, los cardId comparten prefijo (productId)
+        return h & mask;
+    }
+}
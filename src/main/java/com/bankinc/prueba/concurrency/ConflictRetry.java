@@ -0,0 +1,87 @@
+package com.bankinc.prueba.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Reintenta una operación que falló por concurrencia con otro nodo: conflicto de versión de la
+// tarjeta (optimista), deadlock o espera de lock agotada en la BD. Cada intento debe abrir su propia
+// transacción y volver a leer lo que necesite. Entre intentos espera un tiempo aleatorio en
+// [0, min(max, base * 2^intento)] ("full jitter") para que los nodos en conflicto no se sincronicen.
+// Métricas: card.conflicts (cada intento fallido) y card.conflict.retries, con tag operation.
+@Component
+public class ConflictRetry {
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public ConflictRetry(@Value("${app.conflict-retry.max-attempts:5}") int maxAttempts,
+                         @Value("${app.conflict-retry.base-backoff-ms:5}") long baseBackoffMillis,
+                         @Value("${app.conflict-retry.max-backoff-ms:200}") long maxBackoffMillis,
+                         MeterRegistry meterRegistry) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("app.conflict-retry.max-attempts debe ser positivo.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T call(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException ex) {
+                Counter[] meters = counters(operation);
+                meters[0].increment();
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                meters[1].increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        call(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido.", ex);
+        }
+    }
+
+    // Los contadores se crean al primer conflicto de cada operación (el camino sin conflicto no los toca)
+    private Counter[] counters(String operation) {
+        return counters.computeIfAbsent(operation, op -> new Counter[]{
+                Counter.builder("card.conflicts").tag("operation", op).register(meterRegistry),
+                Counter.builder("card.conflict.retries").tag("operation", op).register(meterRegistry)});
+    }
+}
@@ -0,0 +1,78 @@
+package com.bankinc.prueba.config;
+
+import com.bankinc.prueba.concurrency.BoundedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+// Envuelve el DataSource en un BoundedDataSource (ver concurrency/BoundedDataSource). Por defecto
+// admite tantas conexiones simultáneas como el pool de Hikari: el resto espera en el semáforo.
+@Configuration
+@ConditionalOnProperty(name = "app.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceBulkheadConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    // Orden del post-procesador: otros envoltorios del DataSource (réplicas) se aplican después
+    static final int ORDER = 0;
+
+    @Bean
+    static BeanPostProcessor dataSourceBulkhead(Environment environment) {
+        return new BulkheadPostProcessor(environment);
+    }
+
+    // db.bulkhead.waiting: hilos esperando conexión; db.bulkhead.available: permisos libres
+    @Bean
+    MeterBinder dataSourceBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            DataSource target = dataSource;
+            while (!(target instanceof BoundedDataSource) && target instanceof DelegatingDataSource delegating) {
+                target = delegating.getTargetDataSource();
+            }
+            if (target instanceof BoundedDataSource bounded) {
+                Gauge.builder("db.bulkhead.waiting", bounded, BoundedDataSource::getWaiting).register(registry);
+                Gauge.builder("db.bulkhead.available", bounded, BoundedDataSource::getAvailablePermits).register(registry);
+            }
+        };
+    }
+
+    private static final class BulkheadPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        private BulkheadPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof BoundedDataSource) {
+                return bean;
+            }
+            int maxConcurrency = environment.getProperty("app.db.bulkhead.max-concurrency", Integer.class, 0);
+            if (maxConcurrency <= 0 && dataSource instanceof HikariDataSource hikari) {
+                maxConcurrency = hikari.getMaximumPoolSize();
+            }
+            if (maxConcurrency <= 0) {
+                // Hikari sin maximum-pool-size explícito: su valor por defecto
+                maxConcurrency = DEFAULT_POOL_SIZE;
+            }
+            long timeout = environment.getProperty("app.db.bulkhead.acquire-timeout-ms", Long.class, 30_000L);
+            return new BoundedDataSource(dataSource, maxConcurrency, timeout);
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+}
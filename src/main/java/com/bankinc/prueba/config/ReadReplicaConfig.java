@@ -0,0 +1,93 @@
+package com.bankinc.prueba.config;
+
+import com.bankinc.prueba.replica.ReplicaPool;
+import com.bankinc.prueba.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Réplicas de lectura (app.db.replica.urls, separadas por comas). Envuelve el DataSource primario (ya con
+// el bulkhead) en un ReplicaRoutingDataSource; cada réplica tiene su propio pool de Hikari con el mismo
+// usuario que el primario salvo app.db.replica.username/password.
+@Configuration
+@ConditionalOnExpression("!'${app.db.replica.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    ReplicaPool replicaPool(Environment environment) {
+        String username = environment.getProperty("app.db.replica.username",
+                environment.getProperty("spring.datasource.username"));
+        String password = environment.getProperty("app.db.replica.password",
+                environment.getProperty("spring.datasource.password"));
+        int poolSize = environment.getProperty("app.db.replica.pool-size", Integer.class, 10);
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : environment.getRequiredProperty("app.db.replica.urls", String[].class)) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name"));
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Una réplica caída al arrancar no impide arrancar: se lee del primario hasta que responda
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        ReplicaPool pool = new ReplicaPool(replicas);
+        pool.startHealthChecks(environment.getProperty("app.db.replica.health-check-ms", Long.class, 5_000L));
+        return pool;
+    }
+
+    // Se aplica después del bulkhead: el límite de conexiones sigue siendo el del primario
+    @Bean
+    static BeanPostProcessor readReplicaRouting(ObjectProvider<ReplicaPool> replicaPool) {
+        return new RoutingPostProcessor(replicaPool);
+    }
+
+    // db.replica.connections{target}: conexiones servidas por réplicas o por el primario a falta de réplica sana
+    @Bean
+    MeterBinder readReplicaMetrics(ReplicaPool replicaPool) {
+        return registry -> {
+            Gauge.builder("db.replica.healthy", replicaPool, ReplicaPool::getHealthyCount).register(registry);
+            FunctionCounter.builder("db.replica.connections", replicaPool, ReplicaPool::getReplicaConnections)
+                           .tag("target", "replica").register(registry);
+            FunctionCounter.builder("db.replica.connections", replicaPool, ReplicaPool::getPrimaryFallbacks)
+                           .tag("target", "primary_fallback").register(registry);
+        };
+    }
+
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReplicaPool> replicaPool;
+
+        private RoutingPostProcessor(ObjectProvider<ReplicaPool> replicaPool) {
+            this.replicaPool = replicaPool;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof ReplicaRoutingDataSource) {
+                return bean;
+            }
+            return new ReplicaRoutingDataSource(dataSource, replicaPool.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return DataSourceBulkheadConfig.ORDER + 1;
+        }
+    }
+}
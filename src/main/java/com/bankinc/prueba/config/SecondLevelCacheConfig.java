@@ -0,0 +1,112 @@
+package com.bankinc.prueba.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Caché de segundo nivel de Hibernate (JCache con Caffeine, en memoria de cada nodo): entidades User y
+// Card, sus búsquedas por natural id (username, cardId) y las consultas marcadas como cacheables.
+// Hibernate la invalida en cada cambio hecho por JPA (save, UPDATE en bloque de JPQL); los cambios de
+// otros nodos solo se ven al caducar la entrada, por eso cada región tiene su TTL (app.second-level-cache.*).
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USERS = "users";
+    public static final String USERS_NATURAL_ID = "users-natural-id";
+    public static final String CARDS = "cards";
+    public static final String CARDS_NATURAL_ID = "cards-natural-id";
+
+    // Cada contexto de Spring tiene su propio CacheManager (varios contextos en los tests)
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(@Value("${app.second-level-cache.max-size:100000}") long maxSize,
+                                       @Value("${app.second-level-cache.users-ttl-seconds:600}") long usersTtlSeconds,
+                                       @Value("${app.second-level-cache.cards-ttl-seconds:30}") long cardsTtlSeconds,
+                                       @Value("${app.second-level-cache.query-ttl-seconds:30}") long queryTtlSeconds) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(USERS, region(maxSize, usersTtlSeconds));
+        cacheManager.createCache(USERS_NATURAL_ID, region(maxSize, usersTtlSeconds));
+        cacheManager.createCache(CARDS, region(maxSize, cardsTtlSeconds));
+        cacheManager.createCache(CARDS_NATURAL_ID, region(maxSize, cardsTtlSeconds));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(maxSize, queryTtlSeconds));
+        // Marcas de última modificación por tabla: nunca caducan (sin ellas un resultado de consulta
+        // antiguo se daría por válido). Una entrada por tabla
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    // Una región sin configurar (p. ej. un @Cache nuevo) falla al arrancar en vez de crearse sin límite
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCache(CacheManager hibernateCacheManager,
+                                                   @Value("${app.second-level-cache.enabled:true}") boolean enabled) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", enabled);
+            properties.put("hibernate.cache.use_query_cache", enabled);
+            if (enabled) {
+                properties.put("hibernate.cache.region.factory_class", "jcache");
+                properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+                properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            }
+        };
+    }
+
+    // hibernate.cache.hit.ratio{cache}: aciertos / (aciertos + fallos) desde el arranque, NaN sin accesos.
+    // Los contadores de cada región están en hibernate.second.level.cache.requests (hibernate-micrometer)
+    @Bean
+    MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory,
+                                        @Value("${app.second-level-cache.enabled:true}") boolean enabled) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            if (!enabled) {
+                return;
+            }
+            for (String region : new String[] {USERS, CARDS}) {
+                ratio(registry, region, statistics, s -> hitRatio(s.getDomainDataRegionStatistics(region)));
+            }
+            ratio(registry, "natural-id", statistics,
+                    s -> hitRatio(s.getNaturalIdCacheHitCount(), s.getNaturalIdCacheMissCount()));
+            ratio(registry, "query", statistics, s -> hitRatio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()));
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return configuration;
+    }
+
+    private static void ratio(MeterRegistry registry, String cache,
+                              Statistics statistics, ToDoubleFunction<Statistics> ratio) {
+        Gauge.builder("hibernate.cache.hit.ratio", statistics, ratio).tag("cache", cache).register(registry);
+    }
+
+    private static double hitRatio(CacheRegionStatistics region) {
+        return region == null ? Double.NaN : hitRatio(region.getHitCount(), region.getMissCount());
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+    }
+}
@@ -1,7 +1,11 @@
 package com.bankinc.prueba.config;
 
+import com.bankinc.prueba.security.CachingPasswordEncoder;
 import com.bankinc.prueba.security.JwtAuthenticationFilter;
 import com.bankinc.prueba.security.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -25,14 +29,16 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtTokenProvider);
+    public SecurityFilterChain filterChain(HttpSecurity http, MeterRegistry meterRegistry) throws Exception {
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtTokenProvider, meterRegistry);
 
         http
                 .csrf().disable()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
                 .authorizeHttpRequests()
+                    // El despacho ASYNC que cierra una descarga en streaming ya se autorizó en la petición original
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     .requestMatchers(
                         "/",
                         "/index.html",
@@ -41,8 +47,16 @@ public class SecurityConfig {
                         "/app.js",
                         "/static/**",
                         "/auth/**",
-                        "/v3/api-docs/**"
+                        "/v3/api-docs/**",
+                        // Sonda de vida/arranque: sin token
+                        "/actuator/health"
                     ).permitAll()
+                    // Métricas (operaciones, rechazos, pool...): solo el rol MONITORING, p. ej. el scraper de
+                    // Prometheus con un token de servicio (bearer_token en scrape_config)
+                    .requestMatchers("/actuator/**").hasRole("MONITORING")
+                    // Volcado de todas las transacciones de todas las tarjetas: solo el rol FINANCE
+                    // (cualquiera puede registrarse y obtener ROLE_USER)
+                    .requestMatchers("/transactions/export").hasRole("FINANCE")
                     .anyRequest().authenticated()
                 .and()
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
@@ -50,9 +64,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // BCrypt con caché corta de verificaciones correctas (ver CachingPasswordEncoder)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.auth.credential-cache.ttl-seconds:300}") long ttlSeconds,
+                                           @Value("${app.auth.credential-cache.max-entries:10000}") int maxEntries,
+                                           MeterRegistry meterRegistry) {
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(), ttlSeconds * 1000, maxEntries, meterRegistry);
     }
 
     @Bean
@@ -5,16 +5,22 @@ import com.bankinc.prueba.dto.AuthResponse;
 import com.bankinc.prueba.dto.RegisterRequest;
 import com.bankinc.prueba.model.User;
 import com.bankinc.prueba.security.JwtTokenProvider;
+import com.bankinc.prueba.security.PasswordHashingExecutor;
 import com.bankinc.prueba.service.AuthService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
@@ -24,31 +30,44 @@ public class AuthController {
     private final AuthService authService;
     private final JwtTokenProvider tokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor hashingExecutor;
 
-    public AuthController(AuthService authService, JwtTokenProvider tokenProvider, AuthenticationManager authenticationManager) {
+    public AuthController(AuthService authService, JwtTokenProvider tokenProvider, AuthenticationManager authenticationManager,
+                          PasswordHashingExecutor hashingExecutor) {
         this.authService = authService;
         this.tokenProvider = tokenProvider;
         this.authenticationManager = authenticationManager;
+        this.hashingExecutor = hashingExecutor;
     }
 
+    // Registro y login hashean con BCrypt en el pool acotado; el hilo de Tomcat queda libre
+    // mientras tanto (respuesta asíncrona) y, si el pool está saturado, se responde 429.
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest req) {
-        User u = authService.register(req.getUsername(), req.getPassword());
-        String token = tokenProvider.createToken(u.getUsername());
-        log.info("User registered: {}", u.getUsername());
-        return ResponseEntity.ok(new AuthResponse(token));
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest req) {
+        return hashingExecutor.submit(() -> {
+            User u = authService.register(req.getUsername(), req.getPassword());
+            String token = tokenProvider.createToken(u.getUsername(), u.getRoles());
+            log.info("User registered: {}", u.getUsername());
+            return ResponseEntity.ok(new AuthResponse(token));
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest req) {
-        try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword()));
-            String token = tokenProvider.createToken(req.getUsername());
-            log.info("User login success: {}", req.getUsername());
-            return ResponseEntity.ok(new AuthResponse(token));
-        } catch (AuthenticationException ex) {
-            log.warn("User login failed: {} - {}", req.getUsername(), ex.getMessage());
-            throw new BadCredentialsException("Invalid username/password");
-        }
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody AuthRequest req) {
+        return hashingExecutor.submit(() -> {
+            try {
+                Authentication auth = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword()));
+                // El token lleva los roles del usuario (User.roles) para autorizar sin volver a la BD
+                String roles = auth.getAuthorities().stream()
+                                   .map(GrantedAuthority::getAuthority)
+                                   .collect(Collectors.joining(","));
+                String token = tokenProvider.createToken(req.getUsername(), roles);
+                log.info("User login success: {}", req.getUsername());
+                return ResponseEntity.ok(new AuthResponse(token));
+            } catch (AuthenticationException ex) {
+                log.warn("User login failed: {} - {}", req.getUsername(), ex.getMessage());
+                throw new BadCredentialsException("Invalid username/password");
+            }
+        });
     }
 }
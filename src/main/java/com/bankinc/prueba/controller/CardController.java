@@ -1,12 +1,26 @@
 package com.bankinc.prueba.controller;
 
+import com.bankinc.prueba.dto.BulkCardRequest;
+import com.bankinc.prueba.dto.BulkIssuanceStatus;
+import com.bankinc.prueba.dto.TransactionHistoryPage;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.service.BulkCardIssuanceService;
+import com.bankinc.prueba.service.BulkIssuanceJob;
 import com.bankinc.prueba.service.CardService;
+import com.bankinc.prueba.service.IdempotencyService;
+import com.bankinc.prueba.service.TransactionHistoryService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.UUID;
 import com.bankinc.prueba.dto.CardDto;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -15,21 +29,61 @@ import org.springframework.security.core.context.SecurityContextHolder;
 public class CardController {
 
     private final CardService cardService;
+    private final BulkCardIssuanceService bulkIssuance;
+    private final TransactionHistoryService transactionHistory;
+    private final IdempotencyService idempotency;
 
-    public CardController(CardService cardService) {
+    public CardController(CardService cardService, BulkCardIssuanceService bulkIssuance,
+                          TransactionHistoryService transactionHistory, IdempotencyService idempotency) {
         this.cardService = cardService;
+        this.bulkIssuance = bulkIssuance;
+        this.transactionHistory = transactionHistory;
+        this.idempotency = idempotency;
     }
 
-    @PostMapping("/generate")
-    public ResponseEntity<String> generateCard(@RequestBody CardCreateRequest req) {
-        String username = null;
+    private static String currentUsername() {
         if (SecurityContextHolder.getContext().getAuthentication() != null) {
-            username = SecurityContextHolder.getContext().getAuthentication().getName();
+            return SecurityContextHolder.getContext().getAuthentication().getName();
         }
-        String cardId = cardService.generateCardNumber(req.getProductId(), req.getHolderName(), username);
+        return null;
+    }
+
+    @PostMapping("/generate")
+    public ResponseEntity<String> generateCard(@RequestBody CardCreateRequest req) {
+        String cardId = cardService.generateCardNumber(req.getProductId(), req.getHolderName(), currentUsername());
         return ResponseEntity.ok(cardId);
     }
 
+    // Emisión masiva: 202 con el job; el progreso se consulta en Location
+    @PostMapping("/generate/bulk")
+    public ResponseEntity<BulkIssuanceStatus> generateBulk(@RequestBody BulkCardRequest req) {
+        BulkIssuanceStatus job = bulkIssuance.submit(req, currentUsername());
+        return ResponseEntity.accepted().location(URI.create("/cards/generate/bulk/" + job.jobId())).body(job);
+    }
+
+    @GetMapping("/generate/bulk/{jobId}")
+    public ResponseEntity<BulkIssuanceStatus> bulkStatus(@PathVariable String jobId) {
+        return findBulkJob(jobId).map(job -> ResponseEntity.ok(job.status()))
+                                 .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Números emitidos en CSV (cardId,holderName); con el job en curso la respuesta sigue hasta que termina
+    @GetMapping("/generate/bulk/{jobId}/cards")
+    public ResponseEntity<StreamingResponseBody> bulkCards(@PathVariable String jobId) {
+        return findBulkJob(jobId).map(job -> ResponseEntity.ok()
+                                                           .contentType(new MediaType("text", "csv"))
+                                                           .body((StreamingResponseBody) out -> bulkIssuance.writeResults(job, out)))
+                                 .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private Optional<BulkIssuanceJob> findBulkJob(String jobId) {
+        try {
+            return bulkIssuance.findJob(UUID.fromString(jobId), currentUsername());
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
     @PostMapping("/{cardId}/enroll")
     public ResponseEntity<Void> enroll(@PathVariable String cardId) {
         cardService.enrollCard(cardId);
@@ -42,39 +96,44 @@ public class CardController {
         return ResponseEntity.ok().build();
     }
 
+    // Con Idempotency-Key un reintento de la misma recarga no vuelve a abonar (Idempotent-Replayed: true)
     @PostMapping("/{cardId}/recharge")
-    public ResponseEntity<Void> recharge(@PathVariable String cardId, @RequestParam BigDecimal amount) {
-        cardService.rechargeBalance(cardId, amount);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> recharge(@PathVariable String cardId, @RequestParam BigDecimal amount,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        IdempotencyService.Result result = idempotency.execute("recharge", currentUsername(), idempotencyKey,
+                cardId + '|' + amount.stripTrailingZeros().toPlainString(), recorder -> {
+                    cardService.rechargeBalance(cardId, amount, recorder);
+                    return "";
+                });
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.replayed()) {
+            response.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return response.build();
     }
 
     @GetMapping("/{cardId}/balance")
-    public ResponseEntity<BigDecimal> balance(@PathVariable String cardId) {
-        BigDecimal balance = cardService.getBalance(cardId);
+    public ResponseEntity<Money> balance(@PathVariable String cardId) {
+        Money balance = cardService.getBalance(cardId);
         return ResponseEntity.ok(balance);
     }
 
+    // Historial de transacciones de la tarjeta, paginado con el cursor nextCursor de la respuesta
+    @GetMapping("/{cardId}/transactions")
+    public ResponseEntity<TransactionHistoryPage> transactions(@PathVariable String cardId,
+                                                               @RequestParam(required = false) String status,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(transactionHistory.getCardTransactions(cardId, status, from, to, cursor, limit));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<List<CardDto>> myCards() {
-        String username = null;
-        if (SecurityContextHolder.getContext().getAuthentication() != null) {
-            username = SecurityContextHolder.getContext().getAuthentication().getName();
-        }
+        String username = currentUsername();
         if (username == null) return ResponseEntity.status(401).build();
 
-        List<com.bankinc.prueba.model.Card> cards = cardService.findCardsByOwnerUsername(username);
-        List<CardDto> dto = cards.stream().map(c -> {
-            CardDto d = new CardDto();
-            d.setCardId(c.getCardId());
-            d.setProductId(c.getProductId());
-            d.setHolderName(c.getHolderName());
-            d.setExpirationDate(c.getExpirationDate());
-            d.setBalance(c.getBalance());
-            d.setActive(c.isActive());
-            d.setBlocked(c.isBlocked());
-            return d;
-        }).collect(Collectors.toList());
-
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(cardService.findCardsByOwnerUsername(username));
     }
 }
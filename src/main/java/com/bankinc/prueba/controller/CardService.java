@@ -3,6 +3,7 @@ package com.bankinc.prueba.controller;
 import com.bankinc.prueba.exception.CardBlockedException;
 import com.bankinc.prueba.exception.CardNotFoundException;
 import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
 import com.bankinc.prueba.repository.CardRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -38,7 +39,7 @@ public class CardService {
         card.setProductId(productId);
         // Fecha de vencimiento: 3 años desde la fecha actual [cite: 7]
         card.setExpirationDate(LocalDate.now().plusYears(3));
-        card.setBalance(BigDecimal.ZERO); // Saldo inicial: cero [cite: 12]
+        card.setBalance(Money.zero(Money.MAX_SCALE)); // Saldo inicial: cero [cite: 12]
         card.setActive(false); // Por defecto: inactiva [cite: 11]
         card.setBlocked(false);
         card.setHolderName("TITULAR DE TARJETA"); // Se puede mejorar pidiendo el nombre
@@ -86,13 +87,13 @@ public class CardService {
         }
 
         // Suma el nuevo saldo
-        card.setBalance(card.getBalance().add(amount));
+        card.setBalance(card.getBalance().plus(Money.of(amount, Money.MAX_SCALE)));
         cardRepository.save(card);
     }
 
     // 5. Consulta de saldo [cite: 39]
     public BigDecimal getBalance(String cardId) {
         Card card = findCardById(cardId);
-        return card.getBalance();
+        return card.getBalance().toBigDecimal();
     }
 }
\ No newline at end of file
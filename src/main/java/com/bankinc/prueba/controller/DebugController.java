@@ -1,5 +1,6 @@
 package com.bankinc.prueba.controller;
 
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
@@ -10,6 +11,8 @@ import org.springframework.web.bind.annotation.RestController;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
+// Sonda y página de depuración: fuera del camino crítico, el bean se crea en la primera petición
+@Lazy
 @RestController
 public class DebugController {
 
@@ -1,5 +1,6 @@
 package com.bankinc.prueba.controller;
 
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
@@ -9,6 +10,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 import java.io.IOException;
 
+// UI estática: el bean se crea en la primera petición, no al arrancar
+@Lazy
 @Controller
 public class HomeController {
 
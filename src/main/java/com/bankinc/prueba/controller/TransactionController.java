@@ -1,11 +1,15 @@
 package com.bankinc.prueba.controller;
 
-import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.dto.PurchaseRequest;
+import com.bankinc.prueba.dto.PurchaseResult;
+import com.bankinc.prueba.dto.TransactionView;
+import com.bankinc.prueba.service.IdempotencyService;
 import com.bankinc.prueba.service.TransactionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
-import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -13,26 +17,46 @@ import java.util.Map;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotency;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, IdempotencyService idempotency) {
         this.transactionService = transactionService;
+        this.idempotency = idempotency;
     }
 
-    // DTO para compra
-    private record PurchaseRequest(String cardId, BigDecimal price) {}
+    private static String currentUsername() {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            return SecurityContextHolder.getContext().getAuthentication().getName();
+        }
+        return null;
+    }
 
-    // 6. Transacción de compra (POST /transaction/purchase)
+    // 6. Transacción de compra (POST /transaction/purchase). Con Idempotency-Key un reintento devuelve
+    // el mismo transactionId sin volver a cobrar (cabecera Idempotent-Replayed: true)
     @PostMapping("/purchase")
-    public ResponseEntity<Map<String, String>> purchase(@RequestBody PurchaseRequest request) {
-        String transactionId = transactionService.purchase(request.cardId(), request.price());
-        
-        return new ResponseEntity<>(Map.of("transactionId", transactionId, "status", "Completed"), HttpStatus.OK);
+    public ResponseEntity<Map<String, String>> purchase(@RequestBody PurchaseRequest request,
+                                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String body = request.cardId() + '|' + (request.price() == null ? null : request.price().stripTrailingZeros().toPlainString());
+        IdempotencyService.Result result = idempotency.execute("purchase", currentUsername(), idempotencyKey, body,
+                recorder -> transactionService.purchase(request.cardId(), request.price(), recorder));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (result.replayed()) {
+            response.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return response.body(Map.of("transactionId", result.value(), "status", "Completed"));
+    }
+
+    // 6b. Lote de compras (POST /transaction/purchase/batch): resultado por elemento, en el mismo orden
+    @PostMapping("/purchase/batch")
+    public ResponseEntity<List<PurchaseResult>> purchaseBatch(@RequestBody List<PurchaseRequest> requests) {
+        return new ResponseEntity<>(transactionService.purchaseBatch(requests), HttpStatus.OK);
     }
 
     // 7. Consultar transacción (GET /transaction/{transactionId})
     @GetMapping("/{transactionId}")
-    public ResponseEntity<?> getTransaction(@PathVariable String transactionId) {
-        Transaction transaction = transactionService.getTransaction(transactionId)
+    public ResponseEntity<TransactionView> getTransaction(@PathVariable String transactionId) {
+        TransactionView transaction = transactionService.getTransaction(transactionId)
                                                      .orElseThrow(() -> new IllegalArgumentException("Transacción no encontrada."));
         return new ResponseEntity<>(transaction, HttpStatus.OK);
     }
@@ -0,0 +1,42 @@
+package com.bankinc.prueba.controller;
+
+import com.bankinc.prueba.service.TransactionExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/transactions")
+public class TransactionExportController {
+
+    private final TransactionExportService exportService;
+
+    public TransactionExportController(TransactionExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // Exportación para conciliación (GET /transactions/export?from=&to=&format=ndjson|csv&gzip=true)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                        @RequestParam(required = false) String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        // El formato se valida antes de empezar a escribir (después ya no se puede responder 400)
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.parse(format);
+        String filename = "transactions." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                             .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                             .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                             .body(out -> exportService.export(from, to, exportFormat, gzip, out));
+    }
+}
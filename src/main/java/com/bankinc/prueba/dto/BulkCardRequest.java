@@ -0,0 +1,6 @@
+package com.bankinc.prueba.dto;
+
+import java.util.List;
+
+// Emisión masiva: una tarjeta por titular; owner (username) es opcional, por defecto el usuario autenticado
+public record BulkCardRequest(String productId, List<String> holderNames, String owner) {}
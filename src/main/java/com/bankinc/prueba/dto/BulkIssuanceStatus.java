@@ -0,0 +1,8 @@
+package com.bankinc.prueba.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Progreso de un job de emisión masiva (GET /cards/generate/bulk/{jobId})
+public record BulkIssuanceStatus(UUID jobId, String productId, String status, int total, int issued,
+                                 String message, Instant createdAt, Instant finishedAt) {}
@@ -12,6 +12,21 @@ public class CardDto {
     private boolean active;
     private boolean blocked;
 
+    public CardDto() {
+    }
+
+    // Usado como constructor expression en CardRepository (solo las columnas necesarias, sin entidades)
+    public CardDto(String cardId, String productId, String holderName, LocalDate expirationDate,
+                   BigDecimal balance, boolean active, boolean blocked) {
+        this.cardId = cardId;
+        this.productId = productId;
+        this.holderName = holderName;
+        this.expirationDate = expirationDate;
+        this.balance = balance;
+        this.active = active;
+        this.blocked = blocked;
+    }
+
     public String getCardId() { return cardId; }
     public void setCardId(String cardId) { this.cardId = cardId; }
 
@@ -0,0 +1,6 @@
+package com.bankinc.prueba.dto;
+
+import java.math.BigDecimal;
+
+// DTO para compra (individual o como elemento de un lote)
+public record PurchaseRequest(String cardId, BigDecimal price) {}
@@ -0,0 +1,15 @@
+package com.bankinc.prueba.dto;
+
+import java.math.BigDecimal;
+
+// Resultado por elemento de un lote de compras: transactionId si se completó, motivo si se rechazó
+public record PurchaseResult(String cardId, BigDecimal price, String transactionId, String status, String message) {
+
+    public static PurchaseResult completed(PurchaseRequest request, String transactionId) {
+        return new PurchaseResult(request.cardId(), request.price(), transactionId, "Completed", null);
+    }
+
+    public static PurchaseResult rejected(PurchaseRequest request, String message) {
+        return new PurchaseResult(request.cardId(), request.price(), null, "Rejected", message);
+    }
+}
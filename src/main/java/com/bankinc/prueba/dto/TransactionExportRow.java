@@ -0,0 +1,11 @@
+package com.bankinc.prueba.dto;
+
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Fila de la exportación de transacciones (proyección HQL leída con cursor)
+public record TransactionExportRow(UUID transactionId, String cardId, Money price,
+                                   LocalDateTime transactionDate, Transaction.Status status) {}
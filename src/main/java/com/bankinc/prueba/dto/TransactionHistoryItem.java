@@ -0,0 +1,13 @@
+package com.bankinc.prueba.dto;
+
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Fila del historial de una tarjeta (proyección JPQL, sin hidratar Transaction ni Card).
+// id solo sirve para construir el cursor de la página siguiente.
+public record TransactionHistoryItem(@JsonIgnore Long id, UUID transactionId, Money price,
+                                     LocalDateTime transactionDate, Transaction.Status status) {}
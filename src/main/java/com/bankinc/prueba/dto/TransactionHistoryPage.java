@@ -0,0 +1,6 @@
+package com.bankinc.prueba.dto;
+
+import java.util.List;
+
+// Página del historial; nextCursor es null en la última página
+public record TransactionHistoryPage(String cardId, List<TransactionHistoryItem> items, String nextCursor) {}
@@ -0,0 +1,12 @@
+package com.bankinc.prueba.dto;
+
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Respuesta de GET /transaction/{transactionId}: la tarjeta se identifica por su número
+public record TransactionView(UUID transactionId, String cardId, Money price,
+                              LocalDateTime transactionDate, Transaction.Status status) {
+}
@@ -1,8 +1,11 @@
 package com.bankinc.prueba.exception;
 
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.Map;
@@ -24,4 +27,42 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, String>> handleBadRequest(RuntimeException ex) {
         return new ResponseEntity<>(Map.of("message", ex.getMessage()), HttpStatus.BAD_REQUEST);
     }
+
+    // Maneja 429 Too Many Requests (capacidad de hashing de contraseñas agotada)
+    @ExceptionHandler({TooManyRequestsException.class})
+    public ResponseEntity<Map<String, String>> handleTooManyRequests(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                             .header("Retry-After", "1")
+                             .body(Map.of("message", ex.getMessage()));
+    }
+
+    // Maneja 409 Conflict (la tarjeta siguió cambiando en otro nodo tras agotar los reintentos)
+    @ExceptionHandler({ConcurrencyFailureException.class})
+    public ResponseEntity<Map<String, String>> handleConflict(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                             .header("Retry-After", "1")
+                             .body(Map.of("message", "La tarjeta está siendo modificada por otra operación. Intente de nuevo."));
+    }
+
+    // Maneja 409 Conflict (la petición original con la misma Idempotency-Key sigue en curso en otro nodo)
+    @ExceptionHandler({IdempotencyConflictException.class})
+    public ResponseEntity<Map<String, String>> handleIdempotencyConflict(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                             .header("Retry-After", "1")
+                             .body(Map.of("message", ex.getMessage()));
+    }
+
+    // Maneja 422 Unprocessable Entity (Idempotency-Key reutilizada con otra petición)
+    @ExceptionHandler({IdempotencyKeyMismatchException.class})
+    public ResponseEntity<Map<String, String>> handleIdempotencyMismatch(RuntimeException ex) {
+        return new ResponseEntity<>(Map.of("message", ex.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    // Maneja 503 Service Unavailable (sin conexión a la BD dentro del tiempo de espera)
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, String>> handleDatabaseUnavailable(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header("Retry-After", "1")
+                             .body(Map.of("message", "Base de datos no disponible temporalmente. Intente de nuevo más tarde."));
+    }
 }
\ No newline at end of file
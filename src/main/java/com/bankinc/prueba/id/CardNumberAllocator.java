@@ -0,0 +1,215 @@
+package com.bankinc.prueba.id;
+
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.repository.CardNumberBlockRepository;
+import com.bankinc.prueba.repository.CardRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Números de tarjeta únicos y con dígito de control Luhn: productId (6) + serie (9) + control (1).
+// Por producto se reservan en BD bloques de series en una transacción corta (la fila del contador
+// queda bloqueada solo durante esa reserva) y se reparten en memoria con un contador atómico:
+// los hilos solo se coordinan cuando uno agota el bloque. Dos nodos nunca reciben el mismo rango,
+// así la emisión no depende de reintentar ante la restricción única de cards.card_id.
+// La reserva usa su propia conexión (REQUIRES_NEW): quien pida números no debe tener ya una transacción
+// abierta, o cada recarga del bloque ocupa dos conexiones del pool (ver next(productId, count)).
+@Component
+public class CardNumberAllocator {
+
+    static final long SERIAL_SPACE = 1_000_000_000L; // 9 dígitos de serie por producto
+    private static final int SERIAL_DIGITS = 9;
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private final CardNumberBlockRepository blocks;
+    private final CardRepository cardRepository;
+    private final TransactionTemplate reserveTemplate;
+    private final ConflictRetry conflictRetry;
+    private final int blockSize;
+    private final ConcurrentMap<String, ProductSerials> products = new ConcurrentHashMap<>();
+
+    public CardNumberAllocator(CardNumberBlockRepository blocks, CardRepository cardRepository,
+                               PlatformTransactionManager transactionManager, ConflictRetry conflictRetry,
+                               @Value("${app.card-numbers.block-size:1000}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("app.card-numbers.block-size debe ser positivo.");
+        }
+        this.blocks = blocks;
+        this.cardRepository = cardRepository;
+        // La reserva se confirma aunque la emisión que la provocó haga rollback (el rango se pierde, no se repite)
+        this.reserveTemplate = new TransactionTemplate(transactionManager);
+        this.reserveTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.conflictRetry = conflictRetry;
+        this.blockSize = blockSize;
+    }
+
+    public String next(String productId) {
+        if (!isProductId(productId)) {
+            throw new IllegalArgumentException("El ID del producto debe ser de 6 dígitos.");
+        }
+        return products.computeIfAbsent(productId, ProductSerials::new).next();
+    }
+
+    // count números seguidos del producto. Para lotes (emisión masiva): se piden antes de abrir la
+    // transacción del lote, así las recargas de bloque no necesitan una segunda conexión
+    public List<String> next(String productId, int count) {
+        if (!isProductId(productId)) {
+            throw new IllegalArgumentException("El ID del producto debe ser de 6 dígitos.");
+        }
+        ProductSerials serials = products.computeIfAbsent(productId, ProductSerials::new);
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(serials.next());
+        }
+        return numbers;
+    }
+
+    public static boolean isProductId(String productId) {
+        return productId != null && productId.length() == 6 && allDigits(productId);
+    }
+
+    // Dígito de control Luhn para los dígitos dados (el dígito de control irá a su derecha)
+    public static int luhnCheckDigit(CharSequence digits) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (doubled) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isLuhnValid(String number) {
+        if (number == null || number.length() < 2 || !allDigits(number)) {
+            return false;
+        }
+        int last = number.length() - 1;
+        return luhnCheckDigit(number.subSequence(0, last)) == number.charAt(last) - '0';
+    }
+
+    private static boolean allDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String format(String productId, long serial) {
+        StringBuilder pan = serialPrefix(productId, serial);
+        return pan.append((char) ('0' + luhnCheckDigit(pan))).toString();
+    }
+
+    // productId + serie con ceros a la izquierda (los 15 primeros dígitos del número)
+    private static StringBuilder serialPrefix(String productId, long serial) {
+        StringBuilder pan = new StringBuilder(16).append(productId);
+        String digits = Long.toString(serial);
+        for (int i = digits.length(); i < SERIAL_DIGITS; i++) {
+            pan.append('0');
+        }
+        return pan.append(digits);
+    }
+
+    // Rango [cursor, end) de series reservado; taken son series ya usadas por tarjetas anteriores
+    private record Block(AtomicLong cursor, long end, Set<Long> taken) {
+        static final Block EMPTY = new Block(new AtomicLong(), 0, Set.of());
+    }
+
+    private final class ProductSerials {
+
+        private final String productId;
+        // Lock explícito y no synchronized: la recarga espera a la BD y no debe fijar un hilo virtual
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private volatile Block current = Block.EMPTY;
+
+        ProductSerials(String productId) {
+            this.productId = productId;
+        }
+
+        String next() {
+            while (true) {
+                Block block = current;
+                long serial = block.cursor().getAndIncrement();
+                if (serial < block.end()) {
+                    if (!block.taken().contains(serial)) {
+                        return format(productId, serial);
+                    }
+                } else {
+                    refill(block);
+                }
+            }
+        }
+
+        // Solo un hilo por producto va a BD; los demás esperan y reutilizan el bloque nuevo
+        private void refill(Block exhausted) {
+            refillLock.lock();
+            try {
+                if (current == exhausted) {
+                    current = reserve(productId);
+                }
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+
+    private Block reserve(String productId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Deadlock o espera de lock agotada sobre la fila del contador: se repite la reserva
+                return conflictRetry.call("card_number_block",
+                        () -> reserveTemplate.execute(status -> reserveBlock(productId)));
+            } catch (DataIntegrityViolationException ex) {
+                // Otro nodo creó el contador del producto a la vez: el siguiente intento lo avanza
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock(String productId) {
+        long end;
+        if (blocks.advance(productId, blockSize) == 0) {
+            blocks.create(productId, blockSize);
+            end = blockSize;
+        } else {
+            end = blocks.findNextSerial(productId).orElseThrow();
+        }
+        long start = end - blockSize;
+        if (start >= SERIAL_SPACE) {
+            throw new IllegalStateException("Numeración de tarjetas agotada para el producto " + productId + ".");
+        }
+        end = Math.min(end, SERIAL_SPACE);
+
+        // Números emitidos antes del asignador (aleatorios) que caen dentro del bloque: se saltan
+        String from = serialPrefix(productId, start).append('0').toString();
+        String to = serialPrefix(productId, end - 1).append('9').toString();
+        Set<Long> taken = cardRepository.findCardIdsBetween(from, to).stream()
+                                        .filter(cardId -> cardId.length() == 16 && allDigits(cardId))
+                                        .map(cardId -> Long.parseLong(cardId.substring(6, 15)))
+                                        .collect(Collectors.toUnmodifiableSet());
+        return new Block(new AtomicLong(start), end, taken);
+    }
+}
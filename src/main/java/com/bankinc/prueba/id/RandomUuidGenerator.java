@@ -0,0 +1,17 @@
+package com.bankinc.prueba.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// UUIDv4 aleatorio (comportamiento anterior). Se mantiene para comparar en benchmarks.
+@Component
+@ConditionalOnProperty(name = "app.transaction-id.generator", havingValue = "random")
+public class RandomUuidGenerator implements TransactionIdGenerator {
+
+    @Override
+    public UUID next() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,10 @@
+package com.bankinc.prueba.id;
+
+import java.util.UUID;
+
+// Generador de transactionId. El id se guarda como UUID (BINARY(16) en MySQL) y la API
+// expone su forma texto. Implementación elegida con app.transaction-id.generator.
+public interface TransactionIdGenerator {
+
+    UUID next();
+}
@@ -0,0 +1,47 @@
+package com.bankinc.prueba.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UUIDv7 (RFC 9562): 48 bits de epoch en ms + contador de 12 bits + 62 bits aleatorios.
+// Los ids crecen con el tiempo, así cada INSERT cae al final del índice único en vez de
+// en una página aleatoria. El contador (método 1 del RFC) mantiene el orden estricto
+// dentro del mismo milisegundo; si se desborda, el timestamp avanza un ms por delante del reloj.
+@Component
+@ConditionalOnProperty(name = "app.transaction-id.generator", havingValue = "uuidv7", matchIfMissing = true)
+public class UuidV7Generator implements TransactionIdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+
+    private final SecureRandom random = new SecureRandom();
+    // (epochMillis << 12) | contador del último id emitido
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Override
+    public UUID next() {
+        long tick = nextTick(System.currentTimeMillis());
+        long msb = ((tick >>> COUNTER_BITS) << 16) | 0x7000L | (tick & 0xFFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    long nextTick(long nowMillis) {
+        long candidate = nowMillis << COUNTER_BITS;
+        while (true) {
+            long previous = lastTick.get();
+            long next = Math.max(candidate, previous + 1);
+            if (lastTick.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Milisegundos epoch codificados en un UUIDv7
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,185 @@
+package com.bankinc.prueba.journal;
+
+import com.bankinc.prueba.exception.CardNotFoundException;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.BalanceJournalRepository;
+import com.bankinc.prueba.repository.CardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Modelo de saldo "journal" (app.card-balance.model=journal) para tarjetas con muchas compras por
+// segundo: cada débito/crédito es un INSERT en balance_journal en vez de un UPDATE de la fila de cards,
+// así las compras de una tarjeta no se disputan esa fila. Saldo = cards.balance (consolidado hasta
+// cards.journal_seq) + entradas posteriores.
+//  - Cada entrada lleva la seq siguiente a la posición leída. Si otro nodo ya escribió esa seq, la PK
+//    falla y se lanza un conflicto optimista: ConflictRetry repite la operación con la posición releída,
+//    así nunca se autoriza una compra contra un saldo desactualizado.
+//  - La última posición de cada tarjeta se guarda en memoria al confirmar (bajo el lock de la tarjeta,
+//    en este nodo es exacta): una compra no vuelve a sumar el diario.
+//  - BalanceJournalCompactor suma periódicamente las entradas nuevas a cards.balance (un UPDATE por
+//    tarjeta y pasada). Las entradas consolidadas se conservan como registro de movimientos.
+@Component
+public class BalanceJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceJournal.class);
+
+    private final CardRepository cardRepository;
+    private final BalanceJournalRepository entries;
+    private final boolean enabled;
+    private final Cache<Long, Position> positions;
+    // Tarjetas con entradas escritas desde este nodo y aún sin consolidar
+    private final Set<Long> unfolded = ConcurrentHashMap.newKeySet();
+    private final Counter folds;
+
+    // Saldo de la tarjeta después de la entrada seq
+    public record Position(long seq, Money balance) {}
+
+    public BalanceJournal(CardRepository cardRepository, BalanceJournalRepository entries,
+                          @Value("${app.card-balance.model:row}") String model,
+                          @Value("${app.card-balance.journal.position-cache.max-size:100000}") long maxPositions,
+                          @Value("${app.card-balance.journal.position-cache.ttl-seconds:30}") long positionTtlSeconds,
+                          MeterRegistry meterRegistry) {
+        if (!"row".equals(model) && !"journal".equals(model)) {
+            throw new IllegalArgumentException("app.card-balance.model debe ser row o journal.");
+        }
+        this.cardRepository = cardRepository;
+        this.entries = entries;
+        this.enabled = "journal".equals(model);
+        // El TTL acota lo que tarda en verse un movimiento escrito por otro nodo en una consulta de saldo
+        this.positions = Caffeine.newBuilder()
+                                 .maximumSize(maxPositions)
+                                 .expireAfterWrite(Duration.ofSeconds(positionTtlSeconds))
+                                 .build();
+        this.folds = Counter.builder("balance.journal.folds").register(meterRegistry);
+        Gauge.builder("balance.journal.unfolded.cards", unfolded, Set::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Posición actual a partir del saldo consolidado de la tarjeta (leído en la misma transacción)
+    public Position position(Long cardPk, Money snapshotBalance, long journalSeq) {
+        Position cached = positions.getIfPresent(cardPk);
+        if (cached != null && cached.seq() >= journalSeq) {
+            return cached;
+        }
+        BalanceJournalRepository.Tail tail = entries.findTail(cardPk, journalSeq);
+        return tail.getLastSeq() == null
+                ? new Position(journalSeq, snapshotBalance)
+                : new Position(tail.getLastSeq(), snapshotBalance.plus(Money.of(tail.getTotal(), Money.MAX_SCALE)));
+    }
+
+    public Position position(Long cardPk, CardRepository.JournalHead head) {
+        return position(cardPk, head.getBalance(), head.getJournalSeq());
+    }
+
+    // Saldo para consultas (GET /cards/{cardId}/balance)
+    public Money balance(Long cardPk) {
+        Position cached = positions.getIfPresent(cardPk);
+        if (cached != null) {
+            return cached.balance();
+        }
+        Position position = readPosition(cardPk);
+        remember(cardPk, position);
+        return position.balance();
+    }
+
+    // Saldo en memoria, si lo hay
+    public Optional<Money> cachedBalance(Long cardPk) {
+        return Optional.ofNullable(positions.getIfPresent(cardPk)).map(Position::balance);
+    }
+
+    // Saldo leído de la BD sin guardar la posición (lecturas de una réplica, que puede ir atrasada)
+    public Money readBalance(Long cardPk) {
+        return readPosition(cardPk).balance();
+    }
+
+    private Position readPosition(Long cardPk) {
+        CardRepository.JournalHead head = cardRepository.findJournalHead(cardPk)
+                                                        .orElseThrow(() -> new CardNotFoundException("Tarjeta no encontrada."));
+        return position(cardPk, head);
+    }
+
+    // Añade amount (negativo en débitos) después de "after". La posición nueva se publica al confirmar
+    // la transacción en curso; con rollback se descarta la posición en memoria
+    public Position append(Long cardPk, Position after, Money amount) {
+        Position next = new Position(after.seq() + 1, after.balance().plus(amount));
+        try {
+            entries.append(cardPk, next.seq(), amount.toBigDecimal(), LocalDateTime.now());
+        } catch (DataIntegrityViolationException ex) {
+            positions.invalidate(cardPk);
+            throw new OptimisticLockingFailureException("Otro nodo escribió antes en el diario de la tarjeta " + cardPk + ".", ex);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(cardPk, next);
+            return next;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    committed(cardPk, next);
+                } else {
+                    positions.invalidate(cardPk);
+                }
+            }
+        });
+        return next;
+    }
+
+    private void committed(Long cardPk, Position position) {
+        remember(cardPk, position);
+        unfolded.add(cardPk);
+    }
+
+    // Nunca se sustituye una posición por otra más antigua (p. ej. una lectura que terminó tarde)
+    private void remember(Long cardPk, Position position) {
+        positions.asMap().merge(cardPk, position, (old, candidate) -> candidate.seq() >= old.seq() ? candidate : old);
+    }
+
+    // Consolida las tarjetas escritas desde este nodo; devuelve cuántas se actualizaron
+    public int compact() {
+        int folded = 0;
+        for (Long cardPk : List.copyOf(unfolded)) {
+            // Se quita antes de leer la última seq: una entrada confirmada después la vuelve a marcar
+            unfolded.remove(cardPk);
+            try {
+                Long upTo = entries.findLastSeq(cardPk).orElse(null);
+                if (upTo != null && cardRepository.foldJournal(cardPk, upTo) > 0) {
+                    folded++;
+                }
+            } catch (DataAccessException ex) {
+                unfolded.add(cardPk);
+                log.warn("No se pudo consolidar el diario de saldo de la tarjeta {}", cardPk, ex);
+            }
+        }
+        folds.increment(folded);
+        return folded;
+    }
+
+    // Incluye las entradas que dejó sin consolidar cualquier nodo (p. ej. uno que se detuvo de golpe)
+    public int compactAll() {
+        unfolded.addAll(entries.findCardsWithTail());
+        return compact();
+    }
+}
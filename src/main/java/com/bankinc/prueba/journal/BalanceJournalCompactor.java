@@ -0,0 +1,78 @@
+package com.bankinc.prueba.journal;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Pasada periódica de BalanceJournal.compact() en un hilo propio (app.card-balance.journal.compact-interval-ms).
+// Al arrancar consolida todo lo pendiente, también con app.card-balance.model=row: los débitos por
+// UPDATE no ven el diario, así que volver al modelo row no puede dejar entradas sin sumar.
+// Al parar se hace una última pasada.
+@Component
+public class BalanceJournalCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceJournalCompactor.class);
+
+    private final BalanceJournal journal;
+    private final long intervalMillis;
+    private final boolean foldOnStartup;
+    private ScheduledExecutorService scheduler;
+
+    public BalanceJournalCompactor(BalanceJournal journal,
+                                   @Value("${app.card-balance.journal.compact-interval-ms:1000}") long intervalMillis,
+                                   @Value("${app.card-balance.journal.fold-on-startup:true}") boolean foldOnStartup) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("app.card-balance.journal.compact-interval-ms debe ser positivo.");
+        }
+        this.journal = journal;
+        this.intervalMillis = intervalMillis;
+        this.foldOnStartup = foldOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (foldOnStartup) {
+            int folded = journal.compactAll();
+            if (folded > 0) {
+                log.info("Diario de saldo: {} tarjetas consolidadas al arrancar", folded);
+            }
+        }
+        if (!journal.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void compactQuietly() {
+        try {
+            journal.compact();
+        } catch (RuntimeException ex) {
+            // Una excepción cancelaría las pasadas siguientes
+            log.warn("Falló la compactación del diario de saldo", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        if (scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+            compactQuietly();
+        }
+    }
+}
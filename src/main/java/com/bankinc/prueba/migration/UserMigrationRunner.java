@@ -1,84 +1,358 @@
 package com.bankinc.prueba.migration;
 
+import com.bankinc.prueba.concurrency.ConflictRetry;
 import com.bankinc.prueba.model.Card;
 import com.bankinc.prueba.model.User;
 import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.MigrationCheckpointRepository;
 import com.bankinc.prueba.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Crea un User por cada tarjeta sin propietario y con holderName, y la enlaza. Corre en segundo plano
+// tras el arranque (la aplicación ya atiende peticiones; app.user-migration.start-delay-ms la retrasa) y por
+// chunks de app.user-migration.chunk-size:
+//  - recorre las tarjetas sin owner por clave (id mayor que el checkpoint), sin cargarlas todas;
+//  - resuelve los usernames del chunk en memoria con pocas consultas (no una por sufijo probado);
+//  - las contraseñas aleatorias se codifican con BCrypt en paralelo en un pool acotado;
+//  - usuarios (INSERT) y tarjetas (UPDATE) van en lotes JDBC en una transacción por chunk que también
+//    avanza el checkpoint (tabla migration_checkpoints): tras un reinicio se sigue desde ahí.
+// Varios nodos pueden ejecutarla a la vez: el checkpoint avanza con un UPDATE condicionado y el nodo
+// que pierde descarta su chunk y sigue desde la nueva posición. Métricas user.migration.*.
 @Component
 @ConditionalOnProperty(name = "app.migrate-users", havingValue = "true")
 public class UserMigrationRunner implements ApplicationRunner {
 
+    static final String CHECKPOINT = "user-migration";
+
     private final Logger log = LoggerFactory.getLogger(UserMigrationRunner.class);
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final MigrationCheckpointRepository checkpoints;
     private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetry conflictRetry;
+    private final int chunkSize;
+    private final long startDelayMillis;
+    private final ThreadPoolExecutor hashing;
+    private final AtomicLong remaining = new AtomicLong();
+    private final AtomicLong position = new AtomicLong();
+    private final Counter linked;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Timer chunkTimer;
+    private volatile boolean stopping;
+
+    // Tarjeta a enlazar: username base (titular normalizado) y el asignado (base o base + sufijo)
+    private record Pending(Long cardPk, String base, String username) {}
+
+    // Otro nodo avanzó el checkpoint: se descarta el chunk (rollback) y se relee la posición
+    private static final class CheckpointMovedException extends RuntimeException {
+        private CheckpointMovedException() {
+            super("El checkpoint de la migración de usuarios fue avanzado por otro proceso.");
+        }
+    }
 
-    public UserMigrationRunner(CardRepository cardRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserMigrationRunner(CardRepository cardRepository, UserRepository userRepository,
+                               MigrationCheckpointRepository checkpoints, PasswordEncoder passwordEncoder,
+                               PlatformTransactionManager transactionManager, ConflictRetry conflictRetry,
+                               @Value("${app.user-migration.chunk-size:500}") int chunkSize,
+                               @Value("${app.user-migration.hashing-threads:0}") int hashingThreads,
+                               @Value("${app.user-migration.start-delay-ms:0}") long startDelayMillis,
+                               MeterRegistry meterRegistry) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("app.user-migration.chunk-size debe ser positivo.");
+        }
         this.cardRepository = cardRepository;
         this.userRepository = userRepository;
+        this.checkpoints = checkpoints;
         this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.conflictRetry = conflictRetry;
+        this.chunkSize = chunkSize;
+        this.startDelayMillis = startDelayMillis;
+        // Por defecto la mitad de los núcleos: el resto queda para logins y tráfico normal. La cola
+        // admite un chunk, que es lo máximo que se envía a la vez
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        this.hashing = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunkSize), runnable -> {
+                    Thread thread = new Thread(runnable, "user-migration-hashing-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("user.migration.remaining", remaining, AtomicLong::get)
+             .description("Tarjetas sin propietario por recorrer (contadas al empezar)")
+             .register(meterRegistry);
+        Gauge.builder("user.migration.checkpoint", position, AtomicLong::get)
+             .description("Última tarjeta (id) confirmada")
+             .register(meterRegistry);
+        this.linked = Counter.builder("user.migration.cards").tag("outcome", "linked").register(meterRegistry);
+        this.skipped = Counter.builder("user.migration.cards").tag("outcome", "skipped").register(meterRegistry);
+        this.failed = Counter.builder("user.migration.cards").tag("outcome", "failed").register(meterRegistry);
+        this.chunkTimer = Timer.builder("user.migration.chunk").register(meterRegistry);
     }
 
     @Override
-    public void run(ApplicationArguments args) throws Exception {
-        log.info("UserMigrationRunner started: scanning cards to create users (if any)");
-
-        List<Card> cards = cardRepository.findAll();
-        Map<String, User> created = new HashMap<>();
-
-        for (Card c : cards) {
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(() -> {
             try {
-                if (c.getOwner() != null) continue; // already linked
-                String holder = c.getHolderName();
-                if (holder == null || holder.isBlank()) continue;
-
-                String base = normalizeUsername(holder);
-                String username = base;
-                int suffix = 1;
-                while (userRepository.existsByUsername(username)) {
-                    username = base + suffix;
-                    suffix++;
+                // app.user-migration.start-delay-ms: deja pasar las primeras peticiones tras un arranque
+                if (startDelayMillis > 0) {
+                    Thread.sleep(startDelayMillis);
+                }
+                if (!stopping) {
+                    migrate();
                 }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.error("User migration stopped: {}", ex.getMessage(), ex);
+            }
+        }, "user-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-                // create user with random password (encoded)
-                String rawPassword = UUID.randomUUID().toString();
-                User u = new User();
-                u.setUsername(username);
-                u.setPassword(passwordEncoder.encode(rawPassword));
-                u.setRoles("ROLE_USER");
-                u = userRepository.save(u);
-
-                // link card to user
-                c.setOwner(u);
-                cardRepository.save(c);
-
-                created.put(username, u);
-                log.info("Created user '{}' and linked card {} (holder='{}')", username, c.getCardId(), holder);
-            } catch (Exception ex) {
-                log.error("Failed migrating card {}: {}", c.getCardId(), ex.getMessage(), ex);
+    // Migra hasta que no quedan tarjetas pendientes o se cierra la aplicación; devuelve los usuarios creados
+    public long migrate() {
+        long lastId = loadCheckpoint();
+        remaining.set(cardRepository.countMigrationCandidates(lastId));
+        log.info("UserMigrationRunner started after card id {}: {} cards without owner", lastId, remaining.get());
+
+        long created = 0;
+        while (!stopping) {
+            List<CardRepository.MigrationCandidate> chunk =
+                    cardRepository.findMigrationCandidates(lastId, PageRequest.ofSize(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Timer.Sample sample = Timer.start();
+            try {
+                created += migrateChunk(lastId, chunk);
+                lastId = chunk.get(chunk.size() - 1).getId();
+                remaining.updateAndGet(value -> Math.max(0, value - chunk.size()));
+            } catch (CheckpointMovedException ex) {
+                lastId = loadCheckpoint();
             }
+            sample.stop(chunkTimer);
+            position.set(lastId);
         }
 
-        if (created.isEmpty()) {
+        if (created == 0) {
             log.info("No users were created by migration.");
         } else {
-            log.info("User migration created {} users. Review credentials as passwords were autogenerated.", created.size());
+            log.info("User migration created {} users. Review credentials as passwords were autogenerated.", created);
+        }
+        return created;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        hashing.shutdown();
+    }
+
+    private int migrateChunk(long from, List<CardRepository.MigrationCandidate> chunk) {
+        long to = chunk.get(chunk.size() - 1).getId();
+        List<Pending> pending = assignUsernames(chunk);
+        skipped.increment(chunk.size() - pending.size());
+        List<String> passwords = hashPasswords(pending.size());
+        try {
+            int created = conflictRetry.call("user_migration", () -> transactionTemplate.execute(status -> {
+                int linkedCards = link(pending, passwords);
+                advanceCheckpoint(from, to, linkedCards);
+                return linkedCards;
+            }));
+            linked.increment(created);
+            return created;
+        } catch (DataAccessException ex) {
+            // P. ej. un username registrado entre la consulta y el INSERT: se repite tarjeta a tarjeta
+            log.warn("Migrating cards {}..{} as one chunk failed ({}); retrying card by card",
+                    chunk.get(0).getId(), to, ex.getMessage());
+            return migrateOneByOne(from, to, pending, passwords);
+        }
+    }
+
+    // Enlaza las tarjetas del chunk; las que ya tienen propietario (otro proceso) se saltan
+    private int link(List<Pending> pending, List<String> passwords) {
+        Map<Long, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllById(pending.stream().map(Pending::cardPk).toList())) {
+            cards.put(card.getId(), card);
+        }
+        List<User> users = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            Card card = cards.get(pending.get(i).cardPk());
+            if (card == null || card.getOwner() != null) {
+                continue;
+            }
+            User user = newUser(pending.get(i).username(), passwords.get(i));
+            users.add(user);
+            card.setOwner(user);
+        }
+        userRepository.saveAll(users);
+        return users.size();
+    }
+
+    private int migrateOneByOne(long from, long to, List<Pending> pending, List<String> passwords) {
+        int created = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            Pending card = pending.get(i);
+            String password = passwords.get(i);
+            try {
+                if (conflictRetry.call("user_migration",
+                        () -> transactionTemplate.execute(status -> linkOne(card, password)))) {
+                    created++;
+                    linked.increment();
+                }
+            } catch (RuntimeException ex) {
+                failed.increment();
+                log.error("Failed migrating card id {}: {}", card.cardPk(), ex.getMessage(), ex);
+            }
         }
+        long linkedCards = created;
+        transactionTemplate.executeWithoutResult(status -> advanceCheckpoint(from, to, linkedCards));
+        return created;
+    }
+
+    // Como el proceso original: busca en la BD el primer sufijo libre
+    private boolean linkOne(Pending pending, String password) {
+        Card card = cardRepository.findById(pending.cardPk()).orElse(null);
+        if (card == null || card.getOwner() != null) {
+            return false;
+        }
+        String username = pending.base();
+        for (int suffix = 1; userRepository.existsByUsername(username); suffix++) {
+            username = pending.base() + suffix;
+        }
+        card.setOwner(userRepository.save(newUser(username, password)));
+        return true;
+    }
+
+    private void advanceCheckpoint(long from, long to, long created) {
+        if (checkpoints.advance(CHECKPOINT, from, to, created, Instant.now()) == 0) {
+            throw new CheckpointMovedException();
+        }
+    }
+
+    private long loadCheckpoint() {
+        return checkpoints.findLastId(CHECKPOINT).orElseGet(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> checkpoints.create(CHECKPOINT, Instant.now()));
+            } catch (DataIntegrityViolationException ex) {
+                // Otro nodo la creó a la vez
+            }
+            return checkpoints.findLastId(CHECKPOINT).orElseThrow();
+        });
+    }
+
+    // Username único por tarjeta: el titular normalizado o, si ya existe (en la BD o antes en el chunk),
+    // con el primer sufijo numérico libre. Una consulta por chunk, más una por nombre base repetido
+    private List<Pending> assignUsernames(List<CardRepository.MigrationCandidate> chunk) {
+        Map<Long, String> bases = new LinkedHashMap<>();
+        for (CardRepository.MigrationCandidate card : chunk) {
+            String holder = card.getHolderName();
+            if (holder != null && !holder.isBlank()) {
+                bases.put(card.getId(), normalizeUsername(holder));
+            }
+        }
+        if (bases.isEmpty()) {
+            return List.of();
+        }
+        Set<String> taken = new HashSet<>();
+        userRepository.findUsernamesIn(new HashSet<>(bases.values()))
+                      .forEach(username -> taken.add(username.toLowerCase(Locale.ROOT)));
+        Set<String> seen = new HashSet<>();
+        Set<String> repeated = new HashSet<>(taken);
+        for (String base : bases.values()) {
+            if (!seen.add(base)) {
+                repeated.add(base);
+            }
+        }
+        for (String base : repeated) {
+            userRepository.findUsernamesStartingWith(escapeLike(base))
+                          .forEach(username -> taken.add(username.toLowerCase(Locale.ROOT)));
+        }
+
+        List<Pending> pending = new ArrayList<>(bases.size());
+        for (Map.Entry<Long, String> entry : bases.entrySet()) {
+            String base = entry.getValue();
+            String username = base;
+            for (int suffix = 1; !taken.add(username); suffix++) {
+                username = base + suffix;
+            }
+            pending.add(new Pending(entry.getKey(), base, username));
+        }
+        return pending;
+    }
+
+    // Contraseñas aleatorias (nadie las conoce; el usuario debe restablecerla), codificadas en paralelo
+    private List<String> hashPasswords(int count) {
+        List<Callable<String>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(() -> passwordEncoder.encode(UUID.randomUUID().toString()));
+        }
+        try {
+            List<String> hashes = new ArrayList<>(count);
+            for (Future<String> hash : hashing.invokeAll(tasks)) {
+                hashes.add(hash.get());
+            }
+            return hashes;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Migración de usuarios interrumpida.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("No se pudo codificar la contraseña de un usuario migrado.", ex.getCause());
+        }
+    }
+
+    private static User newUser(String username, String encodedPassword) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(encodedPassword);
+        user.setRoles("ROLE_USER");
+        return user;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("_", "!_").replace("%", "!%");
     }
 
     private String normalizeUsername(String raw) {
@@ -0,0 +1,90 @@
+package com.bankinc.prueba.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Movimiento de saldo del modelo "journal" (ver BalanceJournal): solo se insertan, nunca se actualizan.
+// seq es consecutivo por tarjeta; la PK (card_id, seq) impide que dos escritores añadan tras la misma
+// posición. amount es negativo en débitos.
+@Entity
+@IdClass(BalanceJournalEntry.Key.class)
+@Table(name = "balance_journal")
+public class BalanceJournalEntry {
+
+    @Id
+    @Column(name = "card_id")
+    private Long cardPk;
+
+    @Id
+    private long seq;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static class Key implements Serializable {
+
+        private Long cardPk;
+        private long seq;
+
+        public Key() {
+        }
+
+        public Key(Long cardPk, long seq) {
+            this.cardPk = cardPk;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && seq == other.seq && Objects.equals(cardPk, other.cardPk);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cardPk, seq);
+        }
+    }
+
+    // Getters y Setters
+    public Long getCardPk() {
+        return cardPk;
+    }
+
+    public void setCardPk(Long cardPk) {
+        this.cardPk = cardPk;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,7 +1,10 @@
 package com.bankinc.prueba.model;
 
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.MoneyConverter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -9,19 +12,32 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDate;
 
+// Caché de segundo nivel (ver SecondLevelCacheConfig). Los UPDATE en bloque del saldo (CardRepository)
+// vacían la región entera al confirmarse: aprovecha sobre todo a las tarjetas sin compras recientes
 @Entity
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "cards")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
+@NaturalIdCache(region = "cards-natural-id")
 public class Card {
 
+    // Ids asignados por bloques (secuencia, o tabla "cards_seq" en MySQL) en vez de IDENTITY:
+    // permite que Hibernate agrupe los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = 50)
     private Long id;
 
+    @NaturalId
     @Column(unique = true, nullable = false, length = 16)
     private String cardId;
 
@@ -33,8 +49,9 @@ public class Card {
     // La fecha de vencimiento es de 3 años posterior a la creación
     private LocalDate expirationDate;
 
-    // Saldo inicial es cero
-    private BigDecimal balance = BigDecimal.ZERO;
+    // Saldo inicial es cero. En unidades menores (ver Money); la columna sigue siendo DECIMAL exacto
+    @Convert(converter = MoneyConverter.class)
+    private Money balance = Money.zero(Money.MAX_SCALE);
 
     // Por seguridad, están inactivas al inicio
     private boolean active = false;
@@ -45,6 +62,16 @@ public class Card {
     @JoinColumn(name = "user_id")
     private com.bankinc.prueba.model.User owner;
 
+    // Control optimista: todo UPDATE de la tarjeta lo incrementa (también débito/crédito/reintegro),
+    // así guardar una tarjeta leída antes de otro cambio falla en vez de pisar el saldo
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Modelo de saldo "journal": última entrada de balance_journal ya sumada a balance (ver BalanceJournal)
+    @Column(nullable = false)
+    private long journalSeq;
+
     // Getters y Setters
     public Long getId() {
         return id;
@@ -86,11 +113,11 @@ public class Card {
         this.expirationDate = expirationDate;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
 
@@ -117,4 +144,20 @@ public class Card {
     public void setOwner(com.bankinc.prueba.model.User owner) {
         this.owner = owner;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void setJournalSeq(long journalSeq) {
+        this.journalSeq = journalSeq;
+    }
 }
\ No newline at end of file
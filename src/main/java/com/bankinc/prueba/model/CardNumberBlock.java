@@ -0,0 +1,37 @@
+package com.bankinc.prueba.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Siguiente serie libre de números de tarjeta por producto (ver CardNumberAllocator).
+// Cada nodo avanza nextSerial de un bloque en un bloque y reparte ese rango en memoria.
+@Entity
+@Table(name = "card_number_blocks")
+public class CardNumberBlock {
+
+    @Id
+    @Column(length = 6)
+    private String productId;
+
+    @Column(nullable = false)
+    private long nextSerial;
+
+    // Getters y Setters
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public long getNextSerial() {
+        return nextSerial;
+    }
+
+    public void setNextSerial(long nextSerial) {
+        this.nextSerial = nextSerial;
+    }
+}
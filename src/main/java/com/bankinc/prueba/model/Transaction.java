@@ -1,7 +1,10 @@
 package com.bankinc.prueba.model;
 
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.MoneyConverter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
@@ -9,34 +12,42 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
-@Table(name = "transactions")
+// Índice del historial por tarjeta (paginación por clave, más recientes primero)
+@Table(name = "transactions",
+       indexes = @Index(name = "idx_transactions_card_date", columnList = "card_id DESC, transaction_date DESC, id DESC"))
 public class Transaction {
 
     public enum Status {
         COMPLETED, ANNULLED
     }
 
+    // Mismo esquema que Card: sin IDENTITY los INSERT de transacciones van en lotes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
+    // UUID ordenado en el tiempo (ver TransactionIdGenerator); BINARY(16) en MySQL
     @Column(unique = true, nullable = false)
-    private String transactionId;
+    private UUID transactionId;
 
     // Relación con la tarjeta
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "card_id", nullable = false)
     private Card card;
 
-    private BigDecimal price;
+    @Convert(converter = MoneyConverter.class)
+    private Money price;
     private LocalDateTime transactionDate;
 
     @Enumerated(EnumType.STRING)
@@ -51,11 +62,11 @@ public class Transaction {
         this.id = id;
     }
 
-    public String getTransactionId() {
+    public UUID getTransactionId() {
         return transactionId;
     }
 
-    public void setTransactionId(String transactionId) {
+    public void setTransactionId(UUID transactionId) {
         this.transactionId = transactionId;
     }
 
@@ -67,11 +78,11 @@ public class Transaction {
         this.card = card;
     }
 
-    public BigDecimal getPrice() {
+    public Money getPrice() {
         return price;
     }
 
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
@@ -0,0 +1,104 @@
+package com.bankinc.prueba.money;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Importe en unidades menores (céntimos con escala 2) sobre un long, con su escala (decimales) explícita.
+// Reglas:
+//  - no se redondea nunca: un importe con más decimales que la escala se rechaza (IllegalArgumentException);
+//  - una operación que se sale de long lanza ArithmeticException en vez de dar la vuelta;
+//  - entre escalas distintas se opera en la mayor (pasar a más decimales es exacto).
+// equals distingue la escala como BigDecimal (10 con escala 0 no es 10.00); compareTo compara el valor.
+// En JSON se escribe como número y en BD como DECIMAL (MoneyConverter); Serializable para la caché de segundo nivel.
+public record Money(long minor, int scale) implements Comparable<Money>, Serializable {
+
+    // Decimales de las columnas cards.balance y transactions.price: ninguna escala puede superarlos
+    public static final int MAX_SCALE = 2;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100};
+
+    public Money {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("La escala de un importe debe estar entre 0 y " + MAX_SCALE + ".");
+        }
+    }
+
+    public static Money zero(int scale) {
+        return new Money(0, scale);
+    }
+
+    public static Money ofMinor(long minor, int scale) {
+        return new Money(minor, scale);
+    }
+
+    // Importe recibido (API, BD) con a lo sumo scale decimales; los ceros finales sobrantes se aceptan
+    public static Money of(BigDecimal amount, int scale) {
+        BigDecimal scaled;
+        try {
+            scaled = amount.setScale(scale, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("El monto " + amount.toPlainString() + " admite como máximo "
+                    + scale + " decimales.");
+        }
+        try {
+            return new Money(scaled.unscaledValue().longValueExact(), scale);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("El monto " + amount.toPlainString() + " está fuera de rango.");
+        }
+    }
+
+    // Unidades menores en otra escala, sin redondeo: a más decimales siempre es exacto (salvo desbordamiento)
+    public long minorAt(int targetScale) {
+        if (targetScale == scale) {
+            return minor;
+        }
+        if (targetScale > scale) {
+            return Math.multiplyExact(minor, POWERS_OF_TEN[targetScale - scale]);
+        }
+        long divisor = POWERS_OF_TEN[scale - targetScale];
+        if (minor % divisor != 0) {
+            throw new ArithmeticException("El importe " + this + " no se puede expresar con " + targetScale + " decimales.");
+        }
+        return minor / divisor;
+    }
+
+    public Money plus(Money other) {
+        int common = Math.max(scale, other.scale);
+        return new Money(Math.addExact(minorAt(common), other.minorAt(common)), common);
+    }
+
+    public Money minus(Money other) {
+        int common = Math.max(scale, other.scale);
+        return new Money(Math.subtractExact(minorAt(common), other.minorAt(common)), common);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minor), scale);
+    }
+
+    public int signum() {
+        return Long.signum(minor);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        int common = Math.max(scale, other.scale);
+        try {
+            return Long.compare(minorAt(common), other.minorAt(common));
+        } catch (ArithmeticException ex) {
+            return toBigDecimal().compareTo(other.toBigDecimal());
+        }
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
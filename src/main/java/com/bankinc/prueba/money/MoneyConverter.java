@@ -0,0 +1,25 @@
+package com.bankinc.prueba.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+// Money <-> DECIMAL(.,2) (cards.balance, transactions.price). Exacto en ambos sentidos: la columna tiene
+// MAX_SCALE decimales, así que se lee a esa escala y un Money de menos decimales se escribe sin pérdida.
+// @Immutable: Money es inmutable, Hibernate no necesita copiarlo para detectar cambios
+@Immutable
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.of(value, Money.MAX_SCALE);
+    }
+}
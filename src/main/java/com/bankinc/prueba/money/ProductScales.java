@@ -0,0 +1,72 @@
+package com.bankinc.prueba.money;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Decimales que admite cada producto (app.money.product-scales=productId:escala,...; el resto usa
+// app.money.default-scale). El producto de una tarjeta son los 6 primeros dígitos del cardId.
+// Un importe con más decimales que los del producto se rechaza: nunca se redondea.
+@Component
+public class ProductScales {
+
+    private static final int PRODUCT_ID_LENGTH = 6;
+
+    private final int defaultScale;
+    // Pocos productos: búsqueda lineal por prefijo del cardId, sin crear el substring en cada compra
+    private final String[] productIds;
+    private final int[] scales;
+
+    public ProductScales(@Value("${app.money.default-scale:2}") int defaultScale,
+                         @Value("${app.money.product-scales:}") String productScales) {
+        this.defaultScale = checked(defaultScale, "app.money.default-scale");
+        Map<String, Integer> configured = new LinkedHashMap<>();
+        for (String entry : productScales.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || parts[0].length() != PRODUCT_ID_LENGTH) {
+                throw new IllegalArgumentException("app.money.product-scales: se esperaba productId:escala y no " + entry + ".");
+            }
+            configured.put(parts[0], checked(Integer.parseInt(parts[1].trim()), "app.money.product-scales"));
+        }
+        this.productIds = configured.keySet().toArray(String[]::new);
+        this.scales = configured.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int checked(int scale, String property) {
+        if (scale < 0 || scale > Money.MAX_SCALE) {
+            throw new IllegalArgumentException(property + " debe estar entre 0 y " + Money.MAX_SCALE + ".");
+        }
+        return scale;
+    }
+
+    public int scaleOf(String productId) {
+        for (int i = 0; i < productIds.length; i++) {
+            if (productIds[i].equals(productId)) {
+                return scales[i];
+            }
+        }
+        return defaultScale;
+    }
+
+    public int scaleOfCard(String cardId) {
+        if (cardId != null) {
+            for (int i = 0; i < productIds.length; i++) {
+                if (cardId.startsWith(productIds[i])) {
+                    return scales[i];
+                }
+            }
+        }
+        return defaultScale;
+    }
+
+    // Importe recibido para una tarjeta, en la escala de su producto
+    public Money amount(String cardId, BigDecimal amount) {
+        return Money.of(amount, scaleOfCard(cardId));
+    }
+}
@@ -0,0 +1,256 @@
+package com.bankinc.prueba.pipeline;
+
+import com.bankinc.prueba.cache.CardSnapshot;
+import com.bankinc.prueba.exception.TooManyRequestsException;
+import com.bankinc.prueba.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Motor de compras "pipeline" (app.purchase-engine=pipeline). Cada compra se asigna por hash de cardId a
+// una de N particiones; cada partición tiene una cola acotada y un único hilo escritor, así las compras
+// de una tarjeta en este nodo se procesan en orden y sin locks. El hilo junta lo que haya en cola (hasta
+// max-batch-size, esperando como mucho linger-ms) y lo entrega a BatchHandler, que decide y confirma el
+// lote en una sola transacción ("group commit"). Las respuestas se completan después del commit.
+// El estado de las tarjetas de la partición (saldo incluido) es del hilo escritor: solo es una pista
+// para decidir sin leer la BD, el handler lo contrasta con el débito condicionado.
+@Component
+public class PurchasePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchasePipeline.class);
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final int cardsPerPartition;
+    private final List<BlockingQueue<Submission>> queues = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private volatile boolean running;
+    private BatchHandler handler;
+
+    // Decide y confirma un lote en una transacción; devolver sin excepción significa que es durable.
+    // state guarda las tarjetas de la partición (por cardId) y solo lo toca el hilo escritor
+    public interface BatchHandler {
+        void commit(List<Submission> batch, Map<String, CardSnapshot> state);
+    }
+
+    // Una compra en cola. El handler anota el resultado; la respuesta se completa al confirmar el lote
+    public static final class Submission {
+        private final String cardId;
+        private final Money price;
+        private final Consumer<String> recordResult;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private String transactionId;
+        private RuntimeException declined;
+        private Counter declines;
+
+        Submission(String cardId, Money price, Consumer<String> recordResult) {
+            this.cardId = cardId;
+            this.price = price;
+            this.recordResult = recordResult;
+        }
+
+        public String cardId() {
+            return cardId;
+        }
+
+        public Money price() {
+            return price;
+        }
+
+        public CompletableFuture<String> result() {
+            return result;
+        }
+
+        // Un reintento del lote vuelve a decidir: gana la última anotación. Se llama dentro de la
+        // transacción del lote, que también registra el resultado (Idempotency-Key) con recordResult
+        public void approve(String transactionId) {
+            recordResult.accept(transactionId);
+            this.transactionId = transactionId;
+            this.declined = null;
+            this.declines = null;
+        }
+
+        public void decline(RuntimeException reason) {
+            decline(reason, null);
+        }
+
+        // declines (opcional) se incrementa una sola vez, al completar la compra tras el commit del lote
+        public void decline(RuntimeException reason, Counter declines) {
+            this.transactionId = null;
+            this.declined = reason;
+            this.declines = declines;
+        }
+
+        void complete() {
+            if (declined != null) {
+                if (declines != null) {
+                    declines.increment();
+                }
+                result.completeExceptionally(declined);
+            } else {
+                result.complete(transactionId);
+            }
+        }
+    }
+
+    public PurchasePipeline(@Value("${app.purchase-engine:sync}") String engine,
+                            @Value("${app.purchase-pipeline.partitions:4}") int partitions,
+                            @Value("${app.purchase-pipeline.queue-capacity:10000}") int queueCapacity,
+                            @Value("${app.purchase-pipeline.max-batch-size:256}") int maxBatchSize,
+                            @Value("${app.purchase-pipeline.linger-ms:2}") long lingerMillis,
+                            @Value("${app.purchase-pipeline.cards-per-partition:10000}") int cardsPerPartition,
+                            MeterRegistry meterRegistry) {
+        if (!"sync".equals(engine) && !"pipeline".equals(engine)) {
+            throw new IllegalArgumentException("app.purchase-engine debe ser sync o pipeline.");
+        }
+        if (partitions <= 0 || queueCapacity <= 0 || maxBatchSize <= 0 || lingerMillis < 0
+                || cardsPerPartition <= 0) {
+            throw new IllegalArgumentException("Configuración de app.purchase-pipeline no válida.");
+        }
+        this.enabled = "pipeline".equals(engine);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.cardsPerPartition = cardsPerPartition;
+        for (int i = 0; i < (enabled ? partitions : 0); i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        this.batchSizes = DistributionSummary.builder("purchase.pipeline.batch.size")
+                                             .description("Compras confirmadas por transacción")
+                                             .register(meterRegistry);
+        this.rejected = Counter.builder("purchase.pipeline.rejected")
+                               .description("Compras rechazadas con 429 por cola llena")
+                               .register(meterRegistry);
+        Gauge.builder("purchase.pipeline.queued", queues, qs -> qs.stream().mapToInt(BlockingQueue::size).sum())
+             .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Arranca los hilos escritores (lo llama TransactionService, que aporta la lógica del lote)
+    public synchronized void start(BatchHandler handler) {
+        if (!enabled || running) {
+            return;
+        }
+        this.handler = handler;
+        this.running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<Submission> queue = queues.get(i);
+            Thread writer = new Thread(() -> drain(queue), "purchase-pipeline-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    public CompletableFuture<String> submit(String cardId, Money price) {
+        return submit(cardId, price, transactionId -> {});
+    }
+
+    // recordResult se ejecuta en la transacción del lote al aprobar la compra; si falla (clave ya
+    // registrada por otro nodo) el lote entero se deshace y todas sus compras reciben el error
+    public CompletableFuture<String> submit(String cardId, Money price, Consumer<String> recordResult) {
+        if (!running) {
+            throw new IllegalStateException("El motor de compras no está en marcha.");
+        }
+        Submission submission = new Submission(cardId, price, recordResult);
+        if (!queues.get(Math.floorMod(Objects.hashCode(cardId), queues.size())).offer(submission)) {
+            rejected.increment();
+            throw new TooManyRequestsException("Demasiadas compras en cola. Intente de nuevo en unos segundos.");
+        }
+        return submission.result();
+    }
+
+    private void drain(BlockingQueue<Submission> queue) {
+        List<Submission> batch = new ArrayList<>(maxBatchSize);
+        // Tarjetas recientes de la partición (LRU acotado; una tarjeta expulsada se vuelve a leer)
+        Map<String, CardSnapshot> state = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CardSnapshot> eldest) {
+                return size() > cardsPerPartition;
+            }
+        };
+        try {
+            // Al parar se vacía la cola antes de salir
+            while (running || !queue.isEmpty()) {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(queue, batch);
+                commit(batch, state);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Completa el lote con lo que ya está en cola y lo que llegue durante linger-ms
+    private void collect(BlockingQueue<Submission> queue, List<Submission> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long wait = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || wait <= 0) {
+                return;
+            }
+            Submission next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<Submission> batch, Map<String, CardSnapshot> state) {
+        try {
+            handler.commit(batch, state);
+        } catch (RuntimeException ex) {
+            // Nada del lote se confirmó: todas sus compras fallan y el estado en memoria se descarta
+            state.clear();
+            log.warn("Falló la confirmación de un lote de {} compras", batch.size(), ex);
+            batch.forEach(submission -> submission.result().completeExceptionally(ex));
+            return;
+        }
+        batchSizes.record(batch.size());
+        batch.forEach(Submission::complete);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Lo que no llegó a procesarse (hilo atascado en la BD) no queda esperando para siempre
+        IllegalStateException stopped = new IllegalStateException("El motor de compras se ha detenido.");
+        for (BlockingQueue<Submission> queue : queues) {
+            List<Submission> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            pending.forEach(submission -> submission.result().completeExceptionally(stopped));
+        }
+    }
+}
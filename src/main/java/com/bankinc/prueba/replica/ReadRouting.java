@@ -0,0 +1,124 @@
+package com.bankinc.prueba.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Lecturas que pueden ir a una réplica (app.db.replica.urls): read() las ejecuta en una transacción
+// readOnly dirigida a una réplica. Para leer lo propio escrito ("read-your-writes"), después de cada
+// mutación se anotan la tarjeta y el usuario autenticado; durante app.db.replica.sticky-ms sus lecturas
+// van al primario. La ventana debe cubrir el retraso habitual de la replicación. Lo leído de una réplica
+// no se guarda en la caché de segundo nivel (podría estar atrasado respecto al primario); las cachés
+// propias (tarjetas, posiciones del diario) tampoco lo guardan.
+// Sin réplicas configuradas read() solo ejecuta la consulta.
+@Component
+public class ReadRouting {
+
+    private final boolean enabled;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, Boolean> recentWrites;
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+
+    public ReadRouting(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                       @Value("${app.db.replica.urls:}") String replicaUrls,
+                       @Value("${app.db.replica.sticky-ms:2000}") long stickyMillis,
+                       @Value("${app.db.replica.sticky-max-keys:100000}") long maxStickyKeys,
+                       MeterRegistry meterRegistry) {
+        this.enabled = !replicaUrls.isBlank();
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.recentWrites = Caffeine.newBuilder()
+                                    .maximumSize(maxStickyKeys)
+                                    .expireAfterWrite(Duration.ofMillis(stickyMillis))
+                                    .build();
+        this.replicaReads = Counter.builder("db.replica.reads").tag("route", "replica").register(meterRegistry);
+        this.stickyReads = Counter.builder("db.replica.reads").tag("route", "sticky").register(meterRegistry);
+    }
+
+    public static String card(String cardId) {
+        return "card:" + cardId;
+    }
+
+    public static String user(String username) {
+        return "user:" + username;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Llamar después del commit de una mutación
+    public void recordWrite(String... keys) {
+        if (!enabled) {
+            return;
+        }
+        for (String key : keys) {
+            recentWrites.put(key, Boolean.TRUE);
+        }
+        String username = currentUsername();
+        if (username != null) {
+            recentWrites.put(user(username), Boolean.TRUE);
+        }
+    }
+
+    public <T> T read(Supplier<T> query, String... keys) {
+        return routesToReplica(keys) ? onReplica(query) : query.get();
+    }
+
+    // Si una lectura de estas claves iría a una réplica. Para quien guarda lo leído en una caché propia:
+    // lo de la réplica puede estar atrasado y no debe guardarse (ver CardService.getBalance)
+    public boolean routesToReplica(String... keys) {
+        // Dentro de otra transacción la conexión ya es del primario
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        if (isSticky(keys)) {
+            stickyReads.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // Ejecuta la consulta en una réplica (routesToReplica ya decidió la ruta)
+    public <T> T onReplica(Supplier<T> query) {
+        replicaReads.increment();
+        return ReplicaRoutingDataSource.onReplica(() -> readOnlyTransaction.execute(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+            return query.get();
+        }));
+    }
+
+    private boolean isSticky(String... keys) {
+        for (String key : keys) {
+            if (recentWrites.getIfPresent(key) != null) {
+                return true;
+            }
+        }
+        String username = currentUsername();
+        return username != null && recentWrites.getIfPresent(user(username)) != null;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication instanceof AnonymousAuthenticationToken
+                ? null : authentication.getName();
+    }
+}
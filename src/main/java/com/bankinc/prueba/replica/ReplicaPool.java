@@ -0,0 +1,127 @@
+package com.bankinc.prueba.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Réplicas de lectura (app.db.replica.urls) repartidas por turnos. Una réplica que falla al dar una
+// conexión se marca caída al momento y se salta; la comprobación periódica (Connection.isValid) la
+// vuelve a admitir cuando responde. Sin réplicas sanas, connect() devuelve null y se lee del primario.
+public class ReplicaPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+    private ScheduledExecutorService healthChecker;
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    public ReplicaPool(List<DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("app.db.replica.urls no tiene ninguna réplica.");
+        }
+        this.replicas = new ArrayList<>();
+        for (int i = 0; i < dataSources.size(); i++) {
+            replicas.add(new Replica("replica-" + i, dataSources.get(i)));
+        }
+    }
+
+    // Conexión de la siguiente réplica sana, o null si no hay ninguna
+    public Connection connect() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaConnections.incrementAndGet();
+                return connection;
+            } catch (SQLException | RuntimeException ex) {
+                markDown(replica, ex);
+            }
+        }
+        primaryFallbacks.incrementAndGet();
+        return null;
+    }
+
+    public void startHealthChecks(long intervalMillis) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("La conexión no es válida.");
+                }
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Réplica de lectura {} disponible de nuevo", replica.name);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                markDown(replica, ex);
+            }
+        }
+    }
+
+    private void markDown(Replica replica, Exception ex) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Réplica de lectura {} no disponible; se lee del primario hasta que responda", replica.name, ex);
+        }
+    }
+
+    public int getHealthyCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bankinc.prueba.replica;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+// DataSource de la aplicación cuando hay réplicas: el destino por defecto es el primario y solo las
+// conexiones pedidas dentro de ReadRouting.read (transacción readOnly abierta por esa lectura) van a
+// una réplica. Así ninguna lectura previa a una escritura (p. ej. cargar la tarjeta antes de guardarla)
+// puede ver un estado atrasado. Sin réplica sana se usa el primario.
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final ReplicaPool replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas) {
+        super(primary);
+        this.replicas = replicas;
+    }
+
+    // La conexión se obtiene al empezar la transacción, dentro de este ámbito
+    static <T> T onReplica(Supplier<T> read) {
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            REPLICA_READ.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (REPLICA_READ.get() != null) {
+            Connection connection = replicas.connect();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return super.getConnection();
+    }
+}
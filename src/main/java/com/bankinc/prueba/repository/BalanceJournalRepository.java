@@ -0,0 +1,45 @@
+package com.bankinc.prueba.repository;
+
+import com.bankinc.prueba.model.BalanceJournalEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface BalanceJournalRepository extends JpaRepository<BalanceJournalEntry, BalanceJournalEntry.Key> {
+
+    // Entradas de una tarjeta posteriores a afterSeq: suma y última seq (null si no hay ninguna)
+    interface Tail {
+        BigDecimal getTotal();
+        Long getLastSeq();
+    }
+
+    @Query("select coalesce(sum(e.amount), 0) as total, max(e.seq) as lastSeq from BalanceJournalEntry e"
+            + " where e.cardPk = :cardPk and e.seq > :afterSeq")
+    Tail findTail(@Param("cardPk") Long cardPk, @Param("afterSeq") long afterSeq);
+
+    @Query("select max(e.seq) from BalanceJournalEntry e where e.cardPk = :cardPk")
+    Optional<Long> findLastSeq(@Param("cardPk") Long cardPk);
+
+    // INSERT explícito (no merge): si otro escritor ya ocupó esta seq falla por clave duplicada
+    // Solo afecta a balance_journal: sin declararlo Hibernate vaciaría toda la caché de segundo nivel
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "balance_journal"))
+    @Query(value = "insert into balance_journal (card_id, seq, amount, created_at) values (:cardPk, :seq, :amount, :now)",
+           nativeQuery = true)
+    int append(@Param("cardPk") Long cardPk, @Param("seq") long seq, @Param("amount") BigDecimal amount,
+               @Param("now") LocalDateTime now);
+
+    // Tarjetas con entradas aún no sumadas a cards.balance (recorre el diario: solo al arrancar)
+    @Query("select distinct e.cardPk from BalanceJournalEntry e, Card c where c.id = e.cardPk and e.seq > c.journalSeq")
+    List<Long> findCardsWithTail();
+}
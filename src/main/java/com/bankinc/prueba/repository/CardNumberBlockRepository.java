@@ -0,0 +1,31 @@
+package com.bankinc.prueba.repository;
+
+import com.bankinc.prueba.model.CardNumberBlock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+
+public interface CardNumberBlockRepository extends JpaRepository<CardNumberBlock, String> {
+
+    // Reserva un bloque: el UPDATE bloquea la fila hasta el commit, así dos nodos nunca
+    // obtienen el mismo rango. 0 filas significa que el producto aún no tiene contador.
+    @Modifying
+    @Query("update CardNumberBlock b set b.nextSerial = b.nextSerial + :size where b.productId = :productId")
+    int advance(@Param("productId") String productId, @Param("size") long size);
+
+    @Query("select b.nextSerial from CardNumberBlock b where b.productId = :productId")
+    Optional<Long> findNextSerial(@Param("productId") String productId);
+
+    // INSERT explícito (no merge): si otro nodo creó la fila a la vez falla por clave duplicada
+    // Solo afecta a card_number_blocks: sin declararlo Hibernate vaciaría toda la caché de segundo nivel
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "card_number_blocks"))
+    @Query(value = "insert into card_number_blocks (product_id, next_serial) values (:productId, :nextSerial)",
+           nativeQuery = true)
+    int create(@Param("productId") String productId, @Param("nextSerial") long nextSerial);
+}
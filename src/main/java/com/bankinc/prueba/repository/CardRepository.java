@@ -1,12 +1,105 @@
 package com.bankinc.prueba.repository;
 
+import com.bankinc.prueba.dto.CardDto;
 import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface CardRepository extends JpaRepository<Card, Long> {
-    // Buscar por el número de tarjeta (cardId)
+public interface CardRepository extends JpaRepository<Card, Long>, NaturalIdLookup {
+    // Buscar por el número de tarjeta (cardId). Consulta a la BD: las decisiones sobre el saldo no
+    // pueden partir de una copia en caché
     Optional<Card> findByCardId(String cardId);
-    List<Card> findAllByOwner_Username(String username);
-}
\ No newline at end of file
+
+    // Por natural id, desde la caché de segundo nivel si está (estado y versión pueden venir de otro
+    // nodo con hasta app.second-level-cache.cards-ttl-seconds de retraso)
+    default Optional<Card> findCachedByCardId(String cardId) {
+        return findByNaturalId(Card.class, cardId);
+    }
+    List<Card> findAllByCardIdIn(Collection<String> cardIds);
+
+    // Tarjetas de un usuario para /cards/me: proyección directa a CardDto en una sola consulta. El saldo
+    // incluye las entradas del diario aún no consolidadas (ninguna con app.card-balance.model=row).
+    // En la caché de consultas: Hibernate la descarta en cuanto cambia cards, users o balance_journal
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.bankinc.prueba.dto.CardDto(c.cardId, c.productId, c.holderName, c.expirationDate,"
+            + " c.balance + coalesce((select sum(e.amount) from BalanceJournalEntry e where e.cardPk = c.id"
+            + " and e.seq > c.journalSeq), 0), c.active, c.blocked)"
+            + " from Card c join c.owner o where o.username = :username order by c.id")
+    List<CardDto> findDtosByOwnerUsername(@Param("username") String username);
+
+    @Query("select c.id from Card c where c.cardId = :cardId")
+    Optional<Long> findIdByCardId(@Param("cardId") String cardId);
+
+    // Estado y saldo consolidado de una tarjeta para el modelo de saldo "journal" (lectura por PK, sin lock)
+    interface JournalHead {
+        boolean isActive();
+        boolean isBlocked();
+        LocalDate getExpirationDate();
+        Money getBalance();
+        long getJournalSeq();
+    }
+
+    @Query("select c.active as active, c.blocked as blocked, c.expirationDate as expirationDate,"
+            + " c.balance as balance, c.journalSeq as journalSeq from Card c where c.id = :id")
+    Optional<JournalHead> findJournalHead(@Param("id") Long id);
+
+    // Tarjetas sin propietario para UserMigrationRunner, por clave (id) a partir de after. Pageable solo
+    // aporta el LIMIT
+    interface MigrationCandidate {
+        Long getId();
+        String getHolderName();
+    }
+
+    @Query("select c.id as id, c.holderName as holderName from Card c where c.owner is null and c.id > :after order by c.id")
+    List<MigrationCandidate> findMigrationCandidates(@Param("after") long after, Pageable page);
+
+    @Query("select count(c) from Card c where c.owner is null and c.id > :after")
+    long countMigrationCandidates(@Param("after") long after);
+
+    // cardId existentes en un rango (p. ej. números aleatorios emitidos antes del asignador por bloques)
+    @Query("select c.cardId from Card c where c.cardId between :from and :to")
+    List<String> findCardIdsBetween(@Param("from") String from, @Param("to") String to);
+
+    // Débito atómico: autoriza (activa, no bloqueada, vigente, saldo suficiente) y descuenta
+    // en una sola sentencia. Devuelve las filas afectadas: 0 significa compra rechazada.
+    // Estas sentencias no comprueban la versión (son conmutativas) pero sí la incrementan.
+    @Transactional
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 where c.cardId = :cardId"
+            + " and c.active = true and c.blocked = false and c.expirationDate >= :today and c.balance >= :amount")
+    int debit(@Param("cardId") String cardId, @Param("amount") Money amount, @Param("today") LocalDate today);
+
+    // Crédito atómico para recargas: solo tarjetas no bloqueadas
+    @Transactional
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1"
+            + " where c.cardId = :cardId and c.blocked = false")
+    int credit(@Param("cardId") String cardId, @Param("amount") Money amount);
+
+    // Reintegro atómico de una compra anulada, sin condiciones sobre el estado de la tarjeta
+    @Transactional
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 where c.cardId = :cardId")
+    int refund(@Param("cardId") String cardId, @Param("amount") Money amount);
+
+    // Consolida en balance las entradas del diario hasta upTo. Una sola fila actualizada por tarjeta y
+    // compactación (no por movimiento); si otro nodo ya consolidó hasta upTo no afecta filas
+    @Transactional
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + (select coalesce(sum(e.amount), 0) from BalanceJournalEntry e"
+            + " where e.cardPk = c.id and e.seq > c.journalSeq and e.seq <= :upTo),"
+            + " c.journalSeq = :upTo, c.version = c.version + 1 where c.id = :id and c.journalSeq < :upTo")
+    int foldJournal(@Param("id") Long id, @Param("upTo") long upTo);
+}
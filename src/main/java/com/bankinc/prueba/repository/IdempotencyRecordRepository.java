@@ -0,0 +1,32 @@
+package com.bankinc.prueba.repository;
+
+import com.bankinc.prueba.model.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // INSERT explícito (no merge) de la clave ya completada, dentro de la transacción de la operación:
+    // si otro nodo registró la misma clave a la vez falla por clave duplicada
+    // Solo afecta a idempotency_keys: sin declararlo Hibernate vaciaría toda la caché de segundo nivel
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "insert into idempotency_keys (id, operation, request_hash, status, result, created_at, expires_at)"
+            + " values (:id, :operation, :requestHash, 'COMPLETED', :result, :now, :expiresAt)", nativeQuery = true)
+    int record(@Param("id") String id, @Param("operation") String operation, @Param("requestHash") String requestHash,
+               @Param("result") String result, @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.expiresAt <= :now")
+    int deleteExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
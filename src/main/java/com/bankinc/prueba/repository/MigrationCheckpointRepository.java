@@ -0,0 +1,33 @@
+package com.bankinc.prueba.repository;
+
+import com.bankinc.prueba.model.MigrationCheckpoint;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.Optional;
+
+public interface MigrationCheckpointRepository extends JpaRepository<MigrationCheckpoint, String> {
+
+    @Query("select m.lastId from MigrationCheckpoint m where m.name = :name")
+    Optional<Long> findLastId(@Param("name") String name);
+
+    // Avanza solo desde la posición esperada: 0 filas significa que otro nodo ya procesó ese tramo
+    @Modifying
+    @Query("update MigrationCheckpoint m set m.lastId = :to, m.created = m.created + :created, m.updatedAt = :now"
+            + " where m.name = :name and m.lastId = :from")
+    int advance(@Param("name") String name, @Param("from") long from, @Param("to") long to,
+                @Param("created") long created, @Param("now") Instant now);
+
+    // INSERT explícito (no merge): si otro nodo creó la fila a la vez falla por clave duplicada
+    // Solo afecta a migration_checkpoints: sin declararlo Hibernate vaciaría toda la caché de segundo nivel
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "migration_checkpoints"))
+    @Query(value = "insert into migration_checkpoints (name, last_id, created, updated_at) values (:name, 0, 0, :now)",
+           nativeQuery = true)
+    int create(@Param("name") String name, @Param("now") Instant now);
+}
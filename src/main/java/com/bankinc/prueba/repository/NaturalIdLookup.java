@@ -0,0 +1,10 @@
+package com.bankinc.prueba.repository;
+
+import java.util.Optional;
+
+// Fragmento de repositorio: búsqueda por @NaturalId. A diferencia de una consulta derivada (findByX),
+// resuelve natural id -> PK -> entidad desde la caché de segundo nivel y solo va a la BD si falta
+public interface NaturalIdLookup {
+
+    <T> Optional<T> findByNaturalId(Class<T> type, Object naturalId);
+}
@@ -1,10 +1,59 @@
 package com.bankinc.prueba.repository;
 
+import com.bankinc.prueba.dto.TransactionHistoryItem;
+import com.bankinc.prueba.dto.TransactionView;
 import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     // Buscar por el identificador de la transacción (transactionId)
-    Optional<Transaction> findByTransactionId(String transactionId);
-}
\ No newline at end of file
+    Optional<Transaction> findByTransactionId(UUID transactionId);
+
+    // Tarjeta e importe de una transacción, sin hidratar Transaction ni Card
+    interface CardCharge {
+        String getCardId();
+        Money getPrice();
+    }
+
+    @Query("select t.card.cardId as cardId, t.price as price from Transaction t where t.transactionId = :transactionId")
+    Optional<CardCharge> findChargeByTransactionId(@Param("transactionId") UUID transactionId);
+
+    // Consulta de una transacción (GET /transaction/{id}) con el número de tarjeta en la misma sentencia
+    @Query("select new com.bankinc.prueba.dto.TransactionView(t.transactionId, c.cardId, t.price, t.transactionDate, t.status)"
+            + " from Transaction t join t.card c where t.transactionId = :transactionId")
+    Optional<TransactionView> findViewByTransactionId(@Param("transactionId") UUID transactionId);
+
+    // Marca como anulada solo si sigue completada y dentro de la ventana de anulación
+    @Transactional
+    @Modifying
+    @Query("update Transaction t set t.status = com.bankinc.prueba.model.Transaction.Status.ANNULLED"
+            + " where t.transactionId = :transactionId"
+            + " and t.status = com.bankinc.prueba.model.Transaction.Status.COMPLETED"
+            + " and t.transactionDate >= :notBefore")
+    int markAnnulled(@Param("transactionId") UUID transactionId, @Param("notBefore") LocalDateTime notBefore);
+
+    // Historial de una tarjeta paginado por clave (transactionDate, id), más recientes primero.
+    // Recorre el índice (card_id, transaction_date, id) desde el cursor y para en el LIMIT: una página
+    // profunda cuesta lo mismo que la primera. "transactionDate <= :beforeDate" es redundante con el
+    // cursor pero acota el rango del índice, y ordenar también por card.id (constante) deja que el
+    // orden coincida con el del índice y no haga falta ordenar. Pageable solo aporta el LIMIT.
+    @Query("select new com.bankinc.prueba.dto.TransactionHistoryItem(t.id, t.transactionId, t.price, t.transactionDate, t.status)"
+            + " from Transaction t where t.card.id = :cardPk"
+            + " and t.transactionDate >= :from and t.transactionDate <= :beforeDate"
+            + " and (t.transactionDate < :beforeDate or (t.transactionDate = :beforeDate and t.id < :beforeId))"
+            + " and (:status is null or t.status = :status)"
+            + " order by t.card.id desc, t.transactionDate desc, t.id desc")
+    List<TransactionHistoryItem> findHistoryPage(@Param("cardPk") Long cardPk, @Param("from") LocalDateTime from,
+                                                 @Param("beforeDate") LocalDateTime beforeDate, @Param("beforeId") Long beforeId,
+                                                 @Param("status") Transaction.Status status, Pageable page);
+}
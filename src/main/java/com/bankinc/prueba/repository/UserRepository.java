@@ -2,9 +2,24 @@ package com.bankinc.prueba.repository;
 
 import com.bankinc.prueba.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, Long>, NaturalIdLookup {
+    // Por natural id: desde la caché de segundo nivel si el usuario ya se leyó
+    default Optional<User> findByUsername(String username) {
+        return findByNaturalId(User.class, username);
+    }
+
     boolean existsByUsername(String username);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findUsernamesIn(@Param("usernames") Collection<String> usernames);
+
+    // Usernames que empiezan por prefix; en prefix "_", "%" y "!" van escapados con "!"
+    @Query("select u.username from User u where u.username like concat(:prefix, '%') escape '!'")
+    List<String> findUsernamesStartingWith(@Param("prefix") String prefix);
 }
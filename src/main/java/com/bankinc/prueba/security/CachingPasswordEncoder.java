@@ -0,0 +1,120 @@
+package com.bankinc.prueba.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Decorador del PasswordEncoder (BCrypt) que recuerda durante poco tiempo los pares
+// (hash almacenado, contraseña) que ya verificaron bien, para que logins repetidos del
+// mismo cliente no repitan BCrypt. La clave de caché es un HMAC con una clave aleatoria
+// del proceso: no se guarda la contraseña ni un hash rápido reutilizable fuera del proceso.
+// Solo se cachean aciertos; si cambia el hash almacenado, la clave deja de coincidir.
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final byte[] hmacKey = new byte[32];
+    private final Map<String, Long> verified = new ConcurrentHashMap<>();
+
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter cacheHits;
+
+    public CachingPasswordEncoder(PasswordEncoder delegate, long ttlMillis, int maxEntries, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        new SecureRandom().nextBytes(hmacKey);
+
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        this.cacheHits = Counter.builder("auth.password.cache.hits").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null || maxEntries <= 0) {
+            return timedMatches(rawPassword, encodedPassword);
+        }
+
+        String key = verifier(rawPassword, encodedPassword);
+        long now = System.currentTimeMillis();
+        Long expiresAt = verified.get(key);
+        if (expiresAt != null) {
+            if (expiresAt > now) {
+                cacheHits.increment();
+                return true;
+            }
+            verified.remove(key, expiresAt);
+        }
+
+        boolean matches = timedMatches(rawPassword, encodedPassword);
+        if (matches) {
+            remember(key, now);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    int cachedCount() {
+        return verified.size();
+    }
+
+    private boolean timedMatches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            matchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void remember(String key, long now) {
+        if (verified.size() >= maxEntries) {
+            verified.values().removeIf(expiresAt -> expiresAt <= now);
+            if (verified.size() >= maxEntries) {
+                return;
+            }
+        }
+        verified.put(key, now + ttlMillis);
+    }
+
+    private String verifier(CharSequence rawPassword, String encodedPassword) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(hmacKey, "HmacSHA256"));
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 no disponible", ex);
+        }
+    }
+}
@@ -1,25 +1,31 @@
 package com.bankinc.prueba.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
+    // auth.jwt.filter{result}: tiempo de resolver el token (caché de verificados o firma completa)
+    private final Timer authenticated;
+    private final Timer rejected;
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
+        this.authenticated = Timer.builder("auth.jwt.filter").tag("result", "authenticated").register(meterRegistry);
+        this.rejected = Timer.builder("auth.jwt.filter").tag("result", "rejected").register(meterRegistry);
     }
 
     @Override
@@ -31,13 +37,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             token = header.substring(7);
         }
 
-        if (token != null && tokenProvider.validateToken(token)) {
-            String username = tokenProvider.getUsername(token);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Una sola verificación por petición (o ninguna si el token ya está en la caché de verificados)
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = System.nanoTime();
+            JwtTokenProvider.TokenPrincipal principal = tokenProvider.resolve(token);
+            (principal != null ? authenticated : rejected).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (principal != null) {
+                // Los roles vienen firmados en el token (claim "roles")
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        username,
+                        principal.username(),
                         null,
-                        List.of(new SimpleGrantedAuthority("ROLE_USER"))
+                        principal.authorities()
                 );
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
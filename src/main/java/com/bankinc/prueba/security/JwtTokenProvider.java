@@ -1,54 +1,164 @@
 package com.bankinc.prueba.security;
 
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtTokenProvider {
 
     private final Key key;
     private final long validityInMilliseconds;
+    // El parser de jjwt es inmutable y thread-safe: se construye una sola vez
+    private final JwtParser parser;
+
+    // Tokens ya verificados, por SHA-256 del token (no se guarda el token en claro).
+    // Cada entrada caduca con el propio token; el tamaño está acotado por maxCachedTokens.
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final int maxCachedTokens;
+
+    private record VerifiedToken(TokenPrincipal principal, long expiresAtMillis) {}
+
+    // Usuario y roles de un token válido; las autoridades se construyen una vez por token verificado
+    public record TokenPrincipal(String username, List<GrantedAuthority> authorities) {}
+
+    // Rol por defecto de los usuarios registrados (y de los tokens emitidos antes del claim "roles")
+    public static final String DEFAULT_ROLES = "ROLE_USER";
+    private static final String ROLES_CLAIM = "roles";
 
     public JwtTokenProvider(@Value("${jwt.secret:change_this_secret}" ) String secret,
-                            @Value("${jwt.expiration-ms:3600000}") long validityInMilliseconds) {
+                            @Value("${jwt.expiration-ms:3600000}") long validityInMilliseconds,
+                            @Value("${jwt.cache.max-entries:10000}") int maxCachedTokens) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.validityInMilliseconds = validityInMilliseconds;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.maxCachedTokens = maxCachedTokens;
     }
 
     public String createToken(String username) {
+        return createToken(username, DEFAULT_ROLES);
+    }
+
+    // roles separados por comas, como User.roles (p. ej. "ROLE_USER,ROLE_FINANCE")
+    public String createToken(String username, String roles) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + validityInMilliseconds);
 
         return Jwts.builder()
                 .setSubject(username)
+                .claim(ROLES_CLAIM, roles)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsername(String token) {
+    // Una sola verificación de firma y parseo; null si el token no es válido o ha caducado
+    public Claims parseClaims(String token) {
         try {
-            return Jwts.parserBuilder().setSigningKey(key).build()
-                    .parseClaimsJws(token).getBody().getSubject();
+            return parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException ex) {
             return null;
         }
     }
 
+    // Usuario de un token válido, usando la caché de tokens verificados; null si no es válido
+    public String resolveUsername(String token) {
+        TokenPrincipal principal = resolve(token);
+        return principal != null ? principal.username() : null;
+    }
+
+    // Usuario y roles de un token válido, usando la caché de tokens verificados; null si no es válido
+    public TokenPrincipal resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        if (maxCachedTokens <= 0) {
+            return principal(parseClaims(token));
+        }
+
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return cached.principal();
+            }
+            verifiedTokens.remove(digest, cached);
+        }
+
+        Claims claims = parseClaims(token);
+        TokenPrincipal principal = principal(claims);
+        // Sin exp no se cachea: no habría momento en que expulsar la entrada
+        if (principal != null && claims.getExpiration() != null) {
+            cache(digest, new VerifiedToken(principal, claims.getExpiration().getTime()), now);
+        }
+        return principal;
+    }
+
+    public String getUsername(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    int cachedTokenCount() {
+        return verifiedTokens.size();
+    }
+
+    private void cache(String digest, VerifiedToken token, long now) {
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            verifiedTokens.values().removeIf(t -> t.expiresAtMillis() <= now);
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                return; // llena de tokens vigentes: se verifica sin cachear
+            }
+        }
+        verifiedTokens.put(digest, token);
+    }
+
+    private static TokenPrincipal principal(Claims claims) {
+        if (claims == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new TokenPrincipal(claims.getSubject(), authorities(claims.get(ROLES_CLAIM, String.class)));
+    }
+
+    // "ROLE_USER,ROLE_FINANCE" -> autoridades; sin roles, DEFAULT_ROLES
+    public static List<GrantedAuthority> authorities(String roles) {
+        return Arrays.stream((roles != null ? roles : DEFAULT_ROLES).split(","))
+                     .map(String::trim)
+                     .filter(role -> !role.isEmpty())
+                     .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                     .toList();
+    }
+
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException ex) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible", ex);
         }
     }
 }
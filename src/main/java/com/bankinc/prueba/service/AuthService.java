@@ -2,6 +2,7 @@ package com.bankinc.prueba.service;
 
 import com.bankinc.prueba.model.User;
 import com.bankinc.prueba.repository.UserRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -38,7 +39,7 @@ public class AuthService implements UserDetailsService {
 
         return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
                 .password(user.getPassword())
-                .roles("USER")
+                .authorities(JwtTokenProvider.authorities(user.getRoles()))
                 .build();
     }
 }
@@ -0,0 +1,205 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.dto.BulkCardRequest;
+import com.bankinc.prueba.dto.BulkIssuanceStatus;
+import com.bankinc.prueba.exception.TooManyRequestsException;
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Emisión masiva de tarjetas (onboarding de clientes corporativos) como job en segundo plano.
+// El titular se resuelve una sola vez; las tarjetas se guardan por chunks, cada uno en su propia
+// transacción con INSERT en lotes JDBC, y los números se publican en el job al confirmar cada chunk.
+@Service
+public class BulkCardIssuanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkCardIssuanceService.class);
+
+    private final CardService cardService;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final CardCache cardCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int chunkSize;
+    private final int maxItems;
+    private final Duration retention;
+    private final Map<UUID, BulkIssuanceJob> jobs = new ConcurrentHashMap<>();
+
+    public BulkCardIssuanceService(CardService cardService, CardRepository cardRepository,
+                                   UserRepository userRepository, CardCache cardCache,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.card-bulk.chunk-size:1000}") int chunkSize,
+                                   @Value("${app.card-bulk.max-items:100000}") int maxItems,
+                                   @Value("${app.card-bulk.workers:1}") int workers,
+                                   @Value("${app.card-bulk.queue-capacity:10}") int queueCapacity,
+                                   @Value("${app.card-bulk.retention-minutes:60}") long retentionMinutes) {
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.cardCache = cardCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "card-bulk-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public BulkIssuanceStatus submit(BulkCardRequest request, String username) {
+        if (request == null || !CardNumberAllocator.isProductId(request.productId())) {
+            throw new IllegalArgumentException("El ID del producto debe ser de 6 dígitos.");
+        }
+        List<String> holderNames = request.holderNames();
+        if (holderNames == null || holderNames.isEmpty()) {
+            throw new IllegalArgumentException("La lista de titulares no puede estar vacía.");
+        }
+        if (holderNames.size() > maxItems) {
+            throw new IllegalArgumentException("La emisión masiva admite como máximo " + maxItems + " tarjetas.");
+        }
+
+        // Un owner explícito debe existir; el usuario autenticado se asigna si existe (como en /cards/generate)
+        User owner = null;
+        if (request.owner() != null && !request.owner().isBlank()) {
+            owner = userRepository.findByUsername(request.owner())
+                                  .orElseThrow(() -> new IllegalArgumentException("Usuario " + request.owner() + " no encontrado."));
+        } else if (username != null) {
+            owner = userRepository.findByUsername(username).orElse(null);
+        }
+
+        purgeFinishedJobs();
+        // Titular vacío: el mismo valor por defecto que /cards/generate (también en el CSV de resultados)
+        List<String> names = holderNames.stream()
+                                        .map(name -> name != null && !name.isBlank() ? name : CardService.DEFAULT_HOLDER_NAME)
+                                        .toList();
+        BulkIssuanceJob job = new BulkIssuanceJob(UUID.randomUUID(), username, request.productId(), names);
+        jobs.put(job.getId(), job);
+        User jobOwner = owner;
+        try {
+            executor.execute(() -> run(job, jobOwner));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.getId());
+            throw new TooManyRequestsException("Hay demasiadas emisiones masivas en curso. Intente de nuevo más tarde.");
+        }
+        return job.status();
+    }
+
+    // Solo quien lanzó el job puede consultarlo
+    public Optional<BulkIssuanceJob> findJob(UUID jobId, String username) {
+        return Optional.ofNullable(jobs.get(jobId))
+                       .filter(job -> Objects.equals(job.getRequestedBy(), username));
+    }
+
+    void run(BulkIssuanceJob job, User owner) {
+        job.started();
+        List<String> holderNames = job.getHolderNames();
+        try {
+            for (int from = 0; from < holderNames.size(); from += chunkSize) {
+                List<String> chunk = holderNames.subList(from, Math.min(from + chunkSize, holderNames.size()));
+                // Números antes de abrir la transacción: reservar un bloque con la conexión del chunk tomada
+                // necesitaría una segunda conexión, y con tantos workers como conexiones el pool se bloquea
+                List<String> numbers = cardService.reserveCardNumbers(job.getProductId(), chunk.size());
+                // Transacción por chunk: el contexto de persistencia no crece con el job
+                List<String> cardIds = transactionTemplate.execute(status -> issueChunk(job.getProductId(), chunk, numbers, owner));
+                cardCache.invalidateAll(cardIds);
+                job.issued(cardIds);
+            }
+            job.completed();
+        } catch (RuntimeException ex) {
+            // Los chunks ya confirmados se mantienen; el estado indica cuántas tarjetas se emitieron
+            log.warn("Emisión masiva {} interrumpida: {}", job.getId(), ex.getMessage());
+            job.failed("Emisión interrumpida: " + ex.getMessage());
+        }
+    }
+
+    private List<String> issueChunk(String productId, List<String> holderNames, List<String> numbers, User owner) {
+        List<Card> cards = new ArrayList<>(holderNames.size());
+        List<String> cardIds = new ArrayList<>(holderNames.size());
+        for (int i = 0; i < holderNames.size(); i++) {
+            Card card = cardService.newCard(numbers.get(i), productId, holderNames.get(i), owner);
+            cards.add(card);
+            cardIds.add(card.getCardId());
+        }
+        cardRepository.saveAll(cards);
+        return cardIds;
+    }
+
+    // CSV cardId,holderName en el orden de la petición. Si el job sigue en curso, se van escribiendo
+    // los chunks a medida que se confirman hasta que termina.
+    public void writeResults(BulkIssuanceJob job, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("cardId,holderName\n");
+        int written = 0;
+        try {
+            while (true) {
+                List<String> cardIds = job.awaitCardIds(written, 1_000);
+                for (String cardId : cardIds) {
+                    writer.write(cardId);
+                    writer.write(',');
+                    writer.write(csv(job.getHolderName(written++)));
+                    writer.write('\n');
+                }
+                writer.flush();
+                if (cardIds.isEmpty() && job.isFinished()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Descarga interrumpida.", ex);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void purgeFinishedJobs() {
+        Instant limit = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedBefore(limit));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
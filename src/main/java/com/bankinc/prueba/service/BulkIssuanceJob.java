@@ -0,0 +1,145 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.dto.BulkIssuanceStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Estado de un job de emisión masiva. Los números se añaden por chunk ya confirmado, así quien
+// descarga los resultados puede ir leyéndolos mientras el job avanza. ReentrantLock en lugar del
+// monitor: una descarga esperando chunks no fija el hilo portador si corre en un hilo virtual.
+public class BulkIssuanceJob {
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final UUID id;
+    private final String requestedBy;
+    private final String productId;
+    private final List<String> holderNames;
+    private final Instant createdAt = Instant.now();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progressed = lock.newCondition();
+
+    // Protegidos por lock
+    private final List<String> cardIds;
+    private State state = State.PENDING;
+    private String message;
+    private Instant finishedAt;
+
+    BulkIssuanceJob(UUID id, String requestedBy, String productId, List<String> holderNames) {
+        this.id = id;
+        this.requestedBy = requestedBy;
+        this.productId = productId;
+        this.holderNames = List.copyOf(holderNames);
+        this.cardIds = new ArrayList<>(holderNames.size());
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    String getRequestedBy() {
+        return requestedBy;
+    }
+
+    String getProductId() {
+        return productId;
+    }
+
+    List<String> getHolderNames() {
+        return holderNames;
+    }
+
+    public String getHolderName(int index) {
+        return holderNames.get(index);
+    }
+
+    void started() {
+        lock.lock();
+        try {
+            state = State.RUNNING;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void issued(List<String> chunk) {
+        lock.lock();
+        try {
+            cardIds.addAll(chunk);
+            progressed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void completed() {
+        finish(State.COMPLETED, null);
+    }
+
+    void failed(String reason) {
+        finish(State.FAILED, reason);
+    }
+
+    private void finish(State finalState, String reason) {
+        lock.lock();
+        try {
+            state = finalState;
+            message = reason;
+            finishedAt = Instant.now();
+            progressed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isFinished() {
+        lock.lock();
+        try {
+            return state == State.COMPLETED || state == State.FAILED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean finishedBefore(Instant instant) {
+        lock.lock();
+        try {
+            return finishedAt != null && finishedAt.isBefore(instant);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BulkIssuanceStatus status() {
+        lock.lock();
+        try {
+            return new BulkIssuanceStatus(id, productId, state.name(), holderNames.size(), cardIds.size(),
+                    message, createdAt, finishedAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Números emitidos a partir de 'from'. Espera hasta timeoutMillis a que llegue otro chunk;
+    // vacía si no hay nada nuevo (si además isFinished(), ya no habrá más).
+    public List<String> awaitCardIds(int from, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (cardIds.size() <= from && !isFinished()) {
+                progressed.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            return cardIds.size() > from ? List.copyOf(cardIds.subList(from, cardIds.size())) : List.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,112 +1,243 @@
 package com.bankinc.prueba.service;
 
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.cache.CardSnapshot;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.dto.CardDto;
 import com.bankinc.prueba.exception.CardBlockedException;
 import com.bankinc.prueba.exception.CardNotFoundException;
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.journal.BalanceJournal;
+import com.bankinc.prueba.metrics.OperationTimer;
 import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.ProductScales;
 import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.replica.ReadRouting;
 import com.bankinc.prueba.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Random;
+import java.util.List;
 
 @Service
 public class CardService {
 
+	static final String DEFAULT_HOLDER_NAME = "TITULAR DE TARJETA";
+
 	private final CardRepository cardRepository;
 	private final UserRepository userRepository;
-	private final Random random = new Random();
+	private final CardLockManager cardLocks;
+	private final CardCache cardCache;
+	private final CardNumberAllocator cardNumbers;
+	private final ConflictRetry conflictRetry;
+	private final BalanceJournal balanceJournal;
+	private final ReadRouting readRouting;
+	private final ProductScales productScales;
+	private final TransactionTemplate transactionTemplate;
+
+	// card.operation{operation, outcome}: duración de cada operación, incluida la espera del lock
+	private final OperationTimer generateTimer;
+	private final OperationTimer enrollTimer;
+	private final OperationTimer blockTimer;
+	private final OperationTimer rechargeTimer;
+	private final OperationTimer balanceTimer;
 
 	// Inyección de dependencias
-	public CardService(CardRepository cardRepository, UserRepository userRepository) {
+	public CardService(CardRepository cardRepository, UserRepository userRepository, CardLockManager cardLocks,
+					   CardCache cardCache, CardNumberAllocator cardNumbers, ConflictRetry conflictRetry,
+					   BalanceJournal balanceJournal, ReadRouting readRouting, ProductScales productScales,
+					   PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
 		this.cardRepository = cardRepository;
 		this.userRepository = userRepository;
+		this.cardLocks = cardLocks;
+		this.cardCache = cardCache;
+		this.cardNumbers = cardNumbers;
+		this.conflictRetry = conflictRetry;
+		this.balanceJournal = balanceJournal;
+		this.readRouting = readRouting;
+		this.productScales = productScales;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.generateTimer = new OperationTimer(meterRegistry, "card.operation", "generate");
+		this.enrollTimer = new OperationTimer(meterRegistry, "card.operation", "enroll");
+		this.blockTimer = new OperationTimer(meterRegistry, "card.operation", "block");
+		this.rechargeTimer = new OperationTimer(meterRegistry, "card.operation", "recharge");
+		this.balanceTimer = new OperationTimer(meterRegistry, "card.operation", "balance");
 	}
 
 	// 1. Generar número de tarjeta
 	public String generateCardNumber(String productId, String holderName, String username) {
-		if (productId == null || productId.length() != 6) {
+		return generateTimer.record(() -> doGenerateCardNumber(productId, holderName, username));
+	}
+
+	private String doGenerateCardNumber(String productId, String holderName, String username) {
+		if (!CardNumberAllocator.isProductId(productId)) {
 			throw new IllegalArgumentException("El ID del producto debe ser de 6 dígitos.");
 		}
 
-		// Genera 10 dígitos aleatorios (para completar los 16 dígitos de la tarjeta)
-		StringBuilder randomPart = new StringBuilder();
-		for (int i = 0; i < 10; i++) {
-			randomPart.append(random.nextInt(10));
+		Card card = newCard(productId, holderName, null);
+		if (username != null) {
+			userRepository.findByUsername(username).ifPresent(user -> card.setOwner(user));
 		}
 
-		String cardNumber = productId + randomPart.toString();
-        
-		// Crea y guarda la tarjeta con los valores iniciales requeridos
+		cardRepository.save(card);
+		cardCache.invalidate(card.getCardId()); // descarta un posible "no existe" cacheado
+		readRouting.recordWrite(ReadRouting.card(card.getCardId()));
+		return card.getCardId();
+	}
+
+	// Tarjeta nueva con los valores iniciales requeridos, sin guardar
+	Card newCard(String productId, String holderName, User owner) {
+		// productId + serie única reservada por bloques + dígito de control Luhn (16 dígitos)
+		return newCard(cardNumbers.next(productId), productId, holderName, owner);
+	}
+
+	// Números para la emisión masiva, pedidos fuera de la transacción del chunk (ver CardNumberAllocator)
+	List<String> reserveCardNumbers(String productId, int count) {
+		return cardNumbers.next(productId, count);
+	}
+
+	// Con un número ya reservado (emisión masiva)
+	Card newCard(String cardId, String productId, String holderName, User owner) {
 		Card card = new Card();
-		card.setCardId(cardNumber);
+		card.setCardId(cardId);
 		card.setProductId(productId);
 		// Fecha de vencimiento: 3 años desde la fecha actual
 		card.setExpirationDate(LocalDate.now().plusYears(3));
-		card.setBalance(BigDecimal.ZERO); // Saldo inicial: cero
+		card.setBalance(Money.zero(Money.MAX_SCALE)); // Saldo inicial: cero
 		card.setActive(false); // Por defecto: inactiva
 		card.setBlocked(false);
-		card.setHolderName(holderName != null && !holderName.isBlank() ? holderName : "TITULAR DE TARJETA");
-
-		if (username != null) {
-			userRepository.findByUsername(username).ifPresent(user -> card.setOwner(user));
-		}
-
-		cardRepository.save(card);
-		return cardNumber;
+		card.setHolderName(holderName != null && !holderName.isBlank() ? holderName : DEFAULT_HOLDER_NAME);
+		card.setOwner(owner);
+		return card;
 	}
 
-	// Método de utilidad para buscar y validar existencia de tarjeta
+	// Método de utilidad para buscar y validar existencia de tarjeta. Desde la caché de segundo nivel:
+	// quien la usa guarda con control de versión o solo explica un rechazo tras un UPDATE en bloque
 	private Card findCardById(String cardId) {
-		return cardRepository.findByCardId(cardId)
+		return cardRepository.findCachedByCardId(cardId)
 							 .orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
 	}
 
 	// 2. Activar tarjeta (Enroll)
+	// Bajo el lock de la tarjeta: el save de la entidad completa no puede pisar un saldo recién cambiado
+	// en este nodo; si otro nodo la cambió entre la lectura y el save, la versión no coincide y se reintenta
 	public void enrollCard(String cardId) {
-		Card card = findCardById(cardId);
-        
-		if (card.isActive()) {
-			throw new IllegalArgumentException("La tarjeta " + cardId + " ya se encuentra activa.");
-		}
-        
-		card.setActive(true);
-		cardRepository.save(card);
+		enrollTimer.run(() -> cardLocks.runWithLock(cardId, () -> {
+			conflictRetry.run("enroll", () -> {
+				Card card = findCardById(cardId);
+
+				if (card.isActive()) {
+					throw new IllegalArgumentException("La tarjeta " + cardId + " ya se encuentra activa.");
+				}
+
+				card.setActive(true);
+				cardRepository.save(card);
+			});
+			cardCache.invalidate(cardId);
+			readRouting.recordWrite(ReadRouting.card(cardId));
+		}));
 	}
 
 	// 3. Bloquear tarjeta
 	public void blockCard(String cardId) {
-		Card card = findCardById(cardId);
-        
-		card.setBlocked(true);
-		cardRepository.save(card);
+		blockTimer.run(() -> cardLocks.runWithLock(cardId, () -> {
+			conflictRetry.run("block", () -> {
+				Card card = findCardById(cardId);
+
+				card.setBlocked(true);
+				cardRepository.save(card);
+			});
+			cardCache.invalidate(cardId);
+			readRouting.recordWrite(ReadRouting.card(cardId));
+		}));
 	}
 
-	// 4. Recargar saldo
+	// 4. Recargar saldo (serializado con las compras de la misma tarjeta)
 	public void rechargeBalance(String cardId, BigDecimal amount) {
-		Card card = findCardById(cardId);
-        
-		if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-			throw new IllegalArgumentException("El monto de recarga debe ser positivo.");
+		rechargeBalance(cardId, amount, IdempotencyService.Recorder.NONE);
+	}
+
+	// recorder guarda la Idempotency-Key en la misma transacción que el abono
+	public void rechargeBalance(String cardId, BigDecimal amount, IdempotencyService.Recorder recorder) {
+		rechargeTimer.run(() -> cardLocks.runWithLock(cardId, () -> {
+			if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+				throw new IllegalArgumentException("El monto de recarga debe ser positivo.");
+			}
+			// En la escala del producto de la tarjeta; con más decimales se rechaza, no se redondea
+			Money credit = productScales.amount(cardId, amount);
+			// Como en las compras, la PK del diario se resuelve antes de abrir la transacción
+			Long cardPk = balanceJournal.isEnabled() ? findCardPk(cardId) : null;
+			conflictRetry.run("recharge", () -> transactionTemplate.executeWithoutResult(status -> {
+				doRechargeBalance(cardId, cardPk, credit);
+				recorder.record("");
+			}));
+			if (!balanceJournal.isEnabled()) {
+				cardCache.invalidate(cardId);
+			}
+			readRouting.recordWrite(ReadRouting.card(cardId));
+		}));
+	}
+
+	private void doRechargeBalance(String cardId, Long cardPk, Money credit) {
+		if (balanceJournal.isEnabled()) {
+			doJournalRecharge(cardId, cardPk, credit);
+			return;
 		}
-        
+		// Suma el nuevo saldo en una sola sentencia; la tarjeta solo se lee para explicar un rechazo
+		if (cardRepository.credit(cardId, credit) == 0) {
+			Card card = findCardById(cardId);
+			if (card.isBlocked()) {
+				throw new CardBlockedException("La tarjeta está bloqueada y no puede ser recargada.");
+			}
+			throw new IllegalStateException("No se pudo recargar la tarjeta " + cardId + ".");
+		}
+	}
+
+	// Modelo journal: la recarga es un INSERT en el diario tras la última posición de la tarjeta
+	private void doJournalRecharge(String cardId, Long cardPk, Money amount) {
+		CardRepository.JournalHead card = cardRepository.findJournalHead(cardPk)
+														.orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
 		if (card.isBlocked()) {
-			 throw new CardBlockedException("La tarjeta está bloqueada y no puede ser recargada.");
+			throw new CardBlockedException("La tarjeta está bloqueada y no puede ser recargada.");
 		}
+		balanceJournal.append(cardPk, balanceJournal.position(cardPk, card), amount);
+	}
 
-		// Suma el nuevo saldo
-		card.setBalance(card.getBalance().add(amount));
-		cardRepository.save(card);
+	private Long findCardPk(String cardId) {
+		return cardCache.findId(cardId)
+						.orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
 	}
 
-	// 5. Consulta de saldo
-	public BigDecimal getBalance(String cardId) {
-		Card card = findCardById(cardId);
-		return card.getBalance();
+	// 5. Consulta de saldo (desde la caché de tarjetas; en el modelo journal, más el diario).
+	// Con réplicas, lo que falta en caché se lee de una réplica salvo justo después de una mutación
+	public Money getBalance(String cardId) {
+		return balanceTimer.record(() -> {
+			if (!readRouting.routesToReplica(ReadRouting.card(cardId))) {
+				CardSnapshot card = cardCache.find(cardId)
+											 .orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
+				return balanceJournal.isEnabled() ? balanceJournal.balance(card.id()) : card.balance();
+			}
+			// La réplica puede ir atrasada: lo que ya está en memoria sirve, pero lo leído de ella no se
+			// guarda (la caché de tarjetas y las posiciones del diario duran mucho más que sticky-ms)
+			CardSnapshot card = cardCache.findWithoutStoring(cardId,
+												 () -> readRouting.onReplica(() -> cardRepository.findByCardId(cardId).map(CardSnapshot::of)))
+										 .orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
+			if (!balanceJournal.isEnabled()) {
+				return card.balance();
+			}
+			return balanceJournal.cachedBalance(card.id())
+								 .orElseGet(() -> readRouting.onReplica(() -> balanceJournal.readBalance(card.id())));
+		});
 	}
 
-	public java.util.List<Card> findCardsByOwnerUsername(String username) {
+	public java.util.List<CardDto> findCardsByOwnerUsername(String username) {
 		if (username == null) return java.util.Collections.emptyList();
-		return cardRepository.findAllByOwner_Username(username);
+		return readRouting.read(() -> cardRepository.findDtosByOwnerUsername(username), ReadRouting.user(username));
 	}
 }
@@ -0,0 +1,267 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.exception.IdempotencyConflictException;
+import com.bankinc.prueba.exception.IdempotencyKeyMismatchException;
+import com.bankinc.prueba.model.IdempotencyRecord;
+import com.bankinc.prueba.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Idempotency-Key para compras y recargas: un reintento con la misma clave devuelve el resultado de
+// la primera ejecución sin volver a tocar cards ni transactions.
+//  - Resultados recientes en memoria (Caffeine): un duplicado se responde sin ir a la BD.
+//  - Duplicados concurrentes en el mismo nodo esperan a la ejecución en curso y reciben su resultado
+//    (o su error).
+//  - En BD (idempotency_keys) la clave y su resultado se escriben con un INSERT dentro de la misma
+//    transacción que el cargo o el abono (Recorder): la fila existe si y solo si la operación se
+//    confirmó. Otro nodo responde desde la fila. Si dos nodos ejecutan la misma clave a la vez, el
+//    INSERT del segundo falla por clave duplicada, su transacción se deshace y responde con la fila.
+// Si la operación falla (rechazo, rollback o commit con resultado incierto) no hay nada que liberar:
+// el reintento encuentra la fila si la operación se confirmó y la ejecuta si no. Las claves caducan
+// tras app.idempotency.ttl-hours; las filas vencidas se borran antes de volver a usarse.
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final long PURGE_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, Stored> recent;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime());
+    private final MeterRegistry meterRegistry;
+    // idempotency.replays{operation, source}: contadores de cada operación, creados una sola vez
+    private final Map<String, Counter[]> replays = new ConcurrentHashMap<>();
+
+    // value es lo que la operación devolvió (transactionId en compras, "" en recargas)
+    public record Result(String value, boolean replayed) {}
+
+    // Guarda la clave con el resultado. La operación lo llama dentro de su transacción, después de
+    // escribir el cargo o el abono: la fila y el movimiento se confirman o se deshacen juntos
+    @FunctionalInterface
+    public interface Recorder {
+        Recorder NONE = value -> {};
+
+        void record(String value);
+    }
+
+    // Origen de una respuesta repetida (tag source)
+    private enum Source {
+        MEMORY, IN_FLIGHT, DATABASE;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    // Otro nodo registró la misma clave mientras esta ejecución estaba en curso: la transacción se
+    // deshace. Si llega a una compra ajena (mismo lote del pipeline), se responde 409 y se reintenta
+    private static final class KeyRecordedConcurrently extends IdempotencyConflictException {
+        private final String id;
+
+        KeyRecordedConcurrently(String id) {
+            super("Otra petición registró la misma " + HEADER + " a la vez. Intente de nuevo.");
+            this.id = id;
+        }
+    }
+
+    private record Stored(String requestHash, String value) {}
+
+    private record InFlight(String requestHash, CompletableFuture<String> result) {}
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache.max-size:100000}") long cacheMaxSize,
+                              MeterRegistry meterRegistry) {
+        if (ttlHours <= 0) {
+            throw new IllegalArgumentException("app.idempotency.ttl-hours debe ser positivo.");
+        }
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = Caffeine.newBuilder()
+                              .maximumSize(cacheMaxSize)
+                              .expireAfterWrite(ttl)
+                              .recordStats()
+                              .build();
+        this.meterRegistry = meterRegistry;
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "idempotency");
+    }
+
+    // Sin clave se ejecuta la operación tal cual. request identifica el cuerpo de la petición: la misma
+    // clave con otro cuerpo se rechaza.
+    public Result execute(String operation, String username, String key, String request, Function<Recorder, String> action) {
+        if (key == null) {
+            return new Result(action.apply(Recorder.NONE), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("La cabecera " + HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres.");
+        }
+        String id = sha256(operation + '\n' + (username == null ? "" : username) + '\n' + key);
+        String requestHash = sha256(request);
+
+        Stored stored = recent.getIfPresent(id);
+        if (stored != null) {
+            checkSameRequest(stored.requestHash(), requestHash);
+            replayed(operation, Source.MEMORY);
+            return new Result(stored.value(), true);
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            String value = await(running.result());
+            replayed(operation, Source.IN_FLIGHT);
+            return new Result(value, true);
+        }
+        try {
+            Result result = replayOrRun(id, operation, requestHash, action);
+            mine.result().complete(result.value());
+            return result;
+        } catch (RuntimeException ex) {
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private Result replayOrRun(String id, String operation, String requestHash, Function<Recorder, String> action) {
+        LocalDateTime now = LocalDateTime.now();
+        purgeExpired(now);
+        // Dos vueltas: si otro nodo registra la clave mientras se ejecuta, se responde con su fila
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Optional<IdempotencyRecord> existing = repository.findById(id);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                if (record.getExpiresAt().isAfter(now)) {
+                    checkSameRequest(record.getRequestHash(), requestHash);
+                    if (record.getStatus() != IdempotencyRecord.Status.COMPLETED) {
+                        throw inProgress();
+                    }
+                    String value = record.getResult() == null ? "" : record.getResult();
+                    recent.put(id, new Stored(requestHash, value));
+                    replayed(operation, Source.DATABASE);
+                    return new Result(value, true);
+                }
+                transactionTemplate.executeWithoutResult(status -> repository.deleteExpired(id, now));
+            }
+            String value;
+            try {
+                value = action.apply(recorder(id, operation, requestHash));
+            } catch (KeyRecordedConcurrently ex) {
+                if (!ex.id.equals(id)) {
+                    throw ex;
+                }
+                continue;
+            }
+            String result = value == null ? "" : value;
+            recent.put(id, new Stored(requestHash, result));
+            return new Result(result, false);
+        }
+        throw inProgress();
+    }
+
+    // INSERT de la clave ya completada, en la transacción de quien lo llama (sin transacción propia)
+    private Recorder recorder(String id, String operation, String requestHash) {
+        return value -> {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                repository.record(id, operation, requestHash, value == null ? "" : value, now, now.plus(ttl));
+            } catch (DataIntegrityViolationException ex) {
+                throw new KeyRecordedConcurrently(id);
+            }
+        };
+    }
+
+    // Borrado de filas vencidas como mucho una vez por minuto y por nodo, desde el hilo que lo gana
+    private void purgeExpired(LocalDateTime now) {
+        long due = nextPurge.get();
+        if (System.nanoTime() - due < 0 || !nextPurge.compareAndSet(due, System.nanoTime() + PURGE_INTERVAL_NANOS)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.deleteAllExpired(now));
+        } catch (DataAccessException ex) {
+            log.warn("No se pudieron borrar las claves de idempotencia caducadas", ex);
+        }
+    }
+
+    private static String await(CompletableFuture<String> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static void checkSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException("La " + HEADER + " ya se usó con una petición distinta.");
+        }
+    }
+
+    private static IdempotencyConflictException inProgress() {
+        return new IdempotencyConflictException("Hay otra petición con la misma " + HEADER + " en curso. Intente de nuevo.");
+    }
+
+    private void replayed(String operation, Source source) {
+        replays.computeIfAbsent(operation, op -> new Counter[]{
+                replayCounter(op, Source.MEMORY),
+                replayCounter(op, Source.IN_FLIGHT),
+                replayCounter(op, Source.DATABASE)})[source.ordinal()].increment();
+    }
+
+    private Counter replayCounter(String operation, Source source) {
+        return Counter.builder("idempotency.replays")
+                      .tag("operation", operation)
+                      .tag("source", source.tag())
+                      .register(meterRegistry);
+    }
+
+    static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
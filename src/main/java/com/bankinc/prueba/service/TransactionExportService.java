@@ -0,0 +1,152 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.dto.TransactionExportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+// Volcado de transacciones para conciliación. Las filas se leen con un cursor JDBC de solo avance
+// desde una StatelessSession (sin contexto de persistencia: nada que desacoplar ni snapshots de
+// dirty checking) y se escriben al vuelo; la memoria no depende del tamaño de la exportación.
+@Service
+public class TransactionExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Formato de exportación no válido: " + value + " (ndjson o csv).");
+            }
+        }
+    }
+
+    // Recorre transactions por PK (orden físico en InnoDB, sin ordenación); las fechas se filtran al leer
+    private static final String EXPORT_QUERY = "select new com.bankinc.prueba.dto.TransactionExportRow("
+            + "t.transactionId, c.cardId, t.price, t.transactionDate, t.status)"
+            + " from Transaction t join t.card c"
+            + " where t.transactionDate >= :from and t.transactionDate <= :to"
+            + " order by t.id";
+
+    // Límites de DATETIME en MySQL: sustituyen a un filtro de fechas ausente
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public TransactionExportService(EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper,
+                                    @Value("${app.transaction-export.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    // Escribe las transacciones entre from y to (inclusivos, opcionales) y devuelve cuántas se exportaron
+    public long export(LocalDateTime from, LocalDateTime to, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+
+        long count;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // Solo lectura: la transacción da una foto consistente durante todo el volcado
+            session.beginTransaction();
+            try (ScrollableResults<TransactionExportRow> rows = session.createQuery(EXPORT_QUERY, TransactionExportRow.class)
+                                                                        .setParameter("from", from != null ? from : MIN_DATE)
+                                                                        .setParameter("to", to != null ? to : MAX_DATE)
+                                                                        .setFetchSize(fetchSize)
+                                                                        .setReadOnly(true)
+                                                                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                count = format == Format.CSV ? writeCsv(rows, writer) : writeNdjson(rows, writer);
+            } finally {
+                session.getTransaction().rollback();
+            }
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        return count;
+    }
+
+    private long writeNdjson(ScrollableResults<TransactionExportRow> rows, Writer writer) throws IOException {
+        long count = 0;
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.setRootValueSeparator(null); // cada objeto termina en salto de línea, sin separador extra
+        while (rows.next()) {
+            TransactionExportRow row = rows.get();
+            json.writeStartObject();
+            json.writeStringField("transactionId", row.transactionId().toString());
+            json.writeStringField("cardId", row.cardId());
+            json.writeNumberField("price", row.price().toBigDecimal());
+            json.writeStringField("transactionDate", row.transactionDate().toString());
+            json.writeStringField("status", row.status().name());
+            json.writeEndObject();
+            json.writeRaw('\n');
+            count++;
+        }
+        json.flush();
+        return count;
+    }
+
+    // Ningún campo puede contener comas ni comillas (UUID, número de tarjeta, importe, fecha ISO, estado)
+    private static long writeCsv(ScrollableResults<TransactionExportRow> rows, Writer writer) throws IOException {
+        long count = 0;
+        writer.write("transactionId,cardId,price,transactionDate,status\n");
+        while (rows.next()) {
+            TransactionExportRow row = rows.get();
+            writer.write(row.transactionId().toString());
+            writer.write(',');
+            writer.write(row.cardId());
+            writer.write(',');
+            writer.write(row.price().toString());
+            writer.write(',');
+            writer.write(row.transactionDate().toString());
+            writer.write(',');
+            writer.write(row.status().name());
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,102 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.dto.TransactionHistoryItem;
+import com.bankinc.prueba.dto.TransactionHistoryPage;
+import com.bankinc.prueba.exception.CardNotFoundException;
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+// Consultas de solo lectura sobre transacciones (proyecciones, sin entidades gestionadas)
+@Service
+public class TransactionHistoryService {
+
+    // Límites de DATETIME en MySQL: sustituyen a un filtro de fechas ausente
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final TransactionRepository transactionRepository;
+    private final CardCache cardCache;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public TransactionHistoryService(TransactionRepository transactionRepository, CardCache cardCache,
+                                     @Value("${app.transaction-history.default-page-size:20}") int defaultPageSize,
+                                     @Value("${app.transaction-history.max-page-size:100}") int maxPageSize) {
+        this.transactionRepository = transactionRepository;
+        this.cardCache = cardCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // Historial de una tarjeta, más recientes primero. from/to son inclusivos y opcionales; cursor es
+    // el nextCursor de la página anterior (mismos filtros) y limit el tamaño de página.
+    public TransactionHistoryPage getCardTransactions(String cardId, String status, LocalDateTime from,
+                                                      LocalDateTime to, String cursor, Integer limit) {
+        int size = limit != null ? limit : defaultPageSize;
+        if (size <= 0 || size > maxPageSize) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + maxPageSize + ".");
+        }
+        Transaction.Status statusFilter = parseStatus(status);
+        Long cardPk = cardCache.findId(cardId)
+                               .orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
+
+        // Sin cursor se empieza en 'to' (inclusivo); con cursor, justo después de la última fila devuelta
+        LocalDateTime beforeDate = to != null ? to : MAX_DATE;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = Cursor.decode(cursor);
+            beforeDate = position.transactionDate();
+            beforeId = position.id();
+        }
+
+        // Se pide una fila de más para saber si hay página siguiente sin contar
+        List<TransactionHistoryItem> rows = transactionRepository.findHistoryPage(cardPk, from != null ? from : MIN_DATE,
+                beforeDate, beforeId, statusFilter, PageRequest.ofSize(size + 1));
+        if (rows.size() <= size) {
+            return new TransactionHistoryPage(cardId, rows, null);
+        }
+        List<TransactionHistoryItem> page = rows.subList(0, size);
+        TransactionHistoryItem last = page.get(size - 1);
+        return new TransactionHistoryPage(cardId, List.copyOf(page), new Cursor(last.transactionDate(), last.id()).encode());
+    }
+
+    private static Transaction.Status parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        try {
+            return Transaction.Status.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Estado de transacción no válido: " + status + ".");
+        }
+    }
+
+    // Posición (transactionDate, id) de la última fila entregada, opaca para el cliente
+    record Cursor(LocalDateTime transactionDate, long id) {
+
+        String encode() {
+            String raw = transactionDate + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("Cursor de paginación no válido.");
+            }
+        }
+    }
+}
@@ -1,97 +1,528 @@
 package com.bankinc.prueba.service;
 
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.cache.CardSnapshot;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.dto.PurchaseRequest;
+import com.bankinc.prueba.dto.PurchaseResult;
+import com.bankinc.prueba.dto.TransactionView;
 import com.bankinc.prueba.exception.CardBlockedException;
 import com.bankinc.prueba.exception.CardNotFoundException;
 import com.bankinc.prueba.exception.InsufficientBalanceException;
 import com.bankinc.prueba.exception.TransactionExpiredException;
+import com.bankinc.prueba.id.TransactionIdGenerator;
+import com.bankinc.prueba.journal.BalanceJournal;
+import com.bankinc.prueba.metrics.OperationTimer;
 import com.bankinc.prueba.model.Card;
 import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.ProductScales;
+import com.bankinc.prueba.pipeline.PurchasePipeline;
+import com.bankinc.prueba.replica.ReadRouting;
 import com.bankinc.prueba.repository.CardRepository;
 import com.bankinc.prueba.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
 
     private final CardRepository cardRepository;
     private final TransactionRepository transactionRepository;
+    private final CardLockManager cardLocks;
+    private final ConflictRetry conflictRetry;
+    private final CardCache cardCache;
+    private final BalanceJournal balanceJournal;
+    private final PurchasePipeline purchasePipeline;
+    private final ReadRouting readRouting;
+    private final TransactionIdGenerator transactionIds;
+    private final ProductScales productScales;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
 
-    public TransactionService(CardRepository cardRepository, TransactionRepository transactionRepository) {
+    // transaction.operation{operation, outcome} y transaction.purchase.declined{reason}
+    private final OperationTimer purchaseTimer;
+    private final OperationTimer purchaseBatchTimer;
+    private final OperationTimer annulTimer;
+    private final Map<DeclineReason, Counter> declines = new EnumMap<>(DeclineReason.class);
+
+    // Motivo de rechazo de una compra (tag reason)
+    private enum DeclineReason {
+        NOT_FOUND, INACTIVE, BLOCKED, EXPIRED, INSUFFICIENT_BALANCE;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    public TransactionService(CardRepository cardRepository, TransactionRepository transactionRepository,
+                              CardLockManager cardLocks, ConflictRetry conflictRetry, CardCache cardCache,
+                              BalanceJournal balanceJournal, PurchasePipeline purchasePipeline,
+                              ReadRouting readRouting, TransactionIdGenerator transactionIds,
+                              ProductScales productScales, PlatformTransactionManager transactionManager,
+                              @Value("${app.purchase-batch.max-items:1000}") int maxBatchSize,
+                              MeterRegistry meterRegistry) {
         this.cardRepository = cardRepository;
         this.transactionRepository = transactionRepository;
+        this.cardLocks = cardLocks;
+        this.conflictRetry = conflictRetry;
+        this.cardCache = cardCache;
+        this.balanceJournal = balanceJournal;
+        this.purchasePipeline = purchasePipeline;
+        this.readRouting = readRouting;
+        this.transactionIds = transactionIds;
+        this.productScales = productScales;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.purchaseTimer = new OperationTimer(meterRegistry, "transaction.operation", "purchase");
+        this.purchaseBatchTimer = new OperationTimer(meterRegistry, "transaction.operation", "purchase_batch");
+        this.annulTimer = new OperationTimer(meterRegistry, "transaction.operation", "annul");
+        for (DeclineReason reason : DeclineReason.values()) {
+            declines.put(reason, Counter.builder("transaction.purchase.declined").tag("reason", reason.tag())
+                                        .register(meterRegistry));
+        }
+        // El pipeline descuenta con UPDATE de cards.balance: no se combina con el modelo journal
+        if (purchasePipeline.isEnabled() && balanceJournal.isEnabled()) {
+            throw new IllegalArgumentException("app.purchase-engine=pipeline requiere app.card-balance.model=row.");
+        }
+        purchasePipeline.start(this::commitPipelineBatch);
     }
 
     // 6. Transacción de compra
-    @Transactional
+    // El lock de la tarjeta envuelve toda la transacción: se libera después del commit,
+    // así la siguiente compra sobre la misma tarjeta ya lee el saldo confirmado.
     public String purchase(String cardId, BigDecimal price) {
+        return purchase(cardId, price, IdempotencyService.Recorder.NONE);
+    }
+
+    // recorder guarda la Idempotency-Key en la misma transacción que el débito
+    public String purchase(String cardId, BigDecimal price, IdempotencyService.Recorder recorder) {
+        return purchaseTimer.record(() -> {
+            String transactionId = doLockedPurchase(cardId, price, recorder);
+            readRouting.recordWrite(ReadRouting.card(cardId));
+            return transactionId;
+        });
+    }
+
+    private String doLockedPurchase(String cardId, BigDecimal price, IdempotencyService.Recorder recorder) {
+        if (!isValidPrice(price)) {
+            throw new IllegalArgumentException("El monto de la compra debe ser positivo.");
+        }
+        // Desde aquí el importe va en unidades menores (escala del producto); no se redondea
+        Money amount = productScales.amount(cardId, price);
+        if (purchasePipeline.isEnabled()) {
+            return awaitPipeline(purchasePipeline.submit(cardId, amount, recorder::record));
+        }
+        return cardLocks.callWithLock(cardId, () -> {
+            // La PK se resuelve antes de abrir la transacción: esperar una carga de la caché con una
+            // conexión tomada puede agotar el pool si quien carga está esperando otra conexión
+            Long cardPk = cardCache.findId(cardId)
+                                   .orElseThrow(() -> cardNotFound(cardId));
+            // Un conflicto con otro nodo (deadlock, espera de lock) repite la transacción completa
+            String transactionId = conflictRetry.call("purchase",
+                    () -> transactionTemplate.execute(status -> doPurchase(cardId, cardPk, amount, recorder)));
+            // Después del commit; en el modelo journal la compra no toca la fila de cards y la caché sigue valiendo
+            if (!balanceJournal.isEnabled()) {
+                cardCache.invalidate(cardId);
+            }
+            return transactionId;
+        });
+    }
+
+    private String doPurchase(String cardId, Long cardPk, Money price, IdempotencyService.Recorder recorder) {
+        if (balanceJournal.isEnabled()) {
+            return doJournalPurchase(cardId, cardPk, price, recorder);
+        }
+        // Autorización y débito en una sola sentencia; solo se carga la tarjeta para explicar un rechazo
+        if (cardRepository.debit(cardId, price, LocalDateTime.now().toLocalDate()) == 0) {
+            throw purchaseDeclined(cardId, price);
+        }
+
+        // Registrar la transacción (la tarjeta se referencia por proxy, sin leerla)
+        Transaction transaction = newTransaction(cardRepository.getReferenceById(cardPk), price, LocalDateTime.now());
+        transactionRepository.save(transaction);
+        recorder.record(transaction.getTransactionId().toString());
+
+        return transaction.getTransactionId().toString();
+    }
+
+    // Modelo journal: se valida contra saldo consolidado + diario y el débito es un INSERT en el diario;
+    // si otro nodo añadió antes una entrada, el conflicto repite la compra con el saldo releído
+    private String doJournalPurchase(String cardId, Long cardPk, Money price, IdempotencyService.Recorder recorder) {
+        CardRepository.JournalHead card = cardRepository.findJournalHead(cardPk)
+                                                        .orElseThrow(() -> cardNotFound(cardId));
+        BalanceJournal.Position position = balanceJournal.position(cardPk, card);
+        RuntimeException reason = declineReason(card.isActive(), card.isBlocked(), card.getExpirationDate(),
+                position.balance(), price, LocalDate.now());
+        if (reason != null) {
+            throw reason;
+        }
+        balanceJournal.append(cardPk, position, price.negate());
+
+        Transaction transaction = newTransaction(cardRepository.getReferenceById(cardPk), price, LocalDateTime.now());
+        transactionRepository.save(transaction);
+        recorder.record(transaction.getTransactionId().toString());
+
+        return transaction.getTransactionId().toString();
+    }
+
+    // Motor pipeline: espera a que el lote de la compra sea durable; un rechazo o un fallo del lote
+    // llegan con su excepción original
+    private static String awaitPipeline(CompletableFuture<String> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    // Motor pipeline: un lote de una partición en una sola transacción. El estado solo se actualiza
+    // y la caché se invalida después del commit; un conflicto repite el lote entero
+    private void commitPipelineBatch(List<PurchasePipeline.Submission> batch, Map<String, CardSnapshot> state) {
+        Map<String, CardSnapshot> committed = conflictRetry.call("purchase_pipeline",
+                () -> transactionTemplate.execute(status -> doCommitPipelineBatch(batch, state)));
+        state.putAll(committed);
+        cardCache.invalidateAll(committed.keySet());
+    }
+
+    private Map<String, CardSnapshot> doCommitPipelineBatch(List<PurchasePipeline.Submission> batch,
+                                                            Map<String, CardSnapshot> state) {
+        Map<String, List<PurchasePipeline.Submission>> byCard = batch.stream()
+                .collect(Collectors.groupingBy(PurchasePipeline.Submission::cardId, LinkedHashMap::new,
+                        Collectors.toList()));
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, CardSnapshot> committed = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        byCard.forEach((cardId, purchases) -> {
+            CardSnapshot card = commitCardPurchases(cardId, purchases, state.get(cardId), today, now, transactions);
+            if (card != null) {
+                committed.put(cardId, card);
+            }
+        });
+        transactionRepository.saveAll(transactions);
+        return committed;
+    }
+
+    // Compras de una tarjeta dentro del lote: se deciden en orden contra el saldo en memoria y se descuenta
+    // el total con un único débito condicionado. Si la memoria no coincide con la BD (otro nodo, recarga,
+    // bloqueo) el débito no afecta filas, y un rechazo tampoco se da por bueno sin releer la tarjeta: en
+    // ambos casos se relee y se vuelve a decidir. Devuelve el estado de la tarjeta tras el lote
+    private CardSnapshot commitCardPurchases(String cardId, List<PurchasePipeline.Submission> purchases, CardSnapshot cached,
+                                             LocalDate today, LocalDateTime now, List<Transaction> transactions) {
+        CardSnapshot card = cached;
+        while (true) {
+            boolean fresh = card == null;
+            if (fresh) {
+                card = cardRepository.findByCardId(cardId).map(CardSnapshot::of).orElse(null);
+                if (card == null) {
+                    // Sin contar aquí: un reintento del lote volvería a decidir; se cuenta al completar tras el commit
+                    purchases.forEach(purchase -> purchase.decline(notFoundException(cardId), declines.get(DeclineReason.NOT_FOUND)));
+                    return null;
+                }
+            }
+            // Saldo e importes en unidades menores de MAX_SCALE: el bucle opera sobre long, sin crear objetos
+            DeclineReason[] reasons = new DeclineReason[purchases.size()];
+            long start = card.balance().minorAt(Money.MAX_SCALE);
+            long balance = start;
+            boolean anyDeclined = false;
+            for (int i = 0; i < reasons.length; i++) {
+                long price = purchases.get(i).price().minorAt(Money.MAX_SCALE);
+                reasons[i] = rejection(card.active(), card.blocked(), card.expirationDate(), balance, price, today);
+                if (reasons[i] == null) {
+                    balance = Math.subtractExact(balance, price);
+                } else {
+                    anyDeclined = true;
+                }
+            }
+            if (anyDeclined && !fresh) {
+                card = null;
+                continue;
+            }
+            long total = start - balance;
+            if (total > 0 && cardRepository.debit(cardId, Money.ofMinor(total, Money.MAX_SCALE), today) == 0) {
+                if (fresh) {
+                    // Otro nodo la cambió entre la lectura y el débito
+                    throw new OptimisticLockingFailureException("La tarjeta " + cardId + " cambió durante el lote de compras.");
+                }
+                card = null;
+                continue;
+            }
+
+            Card reference = cardRepository.getReferenceById(card.id());
+            long running = start;
+            for (int i = 0; i < reasons.length; i++) {
+                PurchasePipeline.Submission purchase = purchases.get(i);
+                if (reasons[i] != null) {
+                    purchase.decline(declineException(reasons[i], Money.ofMinor(running, Money.MAX_SCALE)),
+                            declines.get(reasons[i]));
+                    continue;
+                }
+                running -= purchase.price().minorAt(Money.MAX_SCALE);
+                Transaction transaction = newTransaction(reference, purchase.price(), now);
+                transactions.add(transaction);
+                purchase.approve(transaction.getTransactionId().toString());
+            }
+            return card.withBalance(Money.ofMinor(balance, Money.MAX_SCALE));
+        }
+    }
+
+    // Motivo del rechazo de un débito que no afectó filas
+    private RuntimeException purchaseDeclined(String cardId, Money price) {
         Card card = cardRepository.findByCardId(cardId)
-                                  .orElseThrow(() -> new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada."));
+                                  .orElseThrow(() -> cardNotFound(cardId));
+
+        RuntimeException reason = declineReason(card, price, LocalDate.now());
+        if (reason != null) {
+            return reason;
+        }
+        declined(DeclineReason.INSUFFICIENT_BALANCE);
+        return new InsufficientBalanceException("Saldo insuficiente para realizar la compra. Saldo actual: " + card.getBalance());
+    }
+
+    private CardNotFoundException cardNotFound(String cardId) {
+        declined(DeclineReason.NOT_FOUND);
+        return notFoundException(cardId);
+    }
+
+    private static CardNotFoundException notFoundException(String cardId) {
+        return new CardNotFoundException("Tarjeta con ID " + cardId + " no encontrada.");
+    }
 
-        // Validaciones de la compra
-        if (!card.isActive()) {
-            throw new CardNotFoundException("La tarjeta no ha sido activada (enroll)."); // No activada
+    // Validaciones de la compra; null si la tarjeta puede pagar el importe (un rechazo se cuenta aquí)
+    private RuntimeException declineReason(Card card, Money price, LocalDate today) {
+        return declineReason(card.isActive(), card.isBlocked(), card.getExpirationDate(), card.getBalance(), price, today);
+    }
+
+    private RuntimeException declineReason(boolean active, boolean blocked, LocalDate expirationDate,
+                                           Money balance, Money price, LocalDate today) {
+        DeclineReason reason = rejection(active, blocked, expirationDate, balance.minorAt(Money.MAX_SCALE),
+                price.minorAt(Money.MAX_SCALE), today);
+        if (reason == null) {
+            return null;
         }
-        if (card.isBlocked()) {
-            throw new CardBlockedException("La tarjeta está bloqueada y no puede realizar compras."); // No bloqueada
+        declined(reason);
+        return declineException(reason, balance);
+    }
+
+    // Las mismas validaciones sin contar el rechazo (el pipeline puede decidir dos veces la misma compra).
+    // Saldo e importe en unidades menores de Money.MAX_SCALE
+    private static DeclineReason rejection(boolean active, boolean blocked, LocalDate expirationDate,
+                                           long balance, long price, LocalDate today) {
+        if (!active) {
+            return DeclineReason.INACTIVE; // No activada
+        }
+        if (blocked) {
+            return DeclineReason.BLOCKED; // No bloqueada
         }
-        if (card.getExpirationDate().isBefore(LocalDateTime.now().toLocalDate())) {
-            throw new TransactionExpiredException("La tarjeta está vencida."); // Vigente
+        if (expirationDate.isBefore(today)) {
+            return DeclineReason.EXPIRED; // Vigente
         }
-        if (card.getBalance().compareTo(price) < 0) {
-            throw new InsufficientBalanceException("Saldo insuficiente para realizar la compra. Saldo actual: " + card.getBalance()); // Saldo suficiente
+        if (balance < price) {
+            return DeclineReason.INSUFFICIENT_BALANCE; // Saldo suficiente
         }
+        return null;
+    }
+
+    // Solo construye la excepción; quien la lanza cuenta el rechazo
+    private static RuntimeException declineException(DeclineReason reason, Money balance) {
+        return switch (reason) {
+            case INACTIVE -> new CardNotFoundException("La tarjeta no ha sido activada (enroll).");
+            case BLOCKED -> new CardBlockedException("La tarjeta está bloqueada y no puede realizar compras.");
+            case EXPIRED -> new TransactionExpiredException("La tarjeta está vencida.");
+            case INSUFFICIENT_BALANCE -> new InsufficientBalanceException("Saldo insuficiente para realizar la compra. Saldo actual: " + balance);
+            case NOT_FOUND -> new CardNotFoundException("Tarjeta no encontrada.");
+        };
+    }
 
-        // Realizar la transacción: restar saldo
-        card.setBalance(card.getBalance().subtract(price));
-        cardRepository.save(card);
+    private void declined(DeclineReason reason) {
+        declines.get(reason).increment();
+    }
+
+    private static boolean isValidPrice(BigDecimal price) {
+        return price != null && price.compareTo(BigDecimal.ZERO) > 0;
+    }
 
-        // Registrar la transacción
+    private Transaction newTransaction(Card card, Money price, LocalDateTime date) {
         Transaction transaction = new Transaction();
-        transaction.setTransactionId(UUID.randomUUID().toString()); // Generar ID único
+        transaction.setTransactionId(transactionIds.next()); // Generar ID único, ordenado en el tiempo
         transaction.setCard(card);
         transaction.setPrice(price);
-        transaction.setTransactionDate(LocalDateTime.now());
+        transaction.setTransactionDate(date);
         transaction.setStatus(Transaction.Status.COMPLETED);
-        
-        transactionRepository.save(transaction);
-        
-        return transaction.getTransactionId();
+        return transaction;
+    }
+
+    // 6b. Lote de compras (POS agregadores)
+    // Una sola transacción: se cargan todas las tarjetas del lote en una consulta, cada compra se
+    // valida en orden contra el saldo en memoria y las inserciones/actualizaciones salen en lotes JDBC
+    // al hacer flush. Una compra rechazada no aborta el resto; el resultado va en el mismo orden.
+    public List<PurchaseResult> purchaseBatch(List<PurchaseRequest> purchases) {
+        return purchaseBatchTimer.record(() -> doLockedPurchaseBatch(purchases));
+    }
+
+    private List<PurchaseResult> doLockedPurchaseBatch(List<PurchaseRequest> purchases) {
+        if (purchases == null || purchases.isEmpty()) {
+            throw new IllegalArgumentException("El lote de compras no puede estar vacío.");
+        }
+        if (purchases.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote de compras admite como máximo " + maxBatchSize + " elementos.");
+        }
+        Set<String> cardIds = purchases.stream()
+                                       .map(PurchaseRequest::cardId)
+                                       .filter(Objects::nonNull)
+                                       .collect(Collectors.toSet());
+        return cardLocks.callWithLocks(cardIds, () -> {
+            // El lote escribe saldos por dirty checking: si otro nodo cambió una tarjeta después de leerla,
+            // la versión no coincide y el lote se repite entero con saldos releídos
+            List<PurchaseResult> results = conflictRetry.call("purchase_batch",
+                    () -> transactionTemplate.execute(status -> doPurchaseBatch(purchases, cardIds)));
+            cardCache.invalidateAll(cardIds);
+            readRouting.recordWrite(cardIds.stream().map(ReadRouting::card).toArray(String[]::new));
+            return results;
+        });
+    }
+
+    private List<PurchaseResult> doPurchaseBatch(List<PurchaseRequest> purchases, Set<String> cardIds) {
+        Map<String, Card> cards = cardRepository.findAllByCardIdIn(cardIds).stream()
+                                                .collect(Collectors.toMap(Card::getCardId, Function.identity()));
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Modelo journal: saldo por tarjeta según el diario; las entidades no se modifican
+        Map<Long, BalanceJournal.Position> positions = balanceJournal.isEnabled() ? new HashMap<>() : null;
+
+        List<PurchaseResult> results = new ArrayList<>(purchases.size());
+        List<Transaction> transactions = new ArrayList<>(purchases.size());
+        for (PurchaseRequest purchase : purchases) {
+            if (!isValidPrice(purchase.price())) {
+                results.add(PurchaseResult.rejected(purchase, "El monto de la compra debe ser positivo."));
+                continue;
+            }
+            Money price;
+            try {
+                price = productScales.amount(purchase.cardId(), purchase.price());
+            } catch (IllegalArgumentException ex) {
+                results.add(PurchaseResult.rejected(purchase, ex.getMessage()));
+                continue;
+            }
+            Card card = cards.get(purchase.cardId());
+            if (card == null) {
+                declined(DeclineReason.NOT_FOUND);
+                results.add(PurchaseResult.rejected(purchase, "Tarjeta con ID " + purchase.cardId() + " no encontrada."));
+                continue;
+            }
+            BalanceJournal.Position position = positions == null ? null
+                    : positions.computeIfAbsent(card.getId(), pk -> balanceJournal.position(pk, card.getBalance(), card.getJournalSeq()));
+            RuntimeException reason = declineReason(card.isActive(), card.isBlocked(), card.getExpirationDate(),
+                    position == null ? card.getBalance() : position.balance(), price, today);
+            if (reason != null) {
+                results.add(PurchaseResult.rejected(purchase, reason.getMessage()));
+                continue;
+            }
+
+            if (position != null) {
+                positions.put(card.getId(), balanceJournal.append(card.getId(), position, price.negate()));
+            } else {
+                // La tarjeta está gestionada: el nuevo saldo se escribe por dirty checking al hacer flush
+                card.setBalance(card.getBalance().minus(price));
+            }
+            Transaction transaction = newTransaction(card, price, now);
+            transactions.add(transaction);
+            results.add(PurchaseResult.completed(purchase, transaction.getTransactionId().toString()));
+        }
+
+        transactionRepository.saveAll(transactions);
+        return results;
+    }
+
+    // Un transactionId con formato inválido se trata como inexistente
+    private static Optional<UUID> parseTransactionId(String transactionId) {
+        try {
+            return Optional.of(UUID.fromString(transactionId));
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            return Optional.empty();
+        }
     }
 
     // 7. Consultar transacción
-    public Optional<Transaction> getTransaction(String transactionId) {
-        return transactionRepository.findByTransactionId(transactionId);
+    // Con réplicas se lee de una réplica, salvo si el usuario acaba de comprar o anular
+    public Optional<TransactionView> getTransaction(String transactionId) {
+        return parseTransactionId(transactionId)
+                .flatMap(id -> readRouting.read(() -> transactionRepository.findViewByTransactionId(id)));
     }
 
     // Nivel 2: 1. Anulación de transacción
-    @Transactional
     public void annulTransaction(String transactionId) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+        annulTimer.run(() -> doLockedAnnulTransaction(transactionId));
+    }
+
+    private void doLockedAnnulTransaction(String transactionId) {
+        // Tarjeta e importe se resuelven sin cargar entidades para tomar el lock antes de tocar el saldo
+        UUID id = parseTransactionId(transactionId)
+                .orElseThrow(() -> new CardNotFoundException("Transacción con ID " + transactionId + " no encontrada."));
+        TransactionRepository.CardCharge charge = transactionRepository.findChargeByTransactionId(id)
                                                      .orElseThrow(() -> new CardNotFoundException("Transacción con ID " + transactionId + " no encontrada."));
+        cardLocks.runWithLock(charge.getCardId(), () -> {
+            Long cardPk = balanceJournal.isEnabled() ? cardCache.findId(charge.getCardId()).orElseThrow() : null;
+            conflictRetry.run("annul", () -> transactionTemplate.executeWithoutResult(status -> doAnnulTransaction(id, charge, cardPk)));
+            if (cardPk == null) {
+                cardCache.invalidate(charge.getCardId());
+            }
+            readRouting.recordWrite(ReadRouting.card(charge.getCardId()));
+        });
+    }
 
-        // Validaciones de anulación
-        if (transaction.getStatus() == Transaction.Status.ANNULLED) {
-            throw new IllegalArgumentException("La transacción ya ha sido anulada.");
+    private void doAnnulTransaction(UUID transactionId, TransactionRepository.CardCharge charge, Long cardPk) {
+        // La transacción a anular no debe ser mayor a 24 horas; estado y ventana se validan en el UPDATE
+        LocalDateTime notBefore = LocalDateTime.now().minusHours(24);
+        if (transactionRepository.markAnnulled(transactionId, notBefore) == 0) {
+            throw annulmentRejected(transactionId);
         }
 
-        // La transacción a anular no debe ser mayor a 24 horas
-        LocalDateTime expiryTime = transaction.getTransactionDate().plusHours(24);
-        if (LocalDateTime.now().isAfter(expiryTime)) {
-            throw new TransactionExpiredException("La anulación debe realizarse dentro de las 24 horas siguientes a la compra.");
+        // Reversión: El valor de la compra debe volver a estar disponible en el saldo
+        if (cardPk != null) {
+            CardRepository.JournalHead card = cardRepository.findJournalHead(cardPk).orElseThrow();
+            balanceJournal.append(cardPk, balanceJournal.position(cardPk, card), charge.getPrice());
+        } else {
+            cardRepository.refund(charge.getCardId(), charge.getPrice());
         }
+    }
 
-        // Reversión: El valor de la compra debe volver a estar disponible en el saldo
-        Card card = transaction.getCard();
-        card.setBalance(card.getBalance().add(transaction.getPrice())); 
-        cardRepository.save(card);
+    private RuntimeException annulmentRejected(UUID transactionId) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                                                     .orElseThrow(() -> new CardNotFoundException("Transacción con ID " + transactionId + " no encontrada."));
 
-        // La transacción quede marcada en anulada
-        transaction.setStatus(Transaction.Status.ANNULLED);
-        transactionRepository.save(transaction);
+        if (transaction.getStatus() == Transaction.Status.ANNULLED) {
+            return new IllegalArgumentException("La transacción ya ha sido anulada.");
+        }
+        return new TransactionExpiredException("La anulación debe realizarse dentro de las 24 horas siguientes a la compra.");
     }
 }
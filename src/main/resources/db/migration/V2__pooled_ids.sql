@@ -0,0 +1,22 @@
+-- Flyway migration: move cards/transactions from AUTO_INCREMENT to pooled ids (MySQL/MariaDB)
+-- Hibernate emulates the cards_seq / transactions_seq sequences with single-row tables and
+-- hands out ids in blocks of 50, which is what allows JDBC batch inserts.
+-- Seed each table above the current MAX(id) (+ one block) so new ids never collide with old rows.
+
+CREATE TABLE IF NOT EXISTS `cards_seq` (
+  `next_val` BIGINT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO `cards_seq` (`next_val`)
+SELECT COALESCE(MAX(`id`), 0) + 51 FROM `cards`
+WHERE NOT EXISTS (SELECT 1 FROM `cards_seq`);
+
+CREATE TABLE IF NOT EXISTS `transactions_seq` (
+  `next_val` BIGINT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO `transactions_seq` (`next_val`)
+SELECT COALESCE(MAX(`id`), 0) + 51 FROM `transactions`
+WHERE NOT EXISTS (SELECT 1 FROM `transactions_seq`);
+
+-- End of migration
@@ -0,0 +1,14 @@
+-- Flyway migration: store transactions.transaction_id as BINARY(16) instead of VARCHAR(255) (MySQL/MariaDB)
+-- Existing textual UUIDs are converted in place (UNHEX of the 32 hex digits keeps Hibernate's
+-- big-endian UUID layout); new rows get time-ordered UUIDv7 values from the application.
+
+ALTER TABLE `transactions` ADD COLUMN `transaction_id_bin` BINARY(16) NULL;
+
+UPDATE `transactions` SET `transaction_id_bin` = UNHEX(REPLACE(`transaction_id`, '-', ''));
+
+-- Dropping the old column also drops its unique index
+ALTER TABLE `transactions` DROP COLUMN `transaction_id`;
+ALTER TABLE `transactions` CHANGE COLUMN `transaction_id_bin` `transaction_id` BINARY(16) NOT NULL;
+ALTER TABLE `transactions` ADD CONSTRAINT `uk_transactions_transaction_id` UNIQUE (`transaction_id`);
+
+-- End of migration
@@ -0,0 +1,12 @@
+-- Flyway migration: per-product card number counter for CardNumberAllocator (MySQL/MariaDB)
+-- Each node reserves ranges of 9-digit serials by advancing next_serial one block at a time.
+-- Cards issued earlier with random numbers need no seeding: the allocator skips any serial
+-- already present in cards.card_id when it reserves a block.
+
+CREATE TABLE IF NOT EXISTS `card_number_blocks` (
+  `product_id` VARCHAR(6) NOT NULL,
+  `next_serial` BIGINT NOT NULL,
+  PRIMARY KEY (`product_id`)
+) ENGINE=InnoDB;
+
+-- End of migration
@@ -0,0 +1,8 @@
+-- Flyway migration: composite index for the per-card transaction history (MySQL/MariaDB)
+-- GET /cards/{cardId}/transactions seeks on (transaction_date, id) within a card, newest first.
+-- Descending to match the query's ORDER BY (MySQL 8 / MariaDB 10.8+; older servers ignore DESC
+-- and scan the same index backwards). The index also serves the card_id foreign key.
+
+CREATE INDEX `idx_transactions_card_date` ON `transactions` (`card_id` DESC, `transaction_date` DESC, `id` DESC);
+
+-- End of migration
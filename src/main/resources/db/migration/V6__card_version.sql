@@ -0,0 +1,7 @@
+-- Flyway migration: optimistic locking column for cards (MySQL/MariaDB)
+-- Card.version is incremented by every UPDATE of the row (entity saves and the atomic
+-- debit/credit/refund statements); saving a card read before a concurrent change fails and is retried.
+
+ALTER TABLE `cards` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
+
+-- End of migration
@@ -0,0 +1,17 @@
+-- Flyway migration: stored results of requests sent with an Idempotency-Key header (MySQL/MariaDB)
+-- id is the SHA-256 (hex) of operation + username + key; request_hash is the SHA-256 of the request
+-- body. PENDING rows mark an operation in flight; expired rows are purged by the application.
+
+CREATE TABLE IF NOT EXISTS `idempotency_keys` (
+  `id` VARCHAR(64) NOT NULL,
+  `operation` VARCHAR(32) NOT NULL,
+  `request_hash` VARCHAR(64) NOT NULL,
+  `status` VARCHAR(16) NOT NULL,
+  `result` VARCHAR(255) NULL,
+  `created_at` DATETIME(6) NOT NULL,
+  `expires_at` DATETIME(6) NOT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `idx_idempotency_keys_expires` (`expires_at`)
+) ENGINE=InnoDB;
+
+-- End of migration
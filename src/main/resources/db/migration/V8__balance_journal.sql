@@ -0,0 +1,16 @@
+-- Flyway migration: append-only balance journal (MySQL/MariaDB), used with app.card-balance.model=journal
+-- Each debit/credit is one row keyed by (card_id, seq); seq is consecutive per card, so two nodes
+-- appending after the same position collide on the primary key instead of overdrawing the card.
+-- cards.journal_seq is the last entry already folded into cards.balance by the compactor.
+
+ALTER TABLE `cards` ADD COLUMN `journal_seq` BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS `balance_journal` (
+  `card_id` BIGINT NOT NULL,
+  `seq` BIGINT NOT NULL,
+  `amount` DECIMAL(38,2) NOT NULL,
+  `created_at` DATETIME(6) NOT NULL,
+  PRIMARY KEY (`card_id`, `seq`)
+) ENGINE=InnoDB;
+
+-- End of migration
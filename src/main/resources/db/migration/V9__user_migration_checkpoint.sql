@@ -0,0 +1,22 @@
+-- Flyway migration: resumable user migration (MySQL/MariaDB)
+-- users moves from AUTO_INCREMENT to pooled ids (users_seq, blocks of 50) like cards in V2, so the
+-- users created by UserMigrationRunner are inserted in JDBC batches. Seeded above the current MAX(id).
+-- migration_checkpoints stores how far a batch job has committed (last card id processed).
+
+CREATE TABLE IF NOT EXISTS `users_seq` (
+  `next_val` BIGINT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO `users_seq` (`next_val`)
+SELECT COALESCE(MAX(`id`), 0) + 51 FROM `users`
+WHERE NOT EXISTS (SELECT 1 FROM `users_seq`);
+
+CREATE TABLE IF NOT EXISTS `migration_checkpoints` (
+  `name` VARCHAR(64) NOT NULL,
+  `last_id` BIGINT NOT NULL,
+  `created` BIGINT NOT NULL,
+  `updated_at` DATETIME(6) NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB;
+
+-- End of migration
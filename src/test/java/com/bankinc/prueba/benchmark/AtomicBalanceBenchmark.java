@@ -0,0 +1,125 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.exception.InsufficientBalanceException;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import com.bankinc.prueba.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Latencia y sentencias SQL por compra: UPDATE condicional (TransactionService.purchase)
+// frente al camino anterior basado en entidad (select + dirty checking + update + insert).
+//   mvn -Pbenchmark test -Djmh.args="AtomicBalanceBenchmark"
+// Al final de cada fork se imprime "statements/op" según las estadísticas de Hibernate.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AtomicBalanceBenchmark {
+
+    private static final int CARDS = 1_000;
+    private static final BigDecimal PRICE = new BigDecimal("1.00");
+    private static final Money AMOUNT = Money.of(PRICE, Money.MAX_SCALE);
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private CardRepository cardRepository;
+    private TransactionRepository transactionRepository;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private String[] cardIds;
+    private final AtomicLong operations = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("atomic_balance");
+        transactionService = context.getBean(TransactionService.class);
+        cardRepository = context.getBean(CardRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        cardIds = new String[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            Card c = new Card();
+            c.setCardId("PROD01" + String.format("%010d", i));
+            c.setProductId("PROD01");
+            c.setHolderName("BENCHMARK");
+            c.setExpirationDate(LocalDate.now().plusYears(3));
+            c.setBalance(Money.of(new BigDecimal("100000000.00"), Money.MAX_SCALE));
+            c.setActive(true);
+            cardRepository.save(c);
+            cardIds[i] = c.getCardId();
+        }
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long ops = Math.max(1, operations.get());
+        System.out.printf("%nstatements/op: %.2f (%d statements, %d ops)%n",
+                (double) statistics.getPrepareStatementCount() / ops, statistics.getPrepareStatementCount(), ops);
+        context.close();
+    }
+
+    @Benchmark
+    public String atomicUpdate() {
+        operations.incrementAndGet();
+        return transactionService.purchase(randomCard(), PRICE);
+    }
+
+    @Benchmark
+    public String entityUpdate() {
+        operations.incrementAndGet();
+        String cardId = randomCard();
+        return transactionTemplate.execute(status -> {
+            Card card = cardRepository.findByCardId(cardId).orElseThrow();
+            if (card.getBalance().compareTo(AMOUNT) < 0) {
+                throw new InsufficientBalanceException("Saldo insuficiente");
+            }
+            card.setBalance(card.getBalance().minus(AMOUNT));
+            cardRepository.save(card);
+
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(UUID.randomUUID());
+            transaction.setCard(card);
+            transaction.setPrice(AMOUNT);
+            transaction.setTransactionDate(LocalDateTime.now());
+            transactionRepository.save(transaction);
+            return transaction.getTransactionId().toString();
+        });
+    }
+
+    private String randomCard() {
+        return cardIds[ThreadLocalRandom.current().nextInt(cardIds.length)];
+    }
+}
@@ -0,0 +1,112 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.dto.PurchaseRequest;
+import com.bankinc.prueba.dto.PurchaseResult;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Filas de transacción por segundo: un lote de 200 compras (POST /transaction/purchase/batch)
+// frente a 200 llamadas individuales a TransactionService.purchase, sobre H2.
+//   mvn -Pbenchmark test -Djmh.args="BatchPurchaseBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchPurchaseBenchmark {
+
+    private static final int CARDS = 1_000;
+    private static final int BATCH = 200;
+    private static final BigDecimal PRICE = new BigDecimal("1.00");
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private Statistics statistics;
+    private String[] cardIds;
+    private final AtomicLong rows = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("batch_purchase");
+        transactionService = context.getBean(TransactionService.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<Card> cards = new ArrayList<>(CARDS);
+        cardIds = new String[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            Card c = new Card();
+            c.setCardId("PROD01" + String.format("%010d", i));
+            c.setProductId("PROD01");
+            c.setHolderName("BENCHMARK");
+            c.setExpirationDate(LocalDate.now().plusYears(3));
+            c.setBalance(Money.of(new BigDecimal("100000000.00"), Money.MAX_SCALE));
+            c.setActive(true);
+            cards.add(c);
+            cardIds[i] = c.getCardId();
+        }
+        cardRepository.saveAll(cards);
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long count = Math.max(1, rows.get());
+        System.out.printf("%nstatements/row: %.2f (%d statements, %d rows)%n",
+                (double) statistics.getPrepareStatementCount() / count, statistics.getPrepareStatementCount(), count);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<PurchaseResult> batch() {
+        List<PurchaseRequest> purchases = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            purchases.add(new PurchaseRequest(randomCard(), PRICE));
+        }
+        rows.addAndGet(BATCH);
+        return transactionService.purchaseBatch(purchases);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void singleCalls(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(transactionService.purchase(randomCard(), PRICE));
+        }
+        rows.addAndGet(BATCH);
+    }
+
+    private String randomCard() {
+        return cardIds[ThreadLocalRandom.current().nextInt(cardIds.length)];
+    }
+}
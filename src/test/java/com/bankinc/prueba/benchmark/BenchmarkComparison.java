@@ -0,0 +1,83 @@
+package com.bankinc.prueba.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compara dos resultados JMH en JSON (-rf json) de la misma suite, p. ej. la release anterior y la
+// actual. Una medición empeora si cambia más que el umbral y que la suma de los errores de ambas:
+// menos operaciones/s en modo thrpt, más tiempo por operación en el resto. Sale con código 1 si
+// alguna empeora.
+//   mvn -Pbenchmark test -Dbenchmark.main=com.bankinc.prueba.benchmark.BenchmarkComparison \
+//       -Djmh.args="baseline.json target/jmh-result.json 10" -Djmh.output=
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BenchmarkComparison <base.json> <actual.json> [umbral %, por defecto 10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "base", "actual", "cambio");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            double now = after.path("primaryMetric").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  %s%n", entry.getKey(), "-", now, "nuevo", unit);
+                continue;
+            }
+            double then = before.path("primaryMetric").path("score").asDouble();
+            double noise = error(before) + error(after);
+            double change = (now - then) / then * 100;
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double worse = higherIsBetter ? then - now : now - then;
+            boolean regression = worse > noise && Math.abs(change) > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), then, now, change, unit,
+                    regression ? "  EMPEORA" : "");
+        }
+        System.out.println(regressions == 0 ? "Sin regresiones." : "Regresiones por encima del " + threshold + "%: " + regressions + ".");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    // Clave: benchmark + modo + parámetros (el mismo método con otros @Param es otra medición)
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.bankinc.prueba.benchmark.", ""));
+            key.append(" [").append(result.path("mode").asText()).append(']');
+            Map<String, String> params = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = result.path("params").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,39 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.PruebaApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Arranca la aplicación completa sobre H2 en memoria para los benchmarks que pasan por JPA.
+final class BenchmarkContext {
+
+    private BenchmarkContext() {}
+
+    static ConfigurableApplicationContext startH2(String database, String... extraArgs) {
+        return start("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MySQL", extraArgs);
+    }
+
+    // Igual, con otra URL de H2 (p. ej. en fichero, para volúmenes que no caben en el heap)
+    static ConfigurableApplicationContext start(String url, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--spring.flyway.enabled=false",
+                "--app.migrate-users=false",
+                "--jwt.secret=benchmark_secret_benchmark_secret_benchmark_secret",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(PruebaApplication.class).run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,72 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.dto.BulkCardRequest;
+import com.bankinc.prueba.dto.BulkIssuanceStatus;
+import com.bankinc.prueba.service.BulkCardIssuanceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Tiempo de un job de emisión masiva completo sobre H2 (envío, chunks, descarga del CSV).
+//   mvn -Pbenchmark test -Djmh.args="BulkIssuanceBenchmark -p cards=100000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkIssuanceBenchmark {
+
+    @Param({"100000"})
+    public int cards;
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private BulkCardIssuanceService bulkIssuance;
+    private List<String> holderNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("bulk_issuance", "--app.card-bulk.chunk-size=" + chunkSize,
+                "--app.card-bulk.max-items=" + cards);
+        bulkIssuance = context.getBean(BulkCardIssuanceService.class);
+        holderNames = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            holderNames.add("Empleado " + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String issue() throws Exception {
+        BulkIssuanceStatus job = bulkIssuance.submit(new BulkCardRequest("123456", holderNames, null), null);
+        bulkIssuance.writeResults(bulkIssuance.findJob(job.jobId(), null).orElseThrow(), OutputStream.nullOutputStream());
+        String status = bulkIssuance.findJob(job.jobId(), null).orElseThrow().status().status();
+        if (!"COMPLETED".equals(status)) {
+            throw new IllegalStateException("Job " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,65 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.service.CardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// Emisión concurrente de tarjetas sobre H2: allocate mide solo CardNumberAllocator.next y issue
+// la emisión completa (número + INSERT). blockSize=1 equivale a ir a BD por cada número.
+//   mvn -Pbenchmark test -Djmh.args="CardIssuanceBenchmark -t 8"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CardIssuanceBenchmark {
+
+    private static final String PRODUCT_ID = "123456";
+
+    @Param({"1", "1000"})
+    public int blockSize;
+
+    private ConfigurableApplicationContext context;
+    private CardNumberAllocator allocator;
+    private CardService cardService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("card_issuance_" + blockSize, "--app.card-numbers.block-size=" + blockSize);
+        allocator = context.getBean(CardNumberAllocator.class);
+        cardService = context.getBean(CardService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String allocate() {
+        return allocator.next(PRODUCT_ID);
+    }
+
+    @Benchmark
+    public String issue() {
+        return cardService.generateCardNumber(PRODUCT_ID, "Titular Benchmark", null);
+    }
+}
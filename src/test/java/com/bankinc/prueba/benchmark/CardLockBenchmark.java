@@ -0,0 +1,79 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compras por segundo sobre saldos en memoria con el mismo read-modify-write que
+// TransactionService.purchase. Escalado por núcleos: ejecutar con -t 1, 2, 4, 8...
+//   mvn -Pbenchmark test -Djmh.args="CardLockBenchmark -t 8"
+// engine=global simula "serializar todo" (un único lock); striped es CardLockManager.
+// workload=hot concentra todo en una tarjeta, many reparte entre 10.000.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardLockBenchmark {
+
+    private static final Money PRICE = Money.of(new BigDecimal("1.00"), Money.MAX_SCALE);
+    private static final Money TOP_UP = Money.of(new BigDecimal("1000000.00"), Money.MAX_SCALE);
+
+    @Param({"striped", "global"})
+    public String engine;
+
+    @Param({"many", "hot"})
+    public String workload;
+
+    private CardLockManager locks;
+    private String[] cardIds;
+    private Card[] cards;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        locks = new CardLockManager("striped".equals(engine) ? 1024 : 1);
+        int size = "hot".equals(workload) ? 1 : 10_000;
+        cardIds = new String[size];
+        cards = new Card[size];
+        for (int i = 0; i < size; i++) {
+            cardIds[i] = "PROD01" + String.format("%010d", i);
+            Card c = new Card();
+            c.setCardId(cardIds[i]);
+            c.setBalance(TOP_UP);
+            cards[i] = c;
+        }
+    }
+
+    @Benchmark
+    public void purchase(Blackhole bh) {
+        int i = cardIds.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(cardIds.length);
+        Card card = cards[i];
+        locks.runWithLock(cardIds[i], () -> {
+            if (card.getBalance().compareTo(PRICE) < 0) {
+                card.setBalance(card.getBalance().plus(TOP_UP));
+            }
+            card.setBalance(card.getBalance().minus(PRICE));
+            // Coste aproximado del trabajo dentro de la sección crítica
+            Blackhole.consumeCPU(200);
+        });
+        bh.consume(card);
+    }
+}
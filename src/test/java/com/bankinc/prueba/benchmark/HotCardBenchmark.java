@@ -0,0 +1,96 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.journal.BalanceJournal;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compras por segundo sobre pocas tarjetas "calientes" (flotas corporativas) con cada modelo de saldo:
+// row (UPDATE de la fila de cards por compra) frente a journal (INSERT en balance_journal, con el
+// compactor consolidando cada segundo). Con varios hilos se ve la disputa por la misma tarjeta:
+//   mvn -Pbenchmark test -Djmh.args="HotCardBenchmark -t 4"
+// Al final de cada fork se imprimen las sentencias SQL por compra.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotCardBenchmark {
+
+    private static final BigDecimal PRICE = new BigDecimal("0.01");
+
+    @Param({"row", "journal"})
+    public String model;
+
+    @Param({"1", "4"})
+    public int hotCards;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private Statistics statistics;
+    private String[] cardIds;
+    private final AtomicLong operations = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("hot_card_" + model, "--app.card-balance.model=" + model);
+        transactionService = context.getBean(TransactionService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        cardIds = new String[hotCards];
+        for (int i = 0; i < hotCards; i++) {
+            Card card = new Card();
+            card.setCardId("123456" + String.format("%010d", i));
+            card.setProductId("123456");
+            card.setHolderName("FLOTA");
+            card.setExpirationDate(LocalDate.now().plusYears(3));
+            card.setBalance(Money.of(new BigDecimal("100000000.00"), Money.MAX_SCALE));
+            card.setActive(true);
+            cardIds[i] = cardRepository.save(card).getCardId();
+        }
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long ops = Math.max(1, operations.get());
+        System.out.printf("%nstatements/op: %.2f (%d statements, %d ops, %d cards folded)%n",
+                (double) statistics.getPrepareStatementCount() / ops, statistics.getPrepareStatementCount(), ops,
+                (long) context.getBean(MeterRegistry.class)
+                              .get("balance.journal.folds").counter().count());
+        context.getBean(BalanceJournal.class).compactAll();
+        context.close();
+    }
+
+    @Benchmark
+    public String purchase() {
+        operations.incrementAndGet();
+        return transactionService.purchase(cardIds[ThreadLocalRandom.current().nextInt(hotCards)], PRICE);
+    }
+}
@@ -0,0 +1,375 @@
+package com.bankinc.prueba.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Generador de carga HTTP de modelo abierto: las peticiones salen a ritmo constante (rate por segundo)
+// sin esperar a que terminen las anteriores, con una mezcla configurable de recargas, compras,
+// consultas de saldo y anulaciones sobre tarjetas creadas por la propia API (/auth/register,
+// /cards/generate, enroll, recharge). La latencia se mide desde el instante en que la petición
+// debía salir, no desde que salió: si el servidor se atasca, la cola cuenta (sin omisión coordinada).
+// Por defecto arranca la aplicación en este mismo JVM sobre H2; url= apunta a un servidor ya levantado.
+//   mvn -Pbenchmark test -Dbenchmark.main=com.bankinc.prueba.benchmark.HttpLoadGenerator \
+//       -Djmh.args="rate=500 duration=60 mix=recharge:20,purchase:50,balance:25,annul:5" -Djmh.output=
+public final class HttpLoadGenerator {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // Saldo inicial de cada tarjeta: suficiente para que las compras no fallen por saldo
+    private static final String INITIAL_BALANCE = "1000000";
+    private static final int MAX_PENDING_ANNULMENTS = 100_000;
+
+    enum Operation { RECHARGE, PURCHASE, BALANCE, ANNUL }
+
+    private HttpLoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "rate", "500", "duration", "60", "warmup", "10", "users", "20", "cards", "200",
+                "mix", "recharge:20,purchase:50,balance:25,annul:5", "virtual", "false", "maxInFlight", "10000",
+                "timeout", "60"));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        double rate = Double.parseDouble(options.get("rate"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup")));
+        int maxInFlight = Integer.parseInt(options.get("maxInFlight"));
+        Mix mix = Mix.parse(options.get("mix"));
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("url");
+        if (baseUrl == null) {
+            context = BenchmarkContext.startH2("loadgen",
+                    "--spring.threads.virtual.enabled=" + options.get("virtual"),
+                    "--server.tomcat.max-connections=20000",
+                    "--server.tomcat.accept-count=10000",
+                    "--spring.main.banner-mode=off");
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        try (HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build()) {
+            Api api = new Api(http, baseUrl, Duration.ofSeconds(Long.parseLong(options.get("timeout"))));
+            List<TestCard> cards = setUp(api, Integer.parseInt(options.get("users")), Integer.parseInt(options.get("cards")));
+            System.out.printf("Preparadas %d tarjetas. Objetivo: %.0f peticiones/s durante %ds (+%ds de calentamiento).%n",
+                    cards.size(), rate, duration.toSeconds(), warmup.toSeconds());
+
+            Queue<String> annullable = new ConcurrentLinkedQueue<>();
+            if (!warmup.isZero()) {
+                run(api, cards, mix, annullable, rate, warmup, maxInFlight);
+            }
+            Stats stats = run(api, cards, mix, annullable, rate, duration, maxInFlight);
+            stats.print(System.out, rate);
+            if (options.containsKey("out")) {
+                stats.writeHistograms(Path.of(options.get("out")));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Crea usuarios y tarjetas activas con saldo; las peticiones de preparación van en paralelo
+    private static List<TestCard> setUp(Api api, int users, int cards) throws Exception {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<String> tokens = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            HttpResponse<String> response = api.post("/auth/register", null,
+                    Map.of("username", "carga-" + run + "-" + i, "password", "carga-" + run));
+            tokens.add(JSON.readTree(expectOk(response, "registro")).get("token").asText());
+        }
+        List<Future<TestCard>> futures = new ArrayList<>(cards);
+        try (ExecutorService pool = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < cards; i++) {
+                String token = tokens.get(i % users);
+                String holderName = "Carga " + i;
+                futures.add(pool.submit(() -> {
+                    String cardId = expectOk(api.post("/cards/generate", token,
+                            Map.of("productId", "123456", "holderName", holderName)), "alta de tarjeta").trim();
+                    expectOk(api.post("/cards/" + cardId + "/enroll", token, null), "activación");
+                    expectOk(api.post("/cards/" + cardId + "/recharge?amount=" + INITIAL_BALANCE, token, null), "recarga inicial");
+                    return new TestCard(cardId, token);
+                }));
+            }
+            List<TestCard> result = new ArrayList<>(cards);
+            for (Future<TestCard> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        }
+    }
+
+    private static String expectOk(HttpResponse<String> response, String step) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Fallo en " + step + ": HTTP " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    // Bucle de llegadas a ritmo fijo: cada petición sale en su propio hilo virtual a su hora prevista
+    private static Stats run(Api api, List<TestCard> cards, Mix mix, Queue<String> annullable,
+                             double rate, Duration duration, int maxInFlight) {
+        Stats stats = new Stats();
+        AtomicInteger inFlight = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + (long) (i * 1e9 / rate);
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Operation operation = mix.next(random);
+                TestCard card = cards.get(random.nextInt(cards.size()));
+                if (inFlight.get() >= maxInFlight) {
+                    stats.dropped(operation);
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                pool.execute(() -> {
+                    try {
+                        execute(api, operation, card, annullable, intended, stats);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static void execute(Api api, Operation operation, TestCard card, Queue<String> annullable,
+                                long intended, Stats stats) {
+        try {
+            HttpResponse<String> response = switch (operation) {
+                case RECHARGE -> api.post("/cards/" + card.cardId() + "/recharge?amount=10.00", card.token(), null);
+                case PURCHASE -> api.post("/transaction/purchase", card.token(),
+                        Map.of("cardId", card.cardId(), "price", "1.00"));
+                case BALANCE -> api.get("/cards/" + card.cardId() + "/balance", card.token());
+                case ANNUL -> {
+                    String transactionId = annullable.poll();
+                    if (transactionId == null) {
+                        stats.skipped(operation);
+                        yield null;
+                    }
+                    yield api.post("/transaction/anulation", card.token(), Map.of("transactionId", transactionId));
+                }
+            };
+            if (response == null) {
+                return;
+            }
+            long latency = System.nanoTime() - intended;
+            if (response.statusCode() == 200) {
+                stats.ok(operation, latency);
+                if (operation == Operation.PURCHASE && annullable.size() < MAX_PENDING_ANNULMENTS) {
+                    annullable.add(JSON.readTree(response.body()).get("transactionId").asText());
+                }
+            } else {
+                stats.error(operation, response.statusCode() + " " + errorMessage(response.body()));
+            }
+        } catch (IOException ex) {
+            stats.error(operation, "E/S " + ex.getClass().getSimpleName());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Mensaje de GlobalExceptionHandler ({"message": ...}) con los números normalizados para agrupar
+    private static String errorMessage(String body) {
+        String message = body;
+        try {
+            JsonNode node = JSON.readTree(body);
+            if (node != null && node.hasNonNull("message")) {
+                message = node.get("message").asText();
+            }
+        } catch (IOException ex) {
+            // Cuerpo que no es JSON: se agrupa por el texto tal cual
+        }
+        if (message == null || message.isBlank()) {
+            return "(sin cuerpo)";
+        }
+        message = message.replaceAll("[0-9a-fA-F]{8}-[0-9a-fA-F-]{27}", "<uuid>").replaceAll("\\d+", "#");
+        return message.length() > 80 ? message.substring(0, 80) + "…" : message;
+    }
+
+    private record TestCard(String cardId, String token) {}
+
+    private record Api(HttpClient http, String baseUrl, Duration timeout) {
+
+        HttpResponse<String> get(String path, String token) throws IOException, InterruptedException {
+            return http.send(request(path, token).GET().build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> post(String path, String token, Object body) throws IOException, InterruptedException {
+            HttpRequest.Builder builder = request(path, token);
+            if (body == null) {
+                builder.POST(HttpRequest.BodyPublishers.noBody());
+            } else {
+                builder.header("Content-Type", "application/json")
+                       .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+            }
+            return http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        private HttpRequest.Builder request(String path, String token) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder;
+        }
+    }
+
+    // Proporción de cada operación, p. ej. "recharge:20,purchase:50,balance:25,annul:5"
+    private record Mix(Operation[] operations, int[] cumulativeWeights) {
+
+        static Mix parse(String spec) {
+            List<Operation> operations = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int total = 0;
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.trim().split(":");
+                int weight = Integer.parseInt(parts[1]);
+                if (weight > 0) {
+                    total += weight;
+                    operations.add(Operation.valueOf(parts[0].toUpperCase()));
+                    cumulative.add(total);
+                }
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("La mezcla de operaciones está vacía: " + spec);
+            }
+            return new Mix(operations.toArray(Operation[]::new), cumulative.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Operation next(ThreadLocalRandom random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (pick >= cumulativeWeights[i]) {
+                i++;
+            }
+            return operations[i];
+        }
+    }
+
+    // Latencia de las respuestas correctas en microsegundos (hasta 1 h, 3 cifras significativas) y errores
+    // agrupados por operación y causa
+    private static final class Stats {
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> dropped = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> skipped = new EnumMap<>(Operation.class);
+        private final Map<String, LongAdder> errorsByCause = new ConcurrentHashMap<>();
+        private long elapsedNanos;
+
+        Stats() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(Duration.ofHours(1).toNanos() / 1000, 3));
+                errors.put(operation, new LongAdder());
+                dropped.put(operation, new LongAdder());
+                skipped.put(operation, new LongAdder());
+            }
+        }
+
+        void ok(Operation operation, long latencyNanos) {
+            latencies.get(operation).recordValue(Math.min(latencyNanos / 1000, latencies.get(operation).getHighestTrackableValue()));
+        }
+
+        void error(Operation operation, String cause) {
+            errors.get(operation).increment();
+            errorsByCause.computeIfAbsent(operation + " " + cause, key -> new LongAdder()).increment();
+        }
+
+        void dropped(Operation operation) {
+            dropped.get(operation).increment();
+        }
+
+        void skipped(Operation operation) {
+            skipped.get(operation).increment();
+        }
+
+        void print(PrintStream out, double targetRate) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf("%n%-9s %9s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+                    "op", "ok", "ok/s", "errores", "descart", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            long sent = 0;
+            long completed = 0;
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = latencies.get(operation);
+                long count = histogram.getTotalCount();
+                long failed = errors.get(operation).sum();
+                sent += count + failed;
+                completed += count;
+                out.printf("%-9s %9d %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name().toLowerCase(),
+                        count, count / seconds, failed, dropped.get(operation).sum() + skipped.get(operation).sum(),
+                        millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                        histogram.getMaxValue() / 1000.0);
+            }
+            out.printf("%nEnviadas %.1f peticiones/s (objetivo %.1f), correctas %.1f/s en %.1f s.%n",
+                    sent / seconds, targetRate, completed / seconds, seconds);
+            long annulSkipped = skipped.get(Operation.ANNUL).sum();
+            if (annulSkipped > 0) {
+                out.printf("Anulaciones sin compra previa que anular (no enviadas): %d%n", annulSkipped);
+            }
+            if (!errorsByCause.isEmpty()) {
+                out.println("\nErrores:");
+                errorsByCause.entrySet().stream()
+                             .sorted(Map.Entry.<String, LongAdder>comparingByValue((a, b) -> Long.compare(b.sum(), a.sum())))
+                             .forEach(entry -> out.printf("%9d  %s%n", entry.getValue().sum(), entry.getKey()));
+            }
+        }
+
+        // Un fichero .hgrm por operación, en milisegundos (formato de HdrHistogram para graficar)
+        void writeHistograms(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            for (Operation operation : Operation.values()) {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(
+                        directory.resolve(operation.name().toLowerCase() + ".hgrm")))) {
+                    latencies.get(operation).outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
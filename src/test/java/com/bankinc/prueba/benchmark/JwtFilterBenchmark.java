@@ -0,0 +1,104 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.security.JwtAuthenticationFilter;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+// Coste por petición de JwtAuthenticationFilter.
+//   legacy      -> validateToken + getUsername con un parser nuevo cada vez (comportamiento anterior)
+//   singleParse -> una verificación por petición, sin caché (jwt.cache.max-entries=0)
+//   cached      -> caché de tokens verificados por digest
+//   mvn -Pbenchmark test -Djmh.args="JwtFilterBenchmark"
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark_secret_benchmark_secret_benchmark_secret";
+
+    @Param({"legacy", "singleParse", "cached"})
+    public String mode;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtTokenProvider provider = "legacy".equals(mode)
+                ? new LegacyJwtTokenProvider(SECRET)
+                : new JwtTokenProvider(SECRET, 3_600_000, "cached".equals(mode) ? 10_000 : 0);
+        filter = new JwtAuthenticationFilter(provider, new SimpleMeterRegistry());
+        request = new MockHttpServletRequest("GET", "/cards/PROD010000000001/balance");
+        request.addHeader("Authorization", "Bearer " + provider.createToken("benchmark-user"));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // Réplica del filtro anterior: dos parseos completos con un parser construido en cada llamada
+    static final class LegacyJwtTokenProvider extends JwtTokenProvider {
+
+        private final Key key;
+
+        LegacyJwtTokenProvider(String secret) {
+            super(secret, 3_600_000, 0);
+            this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        }
+
+        @Override
+        public TokenPrincipal resolve(String token) {
+            return validateToken(token)
+                    ? new TokenPrincipal(getUsername(token), authorities(DEFAULT_ROLES))
+                    : null;
+        }
+
+        @Override
+        public boolean validateToken(String token) {
+            try {
+                Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+                return true;
+            } catch (RuntimeException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public String getUsername(String token) {
+            try {
+                return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+            } catch (RuntimeException ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// JwtTokenProvider: emisión (login/registro), validación completa (firma + parseo) y resolución
+// del usuario en el filtro, que pasa por la caché de tokens verificados. El filtro completo se mide
+// en JwtFilterBenchmark. Parte de la suite de regresión (ver README):
+//   mvn -Pbenchmark test -Djmh.args="JwtTokenBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenBenchmark {
+
+    private static final String SECRET = "benchmark_secret_benchmark_secret_benchmark_secret";
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider = new JwtTokenProvider(SECRET, 3_600_000, 10_000);
+        token = provider.createToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String createToken() {
+        return provider.createToken("benchmark-user");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return provider.validateToken(token);
+    }
+
+    @Benchmark
+    public String resolveUsername() {
+        return provider.resolveUsername(token);
+    }
+}
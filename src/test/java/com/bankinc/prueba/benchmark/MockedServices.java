@@ -0,0 +1,79 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.id.UuidV7Generator;
+import com.bankinc.prueba.journal.BalanceJournal;
+import com.bankinc.prueba.pipeline.PurchasePipeline;
+import com.bankinc.prueba.replica.ReadRouting;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.ProductScales;
+import com.bankinc.prueba.repository.CardNumberBlockRepository;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.bankinc.prueba.repository.UserRepository;
+import com.bankinc.prueba.service.CardService;
+import com.bankinc.prueba.service.TransactionService;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Servicios reales sobre repositorios Mockito (sin BD ni Spring): aíslan el coste de la lógica de
+// servicio, locks, caché e ids. Incluye el de las propias llamadas a los mocks (~cientos de ns).
+final class MockedServices {
+
+    static final long CARD_PK = 1L;
+
+    final CardRepository cardRepository = mock(CardRepository.class);
+    final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    final UserRepository userRepository = mock(UserRepository.class);
+    final CardNumberBlockRepository blocks = mock(CardNumberBlockRepository.class);
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    final CardService cardService;
+    final TransactionService transactionService;
+
+    MockedServices() {
+        // Contador de series en "BD": cada reserva avanza un bloque
+        AtomicLong nextSerial = new AtomicLong();
+        when(blocks.advance(anyString(), anyLong())).thenAnswer(i -> {
+            nextSerial.addAndGet(i.getArgument(1, Long.class));
+            return 1;
+        });
+        when(blocks.findNextSerial(anyString())).thenAnswer(i -> Optional.of(nextSerial.get()));
+        when(cardRepository.findCardIdsBetween(anyString(), anyString())).thenReturn(List.of());
+        when(cardRepository.save(any(Card.class))).thenAnswer(i -> i.getArgument(0));
+        when(cardRepository.findIdByCardId(anyString())).thenReturn(Optional.of(CARD_PK));
+        when(cardRepository.debit(anyString(), any(), any(LocalDate.class))).thenReturn(1);
+        when(cardRepository.credit(anyString(), any())).thenReturn(1);
+        when(cardRepository.getReferenceById(CARD_PK)).thenReturn(new Card());
+        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+
+        CardLockManager locks = new CardLockManager(1024);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CardCache cache = new CardCache(cardRepository, false, 0, 0, null);
+        ConflictRetry conflictRetry = new ConflictRetry(5, 5, 200, meterRegistry);
+        CardNumberAllocator allocator = new CardNumberAllocator(blocks, cardRepository, transactionManager, conflictRetry, 1000);
+        BalanceJournal journal = new BalanceJournal(cardRepository, null, "row", 0, 0, meterRegistry);
+        ReadRouting readRouting = new ReadRouting(transactionManager, null, "", 0, 0, meterRegistry);
+        ProductScales scales = new ProductScales(2, "");
+        cardService = new CardService(cardRepository, userRepository, locks, cache, allocator, conflictRetry, journal,
+                readRouting, scales, transactionManager, meterRegistry);
+        transactionService = new TransactionService(cardRepository, transactionRepository, locks, conflictRetry, cache,
+                journal, new PurchasePipeline("sync", 1, 1, 1, 0, 1, meterRegistry), readRouting,
+                new UuidV7Generator(), scales, transactionManager, 1000, meterRegistry);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Lógica de dominio de una compra (validar la tarjeta, comparar saldo e importe y descontar) para un
+// lote de compras de una tarjeta, como en TransactionService.commitCardPurchases, con:
+//   bigDecimal       saldo e importes BigDecimal (implementación anterior): un BigDecimal nuevo por compra
+//   minorUnits       unidades menores en long (implementación actual): un Money por lote, no por compra
+//   moneyPerPurchase Money.minus en cada compra (lote síncrono, que escribe el saldo en la entidad)
+// Sin BD ni JPA: solo la aritmética. Bytes por compra con -prof gc (gc.alloc.rate.norm):
+//   mvn -Pbenchmark test -Djmh.args="MoneyBenchmark -prof gc"
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int PURCHASES = 256;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate expirationDate = today.plusYears(3);
+
+    private BigDecimal decimalBalance;
+    private BigDecimal[] decimalPrices;
+    private Money balance;
+    private Money[] prices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        decimalBalance = new BigDecimal("100000000.00");
+        balance = Money.of(decimalBalance, Money.MAX_SCALE);
+        decimalPrices = new BigDecimal[PURCHASES];
+        prices = new Money[PURCHASES];
+        for (int i = 0; i < PURCHASES; i++) {
+            decimalPrices[i] = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            prices[i] = Money.of(decimalPrices[i], Money.MAX_SCALE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PURCHASES)
+    public BigDecimal bigDecimal() {
+        BigDecimal running = decimalBalance;
+        for (BigDecimal price : decimalPrices) {
+            if (approved(true, false, expirationDate, running, price)) {
+                running = running.subtract(price);
+            }
+        }
+        return decimalBalance.subtract(running);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PURCHASES)
+    public Money minorUnits() {
+        long start = balance.minorAt(Money.MAX_SCALE);
+        long running = start;
+        for (Money price : prices) {
+            long amount = price.minorAt(Money.MAX_SCALE);
+            if (approved(true, false, expirationDate, running, amount)) {
+                running = Math.subtractExact(running, amount);
+            }
+        }
+        return Money.ofMinor(start - running, Money.MAX_SCALE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PURCHASES)
+    public Money moneyPerPurchase() {
+        Money running = balance;
+        for (Money price : prices) {
+            if (approved(true, false, expirationDate, running.minorAt(Money.MAX_SCALE), price.minorAt(Money.MAX_SCALE))) {
+                running = running.minus(price);
+            }
+        }
+        return balance.minus(running);
+    }
+
+    private boolean approved(boolean active, boolean blocked, LocalDate expiration, BigDecimal balance, BigDecimal price) {
+        return active && !blocked && !expiration.isBefore(today) && balance.compareTo(price) >= 0;
+    }
+
+    private boolean approved(boolean active, boolean blocked, LocalDate expiration, long balance, long price) {
+        return active && !blocked && !expiration.isBefore(today) && balance >= price;
+    }
+}
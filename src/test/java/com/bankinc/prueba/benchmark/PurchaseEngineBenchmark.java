@@ -0,0 +1,92 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.service.TransactionService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compras por segundo y latencia (percentiles de SampleTime) del motor síncrono (una transacción por
+// compra bajo el lock de la tarjeta) frente al pipeline (particiones con un único escritor y group
+// commit). El pipeline solo agrupa si hay compras concurrentes, así que se mide con varios hilos:
+//   mvn -Pbenchmark test -Djmh.args="PurchaseEngineBenchmark -t 16"
+// Al final de cada fork se imprimen las sentencias SQL por compra y el tamaño medio de lote.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PurchaseEngineBenchmark {
+
+    private static final BigDecimal PRICE = new BigDecimal("0.01");
+
+    @Param({"sync", "pipeline"})
+    public String engine;
+
+    @Param({"64"})
+    public int cards;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private Statistics statistics;
+    private String[] cardIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("purchase_engine_" + engine, "--app.purchase-engine=" + engine);
+        transactionService = context.getBean(TransactionService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        cardIds = new String[cards];
+        for (int i = 0; i < cards; i++) {
+            Card card = new Card();
+            card.setCardId("123456" + String.format("%010d", i));
+            card.setProductId("123456");
+            card.setHolderName("COMERCIO");
+            card.setExpirationDate(LocalDate.now().plusYears(3));
+            card.setBalance(Money.of(new BigDecimal("100000000.00"), Money.MAX_SCALE));
+            card.setActive(true);
+            cardIds[i] = cardRepository.save(card).getCardId();
+        }
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long purchases = Math.max(1, statistics.getEntityInsertCount());
+        DistributionSummary batches = context.getBean(MeterRegistry.class).get("purchase.pipeline.batch.size").summary();
+        System.out.printf("%nstatements/purchase: %.2f, transactions/purchase: %.3f, mean pipeline batch: %.1f%n",
+                (double) statistics.getPrepareStatementCount() / purchases,
+                (double) statistics.getTransactionCount() / purchases, batches.mean());
+        context.close();
+    }
+
+    @Benchmark
+    public String purchase() {
+        return transactionService.purchase(cardIds[ThreadLocalRandom.current().nextInt(cards)], PRICE);
+    }
+}
@@ -0,0 +1,123 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import com.bankinc.prueba.service.AuthService;
+import com.bankinc.prueba.service.CardService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lecturas de referencia sin y con la caché de segundo nivel de Hibernate (app.second-level-cache.enabled):
+// búsqueda del usuario en el login, emisión de tarjeta a nombre de un usuario y /cards/me.
+//   mvn -Pbenchmark test -Djmh.args="SecondLevelCacheBenchmark"
+// Al final de cada fork se imprimen las sentencias SQL por petición y los aciertos de la caché.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"200"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private CardService cardService;
+    private Statistics statistics;
+    private String[] usernames;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("second_level_cache_" + cache, "--app.second-level-cache.enabled=" + cache);
+        authService = context.getBean(AuthService.class);
+        cardService = context.getBean(CardService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setUsername("usuario" + i);
+            user.setPassword("x");
+            user = userRepository.save(user);
+            usernames[i] = user.getUsername();
+            for (int j = 0; j < 3; j++) {
+                Card card = new Card();
+                card.setCardId("654321" + String.format("%010d", i * 3 + j));
+                card.setProductId("654321");
+                card.setHolderName("USUARIO " + i);
+                card.setExpirationDate(LocalDate.now().plusYears(3));
+                card.setBalance(Money.of(new BigDecimal("100.00"), Money.MAX_SCALE));
+                card.setActive(true);
+                card.setOwner(user);
+                cardRepository.save(card);
+            }
+        }
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long count = Math.max(1, requests.get());
+        System.out.printf("%nstatements/request: %.2f, natural-id cache hits: %d/%d, query cache hits: %d/%d%n",
+                (double) statistics.getPrepareStatementCount() / count,
+                statistics.getNaturalIdCacheHitCount(),
+                statistics.getNaturalIdCacheHitCount() + statistics.getNaturalIdCacheMissCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheHitCount() + statistics.getQueryCacheMissCount());
+        context.close();
+    }
+
+    private String randomUser() {
+        requests.incrementAndGet();
+        return usernames[ThreadLocalRandom.current().nextInt(users)];
+    }
+
+    @Benchmark
+    public UserDetails loadUser() {
+        return authService.loadUserByUsername(randomUser());
+    }
+
+    // Inserta una tarjeta por llamada: invalida las consultas en caché sobre cards, no los usuarios
+    @Benchmark
+    public String generateCard() {
+        return cardService.generateCardNumber("123456", "TITULAR", randomUser());
+    }
+
+    @Benchmark
+    public List<?> ownerCards() {
+        return cardService.findCardsByOwnerUsername(randomUser());
+    }
+}
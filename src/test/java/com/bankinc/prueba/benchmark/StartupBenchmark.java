@@ -0,0 +1,268 @@
+package com.bankinc.prueba.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Arranque en frío: milisegundos desde que se lanza el proceso hasta la primera respuesta 200 de
+// GET /api/status y de GET /cards/{cardId}/balance (la primera consulta que pasa por JPA y la BD), ambas
+// con el token de un usuario registrado, en:
+//   default              jar de siempre (java -jar, con H2 añadido por loader.path) y propiedades por defecto
+//   fast-startup         jar extraído y perfil fast-startup (sin ddl-auto ni metadatos JDBC al arrancar)
+//   fast-startup-aot     lo anterior con las clases AOT de Spring (-Dspring.aot.enabled=true)
+//   fast-startup-aot-cds lo anterior con el archivo AppCDS del entrenamiento (-XX:SharedArchiveFile)
+// Cada arranque es un JVM nuevo sobre la misma BD H2 en fichero (target/startup-benchmark), creada por
+// un primer arranque default que registra un usuario y emite la tarjeta consultada. Requiere los
+// artefactos de mvn -Pfast-startup package:
+//   mvn -Pfast-startup package -DskipTests
+//   mvn -Pbenchmark test -Dbenchmark.main=com.bankinc.prueba.benchmark.StartupBenchmark \
+//       -Djmh.args="runs=5 modes=default,fast-startup-aot-cds" -Djmh.output=
+public final class StartupBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SECRET = "benchmark_secret_benchmark_secret_benchmark_secret";
+
+    enum Mode {
+        DEFAULT, FAST_STARTUP, FAST_STARTUP_AOT, FAST_STARTUP_AOT_CDS;
+
+        String label() {
+            return name().toLowerCase().replace('_', '-');
+        }
+
+        static Mode parse(String label) {
+            return valueOf(label.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private record Sample(long statusMillis, long balanceMillis) {}
+
+    private StartupBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "runs", "5", "timeout", "180", "modes", "default,fast-startup,fast-startup-aot,fast-startup-aot-cds",
+                "jar", "target/prueba-0.0.1-SNAPSHOT.jar", "extracted", "target/fast-startup"));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int runs = Integer.parseInt(options.get("runs"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.get("timeout")));
+        List<Mode> modes = Arrays.stream(options.get("modes").split(",")).map(Mode::parse).toList();
+        Launcher launcher = new Launcher(Path.of(options.get("jar")), Path.of(options.get("extracted")),
+                Path.of("target", "startup-benchmark"));
+        for (Mode mode : modes) {
+            launcher.check(mode);
+        }
+
+        try (HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()) {
+            String[] seeded = launcher.seed(http, timeout);
+            String token = seeded[0];
+            String cardId = seeded[1];
+
+            Map<Mode, List<Sample>> results = new HashMap<>();
+            // Modos intercalados en cada ronda: la caché de disco y la carga de la máquina afectan a todos igual
+            for (int run = 0; run < runs; run++) {
+                for (Mode mode : modes) {
+                    Sample sample = launcher.measure(mode, run, http, token, cardId, timeout);
+                    results.computeIfAbsent(mode, key -> new ArrayList<>()).add(sample);
+                    System.out.printf("%-22s run %d: /api/status %5d ms, /cards/{id}/balance %5d ms%n",
+                            mode.label(), run + 1, sample.statusMillis(), sample.balanceMillis());
+                }
+            }
+
+            System.out.printf("%n%-22s %34s %34s%n", "", "/api/status (ms)", "/cards/{id}/balance (ms)");
+            System.out.printf("%-22s %10s %11s %11s %10s %11s %11s%n", "mode", "min", "median", "max", "min", "median", "max");
+            for (Mode mode : modes) {
+                long[] status = results.get(mode).stream().mapToLong(Sample::statusMillis).sorted().toArray();
+                long[] balance = results.get(mode).stream().mapToLong(Sample::balanceMillis).sorted().toArray();
+                System.out.printf("%-22s %10d %11d %11d %10d %11d %11d%n", mode.label(),
+                        status[0], status[status.length / 2], status[status.length - 1],
+                        balance[0], balance[balance.length / 2], balance[balance.length - 1]);
+            }
+        }
+    }
+
+    private static final class Launcher {
+
+        private final Path fatJar;
+        private final Path extracted;
+        private final Path workDirectory;
+        private final String h2Jar;
+
+        Launcher(Path fatJar, Path extracted, Path workDirectory) throws Exception {
+            this.fatJar = fatJar;
+            this.extracted = extracted;
+            this.workDirectory = workDirectory;
+            this.h2Jar = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                             .toString();
+        }
+
+        void check(Mode mode) {
+            Path required = switch (mode) {
+                case DEFAULT -> fatJar;
+                case FAST_STARTUP, FAST_STARTUP_AOT -> extractedJar();
+                case FAST_STARTUP_AOT_CDS -> extracted.resolve("app.jsa");
+            };
+            if (!Files.exists(required)) {
+                throw new IllegalStateException(required + " no existe: ejecutar antes mvn -Pfast-startup package");
+            }
+        }
+
+        // BD nueva con el esquema creado por ddl-auto=update de un arranque default, un usuario y una
+        // tarjeta suya; devuelve {token, cardId}
+        String[] seed(HttpClient http, Duration timeout) throws Exception {
+            if (Files.exists(workDirectory)) {
+                try (Stream<Path> files = Files.walk(workDirectory)) {
+                    files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+            Files.createDirectories(workDirectory);
+            int port = freePort();
+            Process process = start(Mode.DEFAULT, port, "seed");
+            try {
+                String baseUrl = "http://localhost:" + port;
+                awaitOk(http, process, get(baseUrl + "/actuator/health", null), System.nanoTime() + timeout.toNanos());
+                String token = JSON.readTree(send(http, post(baseUrl + "/auth/register", null,
+                        Map.of("username", "arranque", "password", "arranque-password")))).get("token").asText();
+                String cardId = send(http, post(baseUrl + "/cards/generate", token,
+                        Map.of("productId", "654321", "holderName", "ARRANQUE"))).trim();
+                return new String[] {token, cardId};
+            } finally {
+                stop(process);
+            }
+        }
+
+        Sample measure(Mode mode, int run, HttpClient http, String token, String cardId, Duration timeout)
+                throws Exception {
+            int port = freePort();
+            String baseUrl = "http://localhost:" + port;
+            long started = System.nanoTime();
+            Process process = start(mode, port, mode.label() + "-" + (run + 1));
+            try {
+                long deadline = started + timeout.toNanos();
+                long status = awaitOk(http, process, get(baseUrl + "/api/status", token), deadline) - started;
+                long balance = awaitOk(http, process, get(baseUrl + "/cards/" + cardId + "/balance", token), deadline)
+                        - started;
+                return new Sample(TimeUnit.NANOSECONDS.toMillis(status), TimeUnit.NANOSECONDS.toMillis(balance));
+            } finally {
+                stop(process);
+            }
+        }
+
+        private Process start(Mode mode, int port, String logName) throws IOException {
+            List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+            if (mode == Mode.DEFAULT) {
+                // Mismo arranque que java -jar; PropertiesLauncher solo añade el driver de H2 al classpath
+                command.addAll(List.of("-Dloader.path=" + h2Jar, "-cp", fatJar.toString(),
+                        "org.springframework.boot.loader.launch.PropertiesLauncher"));
+            } else {
+                if (mode == Mode.FAST_STARTUP_AOT_CDS) {
+                    command.add("-XX:SharedArchiveFile=" + extracted.resolve("app.jsa"));
+                }
+                if (mode != Mode.FAST_STARTUP) {
+                    command.add("-Dspring.aot.enabled=true");
+                }
+                // El classpath del entrenamiento (el jar extraído) va primero: AppCDS admite entradas añadidas al final
+                command.addAll(List.of("-cp", extractedJar() + File.pathSeparator + h2Jar,
+                        "com.bankinc.prueba.PruebaApplication", "--spring.profiles.active=fast-startup"));
+            }
+            command.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:file:" + workDirectory.toAbsolutePath().resolve("db")
+                            + ";MODE=MySQL;AUTO_SERVER=TRUE",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--jwt.secret=" + SECRET,
+                    "--server.port=" + port,
+                    "--logging.level.root=WARN"));
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(workDirectory.resolve(logName + ".log").toFile())
+                    .start();
+        }
+
+        private Path extractedJar() {
+            return extracted.resolve(fatJar.getFileName());
+        }
+
+        private static void stop(Process process) throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Reintenta la petición (conexión rechazada o respuesta no 200) hasta el primer 200; devuelve su nanoTime
+    private static long awaitOk(HttpClient http, Process process, HttpRequest request, long deadline)
+            throws InterruptedException {
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("La aplicación terminó al arrancar (código " + process.exitValue()
+                        + "), ver los logs de target/startup-benchmark");
+            }
+            try {
+                if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime();
+                }
+            } catch (IOException ex) {
+                // Aún sin puerto abierto
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Sin respuesta 200 de " + request.uri() + " dentro del timeout");
+    }
+
+    private static String send(HttpClient http, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " respondió " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return request(url, token).GET().build();
+    }
+
+    private static HttpRequest post(String url, String token, Object body) throws IOException {
+        return request(url, token).header("Content-Type", "application/json")
+                                  .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)))
+                                  .build();
+    }
+
+    private static HttpRequest.Builder request(String url, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
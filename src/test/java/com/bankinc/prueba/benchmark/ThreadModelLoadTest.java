@@ -0,0 +1,220 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import org.h2.api.Trigger;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Throughput y latencia de GET /transaction/{id} con hilos de plataforma frente a hilos virtuales
+// (spring.threads.virtual.enabled) para N clientes concurrentes. Cada modo arranca la aplicación en
+// un JVM hijo (cada proceso necesita un descriptor por conexión) sobre H2, con un trigger que añade
+// latencia fija a cada SELECT para simular el viaje a MySQL. Cada cliente es un hilo virtual que
+// encadena peticiones sin pausa.
+//   mvn -Pbenchmark test -Dbenchmark.main=com.bankinc.prueba.benchmark.ThreadModelLoadTest \
+//       -Djmh.args="clients=1000,5000,10000 duration=20 latency=100 pool=500" -Djmh.output=
+public final class ThreadModelLoadTest {
+
+    private ThreadModelLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "clients", "1000,5000,10000", "duration", "20", "latency", "100", "pool", "500"));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        if (options.containsKey("serve")) {
+            serve(Boolean.parseBoolean(options.get("serve")), Long.parseLong(options.get("latency")),
+                    Integer.parseInt(options.get("pool")));
+            return;
+        }
+
+        int[] clients = Arrays.stream(options.get("clients").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+        List<String> rows = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            Process server = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), ThreadModelLoadTest.class.getName(),
+                    "serve=" + virtual, "latency=" + options.get("latency"), "pool=" + options.get("pool"))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            try {
+                String[] ready = awaitReady(server);
+                URI uri = URI.create("http://localhost:" + ready[0] + "/transaction/" + ready[2]);
+                for (int n : clients) {
+                    // Calentamiento con la misma concurrencia (JIT, pool de conexiones) sin medir
+                    load(uri, ready[1], n, duration.dividedBy(4));
+                    Result result = load(uri, ready[1], n, duration);
+                    rows.add(String.format("%-8s %8d %12.0f %10.1f %10.1f %10.1f %8d",
+                            virtual ? "virtual" : "platform", n, result.throughput(), result.percentile(0.50),
+                            result.percentile(0.99), result.percentile(1.0), result.errors()));
+                }
+            } finally {
+                server.getOutputStream().close();
+                server.waitFor();
+            }
+        }
+
+        System.out.printf("%-8s %8s %12s %10s %10s %10s %8s%n", "threads", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        rows.forEach(System.out::println);
+    }
+
+    private static String[] awaitReady(Process server) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(server.getInputStream()));
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.startsWith("READY ")) {
+                // El resto de la salida del servidor se sigue leyendo para que no se bloquee al escribir
+                Thread.ofVirtual().start(() -> out.lines().forEach(System.err::println));
+                return line.substring(6).split(" ");
+            }
+        }
+        throw new IllegalStateException("El servidor de carga terminó sin arrancar.");
+    }
+
+    private static Result load(URI uri, String token, int clients, Duration duration) throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", "Bearer " + token)
+                                         .timeout(Duration.ofSeconds(60)).build();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(pool.submit(() -> {
+                    long[] latencies = new long[64];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.increment();
+                                continue;
+                            }
+                        } catch (IOException ex) {
+                            errors.increment();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            List<long[]> perClient = new ArrayList<>(clients);
+            for (Future<long[]> future : futures) {
+                perClient.add(future.get());
+            }
+            long elapsed = System.nanoTime() - start;
+            long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(all, elapsed, errors.sum());
+        } finally {
+            http.close();
+        }
+    }
+
+    private record Result(long[] sortedLatencies, long elapsedNanos, long errors) {
+
+        double throughput() {
+            return sortedLatencies.length * 1e9 / elapsedNanos;
+        }
+
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+
+    // JVM hijo: aplicación completa con una transacción de prueba; termina al cerrarse su stdin
+    private static void serve(boolean virtual, long latencyMillis, int poolSize) throws IOException {
+        PrintStream out = System.out;
+        ConfigurableApplicationContext context = BenchmarkContext.startH2("load",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000",
+                "--server.tomcat.max-keep-alive-requests=-1",
+                "--spring.main.banner-mode=off");
+        try {
+            Card card = new Card();
+            card.setCardId("1234560000000009");
+            card.setProductId("123456");
+            card.setExpirationDate(LocalDate.now().plusYears(3));
+            card = context.getBean(CardRepository.class).save(card);
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(UUID.randomUUID());
+            transaction.setCard(card);
+            transaction.setPrice(Money.of(new BigDecimal("12.34"), Money.MAX_SCALE));
+            transaction.setTransactionDate(LocalDateTime.now());
+            context.getBean(TransactionRepository.class).save(transaction);
+
+            DbLatency.millis = latencyMillis;
+            context.getBean(JdbcTemplate.class)
+                   .execute("create trigger db_latency before select on transactions call \"" + DbLatency.class.getName() + "\"");
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String token = context.getBean(JwtTokenProvider.class).createToken("carga");
+            out.println("READY " + port + " " + token + " " + transaction.getTransactionId());
+            out.flush();
+            while (System.in.read() >= 0) {
+                // Espera a que el proceso padre cierre stdin
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    // Latencia simulada del servidor de BD: bloquea el hilo que ejecuta la consulta
+    public static class DbLatency implements Trigger {
+
+        static volatile long millis;
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// Exporta millones de filas por HTTP (GET /transactions/export?format=ndjson) y mide cuánto crece la
+// memoria retenida durante el volcado: materializar las filas como entidades retendría cientos de MB,
+// el volcado en streaming casi nada. H2 en fichero (las filas no viven en el heap) y LAZY_QUERY_EXECUTION
+// para que el cursor no materialice el resultado en la propia BD. Falla si el crecimiento supera max-mb.
+//   mvn -Pbenchmark test -Dbenchmark.main=com.bankinc.prueba.benchmark.TransactionExportLoadTest \
+//       -Djmh.args="rows=2000000 max-mb=64" -Djmh.output=
+public final class TransactionExportLoadTest {
+
+    private static final int CHUNK = 250_000;
+
+    private TransactionExportLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of("rows", "2000000", "max-mb", "64"));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int rows = Integer.parseInt(options.get("rows"));
+        long maxGrowth = Long.parseLong(options.get("max-mb")) * 1024 * 1024;
+
+        Path dir = Files.createTempDirectory("export-load");
+        ConfigurableApplicationContext context = BenchmarkContext.start(
+                "jdbc:h2:file:" + dir.resolve("db") + ";LAZY_QUERY_EXECUTION=1;MODE=MySQL",
+                "--spring.main.banner-mode=off");
+        try (HttpClient http = HttpClient.newHttpClient()) {
+            load(context, rows);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String token = context.getBean(JwtTokenProvider.class).createToken("finanzas", "ROLE_USER,ROLE_FINANCE");
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions/export?format=ndjson"))
+                                             .header("Authorization", "Bearer " + token)
+                                             .build();
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            long baseline = retainedHeap(memory);
+            long peak = baseline;
+            long lines = 0;
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("La exportación respondió " + response.statusCode());
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                while (reader.readLine() != null) {
+                    if (++lines % (rows / 5 + 1) == 0) {
+                        peak = Math.max(peak, retainedHeap(memory));
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%,d filas en %.1f s (%,.0f filas/s); memoria retenida: base %d MB, pico %d MB, crecimiento %d MB%n",
+                    lines, seconds, lines / seconds, baseline >> 20, peak >> 20, (peak - baseline) >> 20);
+            if (lines != rows) {
+                throw new IllegalStateException("Se exportaron " + lines + " filas de " + rows);
+            }
+            if (peak - baseline >= maxGrowth) {
+                throw new IllegalStateException("La memoria retenida creció " + ((peak - baseline) >> 20)
+                        + " MB durante la exportación (máximo " + options.get("max-mb") + " MB)");
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    // Fila x: una por segundo desde 2026-01-01; UUIDs crecientes para que el índice único se rellene en orden
+    private static void load(ConfigurableApplicationContext context, int rows) {
+        Card card = new Card();
+        card.setCardId("1234560000000009");
+        card.setProductId("123456");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        Long cardPk = context.getBean(CardRepository.class).save(card).getId();
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        for (int from = 1; from <= rows; from += CHUNK) {
+            jdbc.update("insert into transactions (id, transaction_id, card_id, price, transaction_date, status)"
+                    + " select x, cast('00000000-0000-7000-8000-' || lpad(cast(x as varchar), 12, '0') as uuid), ?, 1.25, dateadd(second, x - 1, timestamp '2026-01-01 00:00:00'), 'COMPLETED'"
+                    + " from system_range(?, ?)", cardPk, from, Math.min(from + CHUNK - 1, rows));
+        }
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
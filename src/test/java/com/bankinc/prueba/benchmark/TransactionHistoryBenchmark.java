@@ -0,0 +1,110 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.dto.TransactionHistoryPage;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.service.TransactionHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Coste de una página del historial de una tarjeta con muchas transacciones según su profundidad:
+// keyset (GET /cards/{cardId}/transactions) frente a LIMIT/OFFSET sobre el mismo índice.
+//   mvn -Pbenchmark test -Djmh.args="TransactionHistoryBenchmark -p rows=1000000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionHistoryBenchmark {
+
+    private static final int PAGE = 20;
+    private static final int BATCH = 1_000;
+    private static final String CARD_ID = "1234560000000009";
+    private static final LocalDateTime BASE = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final String OFFSET_QUERY = "select id, transaction_id, price, transaction_date, status from transactions"
+            + " where card_id = ? order by card_id desc, transaction_date desc, id desc limit ? offset ?";
+
+    @Param({"500000"})
+    public int rows;
+
+    @Param({"0", "250000", "499000"})
+    public int depth;
+
+    private ConfigurableApplicationContext context;
+    private TransactionHistoryService history;
+    private JdbcTemplate jdbc;
+    private Long cardPk;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Sin reutilizar el último resultado de una consulta idéntica (H2 lo hace si la tabla no cambió)
+        context = BenchmarkContext.startH2("history;OPTIMIZE_REUSE_RESULTS=0");
+        history = context.getBean(TransactionHistoryService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        Card card = new Card();
+        card.setCardId(CARD_ID);
+        card.setProductId("123456");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        cardPk = context.getBean(CardRepository.class).save(card).getId();
+
+        // Fila i: id = i + 1, fecha = BASE + i segundos (la más reciente es la última)
+        for (int from = 0; from < rows; from += BATCH) {
+            List<Object[]> batch = new ArrayList<>(BATCH);
+            for (int i = from; i < Math.min(from + BATCH, rows); i++) {
+                batch.add(new Object[]{i + 1L, UUID.randomUUID(), cardPk, BigDecimal.ONE, Timestamp.valueOf(BASE.plusSeconds(i))});
+            }
+            jdbc.batchUpdate("insert into transactions (id, transaction_id, card_id, price, transaction_date, status)"
+                    + " values (?, ?, ?, ?, ?, 'COMPLETED')", batch);
+        }
+
+        // Cursor tras 'depth' filas en orden descendente: la última entregada es la fila rows - depth
+        if (depth > 0) {
+            int last = rows - depth;
+            String raw = BASE.plusSeconds(last) + "|" + (last + 1L);
+            cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionHistoryPage keyset() {
+        return history.getCardTransactions(CARD_ID, null, null, null, cursor, PAGE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offset() {
+        return jdbc.queryForList(OFFSET_QUERY, cardPk, PAGE, depth);
+    }
+}
@@ -0,0 +1,94 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.id.TransactionIdGenerator;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.repository.CardRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Inserciones por segundo en una tabla transactions ya grande, con transactionId aleatorio
+// (UUIDv4) frente a ordenado en el tiempo (UUIDv7). Mide el coste del índice único.
+//   mvn -Pbenchmark test -Djmh.args="TransactionIdInsertBenchmark -p preloadRows=1000000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdInsertBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final String INSERT = "insert into transactions (id, transaction_id, card_id, price, transaction_date, status)"
+            + " values (?, ?, ?, ?, ?, 'COMPLETED')";
+
+    @Param({"uuidv7", "random"})
+    public String generator;
+
+    @Param({"200000"})
+    public int preloadRows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionIdGenerator ids;
+    private JdbcTemplate jdbc;
+    private Long cardPk;
+    private final AtomicLong nextPk = new AtomicLong(1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startH2("tx_id_" + generator, "--app.transaction-id.generator=" + generator);
+        ids = context.getBean(TransactionIdGenerator.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        Card card = new Card();
+        card.setCardId("PROD010000000001");
+        card.setProductId("PROD01");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        cardPk = context.getBean(CardRepository.class).save(card).getId();
+
+        for (int loaded = 0; loaded < preloadRows; loaded += BATCH) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] insert() {
+        return insertBatch();
+    }
+
+    private int[] insertBatch() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            rows.add(new Object[]{nextPk.getAndIncrement(), ids.next(), cardPk, BigDecimal.ONE, now});
+        }
+        return jdbc.batchUpdate(INSERT, rows);
+    }
+}
@@ -0,0 +1,84 @@
+package com.bankinc.prueba.benchmark;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// TransactionService.purchase con repositorios simulados (mock) y sobre H2 (h2), repartido entre
+// 1.000 tarjetas con saldo de sobra. Parte de la suite de regresión (ver README):
+//   mvn -Pbenchmark test -Djmh.args="TransactionServiceBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    private static final int CARDS = 1_000;
+    private static final BigDecimal PRICE = new BigDecimal("1.00");
+
+    @Param({"mock", "h2"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private String[] cardIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cardIds = new String[CARDS];
+        if ("mock".equals(backend)) {
+            transactionService = new MockedServices().transactionService;
+            for (int i = 0; i < CARDS; i++) {
+                cardIds[i] = "123456" + String.format("%010d", i);
+            }
+            return;
+        }
+        context = BenchmarkContext.startH2("transaction_service");
+        transactionService = context.getBean(TransactionService.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        for (int i = 0; i < CARDS; i++) {
+            Card card = new Card();
+            card.setCardId("123456" + String.format("%010d", i));
+            card.setProductId("123456");
+            card.setHolderName("BENCHMARK");
+            card.setExpirationDate(LocalDate.now().plusYears(3));
+            card.setBalance(Money.of(new BigDecimal("100000000.00"), Money.MAX_SCALE));
+            card.setActive(true);
+            cardIds[i] = cardRepository.save(card).getCardId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public String purchase() {
+        return transactionService.purchase(cardIds[ThreadLocalRandom.current().nextInt(CARDS)], PRICE);
+    }
+}
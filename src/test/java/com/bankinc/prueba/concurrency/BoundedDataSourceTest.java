@@ -0,0 +1,101 @@
+package com.bankinc.prueba.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BoundedDataSourceTest {
+
+    @Test
+    void connectionsBeyondLimit_waitThenTimeOut() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        BoundedDataSource dataSource = new BoundedDataSource(target, 2, 50);
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        // Cerrar devuelve el permiso una sola vez aunque se cierre dos veces
+        first.close();
+        first.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+        dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+    }
+
+    @Test
+    void failedConnection_releasesPermit() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("caída"));
+        BoundedDataSource dataSource = new BoundedDataSource(target, 1, 50);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void closeAndCalls_reachTargetConnection() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        BoundedDataSource dataSource = new BoundedDataSource(target, 1, 50);
+
+        Connection bounded = dataSource.getConnection();
+        assertThat(bounded.getAutoCommit()).isTrue();
+        assertThat(bounded).isEqualTo(bounded).isNotEqualTo(connection);
+        bounded.close();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void manyVirtualThreads_neverExceedLimit() throws Exception {
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> open.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+        BoundedDataSource dataSource = new BoundedDataSource(target, 4, 10_000);
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                futures.add(pool.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        Thread.sleep(1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(maxOpen.get()).isEqualTo(4);
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,62 @@
+package com.bankinc.prueba.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CardLockManagerTest {
+
+    @Test
+    void stripeCount_roundsUpToPowerOfTwo() {
+        assertThat(new CardLockManager(1).getStripeCount()).isEqualTo(1);
+        assertThat(new CardLockManager(1000).getStripeCount()).isEqualTo(1024);
+        assertThat(new CardLockManager(1024).getStripeCount()).isEqualTo(1024);
+        assertThrows(IllegalArgumentException.class, () -> new CardLockManager(0));
+    }
+
+    @Test
+    void sameCard_alwaysMapsToSameLock() {
+        CardLockManager locks = new CardLockManager(64);
+        assertThat(locks.lockFor("PROD010000000001")).isSameAs(locks.lockFor(new String("PROD010000000001")));
+        assertThat(locks.lockFor(null)).isNotNull();
+    }
+
+    @Test
+    void concurrentMutations_onSameCard_areNotLost() throws Exception {
+        CardLockManager locks = new CardLockManager(16);
+        long[] balances = new long[4];
+        String[] cardIds = {"PROD010000000001", "PROD010000000002", "PROD010000000003", "PROD010000000004"};
+        int threads = 8;
+        int perThread = 10_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        int card = i % cardIds.length;
+                        locks.runWithLock(cardIds[card], () -> balances[card] = balances[card] + 1);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long expectedPerCard = (long) threads * perThread / cardIds.length;
+        for (long balance : balances) {
+            assertThat(balance).isEqualTo(expectedPerCard);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bankinc.prueba.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConflictRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void conflict_isRetriedUntilSuccess() {
+        ConflictRetry retry = new ConflictRetry(5, 1, 4, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.call("purchase", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Card", 1L);
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("card.conflicts").tag("operation", "purchase").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("card.conflict.retries").tag("operation", "purchase").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void persistentConflict_givesUpAfterMaxAttempts() {
+        ConflictRetry retry = new ConflictRetry(3, 0, 0, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> retry.run("recharge", () -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("lock wait timeout");
+        }));
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("card.conflicts").tag("operation", "recharge").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("card.conflict.retries").tag("operation", "recharge").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void otherFailures_areNotRetried() {
+        ConflictRetry retry = new ConflictRetry(5, 0, 0, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(DataIntegrityViolationException.class, () -> retry.run("annul", () -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicado");
+        }));
+        assertThrows(IllegalArgumentException.class, () -> retry.run("annul", () -> {
+            throw new IllegalArgumentException("negocio");
+        }));
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.find("card.conflicts").counter()).isNull();
+        assertThrows(IllegalArgumentException.class, () -> new ConflictRetry(0, 0, 0, meterRegistry));
+    }
+}
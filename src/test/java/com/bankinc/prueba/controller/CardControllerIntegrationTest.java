@@ -1,5 +1,6 @@
 package com.bankinc.prueba.controller;
 
+import com.bankinc.prueba.security.JwtTokenProvider;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -21,24 +22,31 @@ public class CardControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private String bearer() {
+        return "Bearer " + jwtTokenProvider.createToken("tester");
+    }
+
 
     @Test
     void fullCardFlow() throws Exception {
         // 1) Generar tarjeta
-        MvcResult gen = mockMvc.perform(post("/cards/generate").contentType("application/json").content("{\"productId\":\"PROD01\",\"holderName\":\"Prueba Titular\"}"))
+        MvcResult gen = mockMvc.perform(post("/cards/generate").header("Authorization", bearer()).contentType("application/json").content("{\"productId\":\"123456\",\"holderName\":\"Prueba Titular\"}"))
                 .andExpect(status().isOk())
                 .andReturn();
         String cardId = gen.getResponse().getContentAsString().trim();
         assertThat(cardId).isNotBlank();
 
         // 2) Enrolar
-        mockMvc.perform(post("/cards/{cardId}/enroll", cardId)).andExpect(status().isOk());
+        mockMvc.perform(post("/cards/{cardId}/enroll", cardId).header("Authorization", bearer())).andExpect(status().isOk());
 
         // 3) Recargar
-        mockMvc.perform(post("/cards/{cardId}/recharge", cardId).param("amount", "100.50")).andExpect(status().isOk());
+        mockMvc.perform(post("/cards/{cardId}/recharge", cardId).header("Authorization", bearer()).param("amount", "100.50")).andExpect(status().isOk());
 
         // 4) Consultar saldo
-        MvcResult bal = mockMvc.perform(get("/cards/{cardId}/balance", cardId))
+        MvcResult bal = mockMvc.perform(get("/cards/{cardId}/balance", cardId).header("Authorization", bearer()))
                 .andExpect(status().isOk())
                 .andReturn();
 
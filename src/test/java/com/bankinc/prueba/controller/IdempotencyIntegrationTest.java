@@ -0,0 +1,135 @@
+package com.bankinc.prueba.controller;
+
+import com.bankinc.prueba.model.IdempotencyRecord;
+import com.bankinc.prueba.repository.IdempotencyRecordRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import com.bankinc.prueba.service.CardService;
+import com.bankinc.prueba.service.IdempotencyService;
+import com.bankinc.prueba.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Reintentos de compra y recarga con la misma Idempotency-Key: se cobran/abonan una sola vez
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1;MODE=MySQL")
+@AutoConfigureMockMvc
+public class IdempotencyIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecords;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardService cardService;
+
+    private String bearer() {
+        return "Bearer " + jwtTokenProvider.createToken("tester");
+    }
+
+    private String enrolledCard() throws Exception {
+        String cardId = mockMvc.perform(post("/cards/generate").header("Authorization", bearer())
+                                                               .contentType(MediaType.APPLICATION_JSON)
+                                                               .content("{\"productId\":\"123456\",\"holderName\":\"Prueba Titular\"}"))
+                               .andExpect(status().isOk())
+                               .andReturn().getResponse().getContentAsString().trim();
+        mockMvc.perform(post("/cards/{cardId}/enroll", cardId).header("Authorization", bearer())).andExpect(status().isOk());
+        return cardId;
+    }
+
+    @Test
+    void retriedRechargeAndPurchase_areAppliedOnce() throws Exception {
+        String cardId = enrolledCard();
+        long transactionsBefore = transactionRepository.count();
+        long recordsBefore = idempotencyRecords.count();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/cards/{cardId}/recharge", cardId).header("Authorization", bearer())
+                                                                    .header("Idempotency-Key", "recarga-1")
+                                                                    .param("amount", "50.00"))
+                   .andExpect(status().isOk());
+        }
+
+        String purchase = objectMapper.writeValueAsString(Map.of("cardId", cardId, "price", 12.34));
+        MvcResult first = mockMvc.perform(post("/transaction/purchase").header("Authorization", bearer())
+                                                                       .header("Idempotency-Key", "compra-1")
+                                                                       .contentType(MediaType.APPLICATION_JSON)
+                                                                       .content(purchase))
+                                 .andExpect(status().isOk())
+                                 .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                                 .andReturn();
+        MvcResult retry = mockMvc.perform(post("/transaction/purchase").header("Authorization", bearer())
+                                                                       .header("Idempotency-Key", "compra-1")
+                                                                       .contentType(MediaType.APPLICATION_JSON)
+                                                                       .content(purchase))
+                                 .andExpect(status().isOk())
+                                 .andExpect(header().string("Idempotent-Replayed", "true"))
+                                 .andReturn();
+        String transactionId = objectMapper.readValue(first.getResponse().getContentAsString(), Map.class).get("transactionId").toString();
+        assertThat(objectMapper.readValue(retry.getResponse().getContentAsString(), Map.class).get("transactionId"))
+                .isEqualTo(transactionId);
+
+        // Misma clave con otro importe: se rechaza sin cobrar
+        mockMvc.perform(post("/transaction/purchase").header("Authorization", bearer())
+                                                     .header("Idempotency-Key", "compra-1")
+                                                     .contentType(MediaType.APPLICATION_JSON)
+                                                     .content(objectMapper.writeValueAsString(Map.of("cardId", cardId, "price", 99))))
+               .andExpect(status().isUnprocessableEntity());
+
+        String balance = mockMvc.perform(get("/cards/{cardId}/balance", cardId).header("Authorization", bearer()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+        assertThat(new BigDecimal(balance)).isEqualByComparingTo("37.66");
+        assertThat(transactionRepository.count()).isEqualTo(transactionsBefore + 1);
+        assertThat(idempotencyRecords.count()).isEqualTo(recordsBefore + 2);
+        assertThat(idempotencyRecords.findAll())
+                .allMatch(record -> record.getStatus() == IdempotencyRecord.Status.COMPLETED);
+    }
+
+    // Si no se puede registrar la clave (p. ej. otro nodo la registró a la vez) el cargo y el abono
+    // se deshacen con ella: nunca queda un movimiento sin su clave
+    @Test
+    void failedKeyRecord_rollsBackTheChargeAndTheCredit() throws Exception {
+        String cardId = enrolledCard();
+        cardService.rechargeBalance(cardId, new BigDecimal("50.00"));
+        long transactionsBefore = transactionRepository.count();
+        IdempotencyService.Recorder failing = value -> {
+            throw new IllegalStateException("Clave ya registrada.");
+        };
+
+        assertThrows(IllegalStateException.class, () -> cardService.rechargeBalance(cardId, new BigDecimal("20.00"), failing));
+        assertThrows(IllegalStateException.class, () -> transactionService.purchase(cardId, new BigDecimal("12.34"), failing));
+
+        assertThat(cardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("50.00");
+        assertThat(transactionRepository.count()).isEqualTo(transactionsBefore);
+    }
+}
@@ -0,0 +1,106 @@
+package com.bankinc.prueba.controller;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tras una compra aceptada y otra rechazada, /actuator/prometheus (con ROLE_MONITORING) expone los timers
+// con buckets, el contador de rechazos por motivo, el filtro JWT, el pool de Hikari y las sentencias JPA.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF",
+        "management.metrics.distribution.percentiles-histogram.transaction.operation=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+public class PrometheusEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void prometheusScrape_exposesHotPathMetrics() throws Exception {
+        // Las dos compras y el propio scrape pasan por el filtro (el otro test puede haber corrido antes)
+        long authenticated = (long) meterRegistry.timer("auth.jwt.filter", "result", "authenticated").count();
+        User owner = new User();
+        owner.setUsername("metricas");
+        owner.setPassword("x");
+        userRepository.save(owner);
+        Card card = new Card();
+        card.setCardId("1234560000000066");
+        card.setProductId("123456");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        card.setBalance(Money.of(new BigDecimal("5.00"), Money.MAX_SCALE));
+        card.setActive(true);
+        card.setOwner(owner);
+        cardRepository.save(card);
+
+        String auth = "Bearer " + jwtTokenProvider.createToken("metricas");
+        mockMvc.perform(post("/transaction/purchase").header("Authorization", auth)
+                                                     .contentType(MediaType.APPLICATION_JSON)
+                                                     .content("{\"cardId\":\"1234560000000066\",\"price\":1.00}"))
+               .andExpect(status().isOk());
+        mockMvc.perform(post("/transaction/purchase").header("Authorization", auth)
+                                                     .contentType(MediaType.APPLICATION_JSON)
+                                                     .content("{\"cardId\":\"1234560000000066\",\"price\":10.00}"))
+               .andExpect(status().isBadRequest());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus")
+                                       .header("Authorization", "Bearer " + jwtTokenProvider.createToken("prometheus", "ROLE_MONITORING")))
+                               .andExpect(status().isOk())
+                               .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("transaction_operation_seconds_bucket{")
+                .containsPattern("transaction_operation_seconds_count\\{[^}]*operation=\"purchase\",outcome=\"success\"[^}]*} 1(\\.0)?\\s")
+                .containsPattern("transaction_operation_seconds_count\\{[^}]*operation=\"purchase\",outcome=\"error\"[^}]*} 1(\\.0)?\\s")
+                .containsPattern("transaction_purchase_declined_total\\{[^}]*reason=\"insufficient_balance\"[^}]*} 1(\\.0)?\\s")
+                .containsPattern("auth_jwt_filter_seconds_count\\{[^}]*result=\"authenticated\"[^}]*} " + (authenticated + 3) + "(\\.0)?\\s")
+                .contains("card_operation_seconds_count{")
+                .contains("hikaricp_connections_max")
+                .contains("hibernate_statements_total");
+    }
+
+    // Las métricas no son públicas ni visibles para cualquier usuario registrado; health sigue abierto
+    @Test
+    void metricsEndpoints_requireMonitoringRole() throws Exception {
+        String userToken = "Bearer " + jwtTokenProvider.createToken("curioso");
+
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", userToken)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", userToken)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,129 @@
+package com.bankinc.prueba.controller;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Las lecturas de /cards/me y /transaction/{id} son proyecciones: una sentencia SQL por petición y
+// ninguna entidad cargada. BD propia para no compartir tablas con el resto de tests de integración.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:readmodel;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF"
+})
+@AutoConfigureMockMvc
+public class ReadModelQueryCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("x");
+        return userRepository.save(user);
+    }
+
+    private Card card(String cardId, User owner) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId("123456");
+        card.setHolderName("Titular " + cardId.substring(12));
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        card.setBalance(Money.of(new BigDecimal("40.00"), Money.MAX_SCALE));
+        card.setActive(true);
+        card.setOwner(owner);
+        return cardRepository.save(card);
+    }
+
+    @Test
+    void myCards_isOneQuery_withoutLoadingEntities() throws Exception {
+        User owner = user("lector");
+        card("1234560000000017", owner);
+        card("1234560000000025", owner);
+        card("1234560000000033", owner);
+        card("1234560000000041", user("otro"));
+
+        statistics.clear();
+        mockMvc.perform(get("/cards/me").header("Authorization", "Bearer " + jwtTokenProvider.createToken("lector")))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(3)))
+               .andExpect(jsonPath("$[0].cardId").value("1234560000000017"))
+               .andExpect(jsonPath("$[0].balance").value(40.00))
+               .andExpect(jsonPath("$[0].active").value(true));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void getTransaction_isOneQuery_withoutLoadingEntities() throws Exception {
+        Card card = card("1234560000000058", user("comprador"));
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(UUID.randomUUID());
+        transaction.setCard(card);
+        transaction.setPrice(Money.of(new BigDecimal("12.34"), Money.MAX_SCALE));
+        transaction.setTransactionDate(LocalDateTime.of(2026, 3, 1, 10, 30));
+        transactionRepository.save(transaction);
+
+        statistics.clear();
+        mockMvc.perform(get("/transaction/{transactionId}", transaction.getTransactionId())
+                       .header("Authorization", "Bearer " + jwtTokenProvider.createToken("comprador")))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.transactionId").value(transaction.getTransactionId().toString()))
+               .andExpect(jsonPath("$.cardId").value("1234560000000058"))
+               .andExpect(jsonPath("$.price").value(12.34))
+               .andExpect(jsonPath("$.status").value("COMPLETED"))
+               .andExpect(jsonPath("$.card").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -1,5 +1,6 @@
 package com.bankinc.prueba.controller;
 
+import com.bankinc.prueba.security.JwtTokenProvider;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,25 +24,32 @@ public class TransactionControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private String bearer() {
+        return "Bearer " + jwtTokenProvider.createToken("tester");
+    }
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Test
     void fullTransactionFlow() throws Exception {
         // Generar tarjeta
-        MvcResult gen = mockMvc.perform(post("/cards/generate").contentType("application/json").content("{\"productId\":\"PROD01\",\"holderName\":\"Prueba Titular\"}"))
+        MvcResult gen = mockMvc.perform(post("/cards/generate").header("Authorization", bearer()).contentType("application/json").content("{\"productId\":\"123456\",\"holderName\":\"Prueba Titular\"}"))
                 .andExpect(status().isOk())
                 .andReturn();
         String cardId = gen.getResponse().getContentAsString().trim();
 
         // Enrolar y recargar
-        mockMvc.perform(post("/cards/{cardId}/enroll", cardId)).andExpect(status().isOk());
-        mockMvc.perform(post("/cards/{cardId}/recharge", cardId).param("amount", "50.00")).andExpect(status().isOk());
+        mockMvc.perform(post("/cards/{cardId}/enroll", cardId).header("Authorization", bearer())).andExpect(status().isOk());
+        mockMvc.perform(post("/cards/{cardId}/recharge", cardId).header("Authorization", bearer()).param("amount", "50.00")).andExpect(status().isOk());
 
         // Realizar compra
         Map<String, Object> body = Map.of("cardId", cardId, "price", 12.34);
         String json = objectMapper.writeValueAsString(body);
-        MvcResult purchase = mockMvc.perform(post("/transaction/purchase")
+        MvcResult purchase = mockMvc.perform(post("/transaction/purchase").header("Authorization", bearer())
                         .contentType(MediaType.APPLICATION_JSON).content(json))
                 .andExpect(status().isOk())
                 .andReturn();
@@ -52,7 +60,7 @@ public class TransactionControllerIntegrationTest {
         String transactionId = map.get("transactionId").toString();
 
         // Consultar transacción
-        MvcResult got = mockMvc.perform(get("/transaction/{transactionId}", transactionId))
+        MvcResult got = mockMvc.perform(get("/transaction/{transactionId}", transactionId).header("Authorization", bearer()))
                 .andExpect(status().isOk())
                 .andReturn();
         String gotResp = got.getResponse().getContentAsString();
@@ -60,7 +68,7 @@ public class TransactionControllerIntegrationTest {
 
         // Anular transacción
         String annulJson = objectMapper.writeValueAsString(Map.of("transactionId", transactionId));
-        mockMvc.perform(post("/transaction/anulation").contentType(MediaType.APPLICATION_JSON).content(annulJson))
+        mockMvc.perform(post("/transaction/anulation").header("Authorization", bearer()).contentType(MediaType.APPLICATION_JSON).content(annulJson))
                 .andExpect(status().isOk());
     }
 }
@@ -0,0 +1,144 @@
+package com.bankinc.prueba.controller;
+
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Formatos, filtro por fechas, gzip y rol FINANCE de GET /transactions/export con pocas filas. La
+// memoria plana con millones de filas se mide aparte (benchmark/TransactionExportLoadTest).
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:export;DB_CLOSE_DELAY=-1;MODE=MySQL")
+public class TransactionExportIntegrationTest {
+
+    private static final int ROWS = 1_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void loadTransactions() {
+        if (jdbc.queryForObject("select count(*) from transactions", Long.class) == ROWS) {
+            return;
+        }
+        Card card = new Card();
+        card.setCardId("1234560000000009");
+        card.setProductId("123456");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        Long cardPk = cardRepository.save(card).getId();
+
+        // Fila x: una por segundo desde 2026-01-01
+        jdbc.update("insert into transactions (id, transaction_id, card_id, price, transaction_date, status)"
+                + " select x, cast('00000000-0000-7000-8000-' || lpad(cast(x as varchar), 12, '0') as uuid), ?, 1.25, dateadd(second, x - 1, timestamp '2026-01-01 00:00:00'), 'COMPLETED'"
+                + " from system_range(1, ?)", cardPk, ROWS);
+    }
+
+    private InputStream export(String query) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions/export" + query))
+                                         .header("Authorization", "Bearer " + financeToken())
+                                         .build();
+        HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+
+    private String financeToken() {
+        return jwtTokenProvider.createToken("finanzas", "ROLE_USER,ROLE_FINANCE");
+    }
+
+    @Test
+    void ndjson_exportsEveryRow() throws Exception {
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(export("?format=ndjson"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (lines++ == 0) {
+                    JsonNode first = objectMapper.readTree(line);
+                    assertThat(first.get("cardId").asText()).isEqualTo("1234560000000009");
+                    assertThat(first.get("price").decimalValue()).isEqualByComparingTo("1.25");
+                    assertThat(first.get("transactionDate").asText()).isEqualTo("2026-01-01T00:00");
+                    assertThat(first.get("status").asText()).isEqualTo("COMPLETED");
+                }
+            }
+        }
+
+        assertThat(lines).isEqualTo(ROWS);
+    }
+
+    @Test
+    void gzipCsv_withDateRange_exportsOnlyThatRange() throws Exception {
+        // Primeros diez minutos: 600 filas (una por segundo), ambos extremos inclusivos
+        String query = "?format=csv&gzip=true&from=2026-01-01T00:00:00&to=2026-01-01T00:09:59";
+        long lines = 0;
+        String header;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(export(query)), StandardCharsets.UTF_8))) {
+            header = reader.readLine();
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+
+        assertThat(header).isEqualTo("transactionId,cardId,price,transactionDate,status");
+        assertThat(lines).isEqualTo(600);
+    }
+
+    @Test
+    void unknownFormat_isBadRequest() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions/export?format=xml"))
+                                         .header("Authorization", "Bearer " + financeToken())
+                                         .build();
+        assertThat(http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(400);
+    }
+
+    // Cualquiera puede registrarse: un usuario con solo ROLE_USER no puede volcar las transacciones
+    @Test
+    void plainRegisteredUser_isForbidden() throws Exception {
+        HttpRequest register = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/register"))
+                                          .header("Content-Type", "application/json")
+                                          .POST(HttpRequest.BodyPublishers.ofString(
+                                                  "{\"username\":\"curioso\",\"password\":\"secreto123\"}"))
+                                          .build();
+        HttpResponse<String> registered = http.send(register, HttpResponse.BodyHandlers.ofString());
+        assertThat(registered.statusCode()).isEqualTo(200);
+        String token = objectMapper.readTree(registered.body()).get("token").asText();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions/export?format=csv"))
+                                         .header("Authorization", "Bearer " + token)
+                                         .build();
+        assertThat(http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(403);
+    }
+}
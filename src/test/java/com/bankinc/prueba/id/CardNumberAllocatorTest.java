@@ -0,0 +1,179 @@
+package com.bankinc.prueba.id;
+
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.repository.CardNumberBlockRepository;
+import com.bankinc.prueba.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardNumberAllocatorTest {
+
+    @Mock
+    private CardNumberBlockRepository blocks;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Contador del producto tal como quedaría en BD
+    private final AtomicLong nextSerial = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(blocks.advance(anyString(), anyLong())).thenAnswer(i -> {
+            if (nextSerial.get() == 0) {
+                return 0;
+            }
+            nextSerial.addAndGet(i.getArgument(1));
+            return 1;
+        });
+        lenient().when(blocks.create(anyString(), anyLong())).thenAnswer(i -> {
+            nextSerial.set(i.getArgument(1));
+            return 1;
+        });
+        lenient().when(blocks.findNextSerial(anyString())).thenAnswer(i -> Optional.of(nextSerial.get()));
+    }
+
+    private CardNumberAllocator allocator(int blockSize) {
+        return new CardNumberAllocator(blocks, cardRepository, transactionManager,
+                new ConflictRetry(3, 0, 0, new SimpleMeterRegistry()), blockSize);
+    }
+
+    @Test
+    void luhn_knownNumbers() {
+        assertThat(CardNumberAllocator.isLuhnValid("79927398713")).isTrue();
+        assertThat(CardNumberAllocator.isLuhnValid("4539148803436467")).isTrue();
+        assertThat(CardNumberAllocator.isLuhnValid("4539148803436468")).isFalse();
+        assertThat(CardNumberAllocator.isLuhnValid("PROD010000000001")).isFalse();
+        assertThat(CardNumberAllocator.luhnCheckDigit("7992739871")).isEqualTo(3);
+    }
+
+    @Test
+    void next_handsOutSequentialLuhnValidNumbers_andReservesOneBlockPerBlockSize() {
+        CardNumberAllocator allocator = allocator(10);
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            numbers.add(allocator.next("123456"));
+        }
+
+        assertThat(numbers.get(0)).isEqualTo("1234560000000009");
+        assertThat(numbers).doesNotHaveDuplicates()
+                           .allSatisfy(n -> assertThat(n).hasSize(16).startsWith("123456")
+                                                         .matches(CardNumberAllocator::isLuhnValid));
+        verify(blocks).create("123456", 10);
+        verify(blocks, times(3)).advance("123456", 10); // el primero no encuentra contador
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void next_skipsNumbersAlreadyIssued() {
+        when(cardRepository.findCardIdsBetween("1234560000000000", "1234560000000099"))
+                .thenReturn(List.of("1234560000000017", "1234560000000025"));
+        CardNumberAllocator allocator = allocator(10);
+
+        List<String> serials = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            serials.add(allocator.next("123456").substring(6, 15));
+        }
+
+        assertThat(serials).containsExactly("000000000", "000000003", "000000004", "000000005");
+    }
+
+    @Test
+    void next_retriesReservation_whenAnotherNodeCreatedTheCounter() {
+        when(blocks.create("123456", 10)).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(blocks.advance("123456", 10)).thenReturn(0, 1);
+        when(blocks.findNextSerial("123456")).thenReturn(Optional.of(20L));
+
+        assertThat(allocator(10).next("123456").substring(6, 15)).isEqualTo("000000010");
+    }
+
+    // Deadlock o lock wait timeout sobre la fila del contador (MySQL): la reserva se repite
+    @Test
+    void next_retriesReservation_onLockConflict() {
+        when(blocks.advance("123456", 10)).thenThrow(new CannotAcquireLockException("lock wait timeout")).thenReturn(0);
+
+        assertThat(allocator(10).next("123456").substring(6, 15)).isEqualTo("000000000");
+        verify(blocks).create("123456", 10);
+    }
+
+    @Test
+    void nextCount_handsOutConsecutiveNumbers_acrossBlocks() {
+        List<String> numbers = allocator(10).next("123456", 25);
+
+        assertThat(numbers).hasSize(25).doesNotHaveDuplicates().allMatch(CardNumberAllocator::isLuhnValid);
+        assertThat(numbers.get(24).substring(6, 15)).isEqualTo("000000024");
+        verify(blocks, times(3)).advance("123456", 10);
+        assertThrows(IllegalArgumentException.class, () -> allocator(10).next("PROD01", 2));
+    }
+
+    @Test
+    void next_rejectsNonNumericProduct() {
+        assertThrows(IllegalArgumentException.class, () -> allocator(10).next("PROD01"));
+        verifyNoInteractions(blocks);
+    }
+
+    @Test
+    void next_whenSerialSpaceIsExhausted_throws() {
+        when(blocks.advance("123456", 10)).thenReturn(1);
+        when(blocks.findNextSerial("123456")).thenReturn(Optional.of(CardNumberAllocator.SERIAL_SPACE + 10));
+
+        assertThrows(IllegalStateException.class, () -> allocator(10).next("123456"));
+    }
+
+    @Test
+    void next_concurrentThreads_neverShareANumber() throws Exception {
+        CardNumberAllocator allocator = allocator(50);
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String product = t % 2 == 0 ? "123456" : "654321";
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        assertThat(issued.add(allocator.next(product))).isTrue();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(issued).hasSize(16_000);
+        Set<String> prefixes = new HashSet<>();
+        issued.forEach(n -> prefixes.add(n.substring(0, 15)));
+        assertThat(prefixes).hasSize(16_000);
+    }
+}
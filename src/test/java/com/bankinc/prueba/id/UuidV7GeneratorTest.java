@@ -0,0 +1,44 @@
+package com.bankinc.prueba.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UuidV7GeneratorTest {
+
+    private final UuidV7Generator generator = new UuidV7Generator();
+
+    @Test
+    void next_hasVersion7_andRfcVariant_andCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = generator.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(UuidV7Generator.timestampOf(id)).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void next_isStrictlyIncreasing_evenWithinSameMillisecond() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            ids.add(generator.next());
+        }
+        // Orden de bytes sin signo (como BINARY(16)) == orden de la forma texto
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i).toString()).isGreaterThan(ids.get(i - 1).toString());
+        }
+    }
+
+    @Test
+    void nextTick_neverGoesBackwards_whenClockDoes() {
+        long first = generator.nextTick(1_000);
+        long second = generator.nextTick(999);
+
+        assertThat(second).isGreaterThan(first);
+    }
+}
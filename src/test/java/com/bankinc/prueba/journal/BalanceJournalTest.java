@@ -0,0 +1,132 @@
+package com.bankinc.prueba.journal;
+
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.BalanceJournalRepository;
+import com.bankinc.prueba.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BalanceJournalTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private BalanceJournalRepository entries;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BalanceJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        journal = new BalanceJournal(cardRepository, entries, "journal", 100, 60, meterRegistry);
+    }
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount), Money.MAX_SCALE);
+    }
+
+    private static BalanceJournalRepository.Tail tail(String total, Long lastSeq) {
+        return new BalanceJournalRepository.Tail() {
+            public BigDecimal getTotal() {
+                return new BigDecimal(total);
+            }
+
+            public Long getLastSeq() {
+                return lastSeq;
+            }
+        };
+    }
+
+    @Test
+    void position_isSnapshotPlusTail_andThenServedFromMemory() {
+        when(entries.findTail(7L, 3L)).thenReturn(tail("-25.00", 5L));
+
+        BalanceJournal.Position position = journal.position(7L, money("100.00"), 3L);
+        assertThat(position.seq()).isEqualTo(5);
+        assertThat(position.balance().toBigDecimal()).isEqualByComparingTo("75.00");
+
+        BalanceJournal.Position next = journal.append(7L, position, money("-10.00"));
+        verify(entries).append(eq(7L), eq(6L), eq(new BigDecimal("-10.00")), any());
+        // Sin transacción la posición se publica al momento: la siguiente compra no vuelve a sumar el diario
+        assertThat(journal.position(7L, money("100.00"), 3L)).isEqualTo(next);
+        assertThat(next.balance().toBigDecimal()).isEqualByComparingTo("65.00");
+        verify(entries, times(1)).findTail(anyLong(), anyLong());
+    }
+
+    @Test
+    void positionOlderThanTheSnapshot_isReloaded() {
+        when(entries.findTail(7L, 0L)).thenReturn(tail("0", null));
+        journal.append(7L, journal.position(7L, money("10.00"), 0L), money("-1.00"));
+
+        // Otro nodo escribió y consolidó hasta la seq 9: la posición en memoria (seq 1) no sirve
+        when(entries.findTail(7L, 9L)).thenReturn(tail("0", null));
+        BalanceJournal.Position position = journal.position(7L, money("4.00"), 9L);
+
+        assertThat(position).isEqualTo(new BalanceJournal.Position(9L, money("4.00")));
+    }
+
+    @Test
+    void seqTakenByAnotherWriter_isAnOptimisticConflict() {
+        when(entries.findTail(7L, 0L)).thenReturn(tail("5.00", 2L));
+        BalanceJournal.Position position = journal.position(7L, money("10.00"), 0L);
+        when(entries.append(eq(7L), eq(3L), any(), any())).thenThrow(new DataIntegrityViolationException("PK"));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> journal.append(7L, position, money("-1.00")));
+        assertThat(journal.compact()).isZero();
+    }
+
+    @Test
+    void compact_foldsWrittenCards_andRetriesFailuresOnTheNextPass() {
+        when(entries.findTail(anyLong(), eq(0L))).thenReturn(tail("0", null));
+        journal.append(7L, journal.position(7L, money("10"), 0L), money("1"));
+        journal.append(8L, journal.position(8L, money("10"), 0L), money("1"));
+        when(entries.findLastSeq(7L)).thenReturn(Optional.of(1L));
+        when(entries.findLastSeq(8L)).thenThrow(new QueryTimeoutException("timeout")).thenReturn(Optional.of(1L));
+        when(cardRepository.foldJournal(anyLong(), eq(1L))).thenReturn(1);
+
+        assertThat(journal.compact()).isEqualTo(1);
+        assertThat(journal.compact()).isEqualTo(1);
+        assertThat(journal.compact()).isZero();
+        verify(cardRepository).foldJournal(7L, 1L);
+        verify(cardRepository).foldJournal(8L, 1L);
+        assertThat(meterRegistry.get("balance.journal.folds").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void compactAll_includesTailsLeftByOtherNodes() {
+        when(entries.findCardsWithTail()).thenReturn(List.of(11L));
+        when(entries.findLastSeq(11L)).thenReturn(Optional.of(4L));
+        when(cardRepository.foldJournal(11L, 4L)).thenReturn(1);
+
+        assertThat(journal.compactAll()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownModel_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BalanceJournal(cardRepository, entries, "ledger", 100, 60, meterRegistry));
+        assertThat(new BalanceJournal(cardRepository, entries, "row", 100, 60, meterRegistry).isEnabled()).isFalse();
+    }
+}
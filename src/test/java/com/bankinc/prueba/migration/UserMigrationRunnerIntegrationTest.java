@@ -0,0 +1,163 @@
+package com.bankinc.prueba.migration;
+
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.MigrationCheckpoint;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.MigrationCheckpointRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// Migración por chunks sobre H2 (BD propia: borra todas las tarjetas y usuarios antes de cada test).
+// Chunks de 2 tarjetas para que los sufijos de username y el checkpoint crucen varios chunks.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:usermigration;DB_CLOSE_DELAY=-1;MODE=MySQL")
+public class UserMigrationRunnerIntegrationTest {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MigrationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger serial = new AtomicInteger();
+
+    @BeforeEach
+    void cleanDatabase() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cardRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+            checkpointRepository.deleteAllInBatch();
+        });
+    }
+
+    private UserMigrationRunner runner() {
+        return new UserMigrationRunner(cardRepository, userRepository, checkpointRepository, passwordEncoder,
+                transactionManager, conflictRetry, 2, 2, 0, meterRegistry);
+    }
+
+    private Card card(String holderName) {
+        Card card = new Card();
+        card.setCardId("654321" + String.format("%010d", serial.incrementAndGet()));
+        card.setProductId("654321");
+        card.setHolderName(holderName);
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        return cardRepository.save(card);
+    }
+
+    private String ownerOf(Card card) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User owner = cardRepository.findById(card.getId()).orElseThrow().getOwner();
+            return owner == null ? null : owner.getUsername();
+        });
+    }
+
+    private double cards(String outcome) {
+        return meterRegistry.get("user.migration.cards").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void migrate_linksEveryNamedCard_withUniqueUsernamesAcrossChunks() {
+        User existing = new User();
+        existing.setUsername("ana_perez");
+        existing.setPassword("x");
+        userRepository.save(existing);
+        Card first = card("Ana Perez");
+        Card second = card("Luis");
+        Card third = card("ANA PEREZ");
+        Card unnamed = card("  ");
+        Card fourth = card("Ana-Perez");
+
+        long created = runner().migrate();
+
+        assertThat(created).isEqualTo(4);
+        assertThat(ownerOf(first)).isEqualTo("ana_perez1");
+        assertThat(ownerOf(second)).isEqualTo("luis");
+        assertThat(ownerOf(third)).isEqualTo("ana_perez2");
+        assertThat(ownerOf(fourth)).isEqualTo("ana_perez3");
+        assertThat(ownerOf(unnamed)).isNull();
+        assertThat(userRepository.findByUsername("ana_perez1").orElseThrow().getPassword()).startsWith("$2");
+        assertThat(checkpointRepository.findLastId(UserMigrationRunner.CHECKPOINT)).contains(fourth.getId());
+        assertThat(cards("linked")).isEqualTo(4);
+        assertThat(cards("skipped")).isEqualTo(1);
+        assertThat(meterRegistry.get("user.migration.remaining").gauge().value()).isZero();
+    }
+
+    // Un reinicio sigue desde el checkpoint: lo anterior ya se recorrió (aquí, una tarjeta sin titular
+    // que la migración dejó como estaba) y no se vuelve a leer
+    @Test
+    void restart_resumesAfterTheCheckpoint() {
+        Card before = card("Antes");
+        Card after = card("Despues");
+        MigrationCheckpoint checkpoint = new MigrationCheckpoint();
+        checkpoint.setName(UserMigrationRunner.CHECKPOINT);
+        checkpoint.setLastId(before.getId());
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+
+        assertThat(runner().migrate()).isEqualTo(1);
+
+        assertThat(ownerOf(before)).isNull();
+        assertThat(ownerOf(after)).isEqualTo("despues");
+        assertThat(checkpointRepository.findById(UserMigrationRunner.CHECKPOINT).orElseThrow().getCreated()).isEqualTo(1);
+
+        Card later = card("Nueva");
+        assertThat(runner().migrate()).isEqualTo(1);
+        assertThat(ownerOf(later)).isEqualTo("nueva");
+        assertThat(ownerOf(before)).isNull();
+    }
+
+    // Un username tomado entre la consulta del chunk y el INSERT hace fallar el chunk: se repite
+    // tarjeta a tarjeta con el sufijo libre en ese momento
+    @Test
+    void usernameTakenDuringTheChunk_fallsBackToCardByCard() {
+        Card card = card("Carla");
+        UserRepository racingUsers = mock(UserRepository.class, delegatesTo(userRepository));
+        doAnswer(invocation -> {
+            List<String> taken = userRepository.findUsernamesIn(invocation.getArgument(0));
+            User racer = new User();
+            racer.setUsername("carla");
+            racer.setPassword("x");
+            userRepository.save(racer);
+            return taken;
+        }).when(racingUsers).findUsernamesIn(anyCollection());
+
+        long created = new UserMigrationRunner(cardRepository, racingUsers, checkpointRepository, passwordEncoder,
+                transactionManager, conflictRetry, 2, 1, 0, meterRegistry).migrate();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(ownerOf(card)).isEqualTo("carla1");
+        assertThat(checkpointRepository.findLastId(UserMigrationRunner.CHECKPOINT)).contains(card.getId());
+    }
+}
@@ -0,0 +1,85 @@
+package com.bankinc.prueba.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MoneyTest {
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount), Money.MAX_SCALE);
+    }
+
+    @Test
+    void of_acceptsTrailingZeros_butNeverRounds() {
+        assertThat(Money.of(new BigDecimal("12.50"), 1)).isEqualTo(Money.ofMinor(125, 1));
+        assertThat(Money.of(new BigDecimal("7"), 2)).isEqualTo(Money.ofMinor(700, 2));
+        assertThat(Money.of(new BigDecimal("1E+2"), 0)).isEqualTo(Money.ofMinor(100, 0));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> Money.of(new BigDecimal("10.005"), 2));
+        assertThat(ex).hasMessage("El monto 10.005 admite como máximo 2 decimales.");
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("0.5"), 0));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(BigDecimal.ONE, 3));
+    }
+
+    @Test
+    void outOfRangeAmounts_throwInsteadOfWrapping() {
+        assertThrows(IllegalArgumentException.class, () -> money("92233720368547758.08"));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, 2).plus(Money.ofMinor(1, 2)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE, 2).minus(Money.ofMinor(1, 2)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE, 2).negate());
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, 0).minorAt(2));
+    }
+
+    // Entre escalas distintas se opera en la mayor; bajar de escala solo si es exacto
+    @Test
+    void mixedScales_useTheLargerOne() {
+        Money sum = Money.ofMinor(10, 0).plus(money("0.25"));
+        assertThat(sum).isEqualTo(Money.ofMinor(1025, 2));
+        assertThat(Money.ofMinor(10, 0).minus(Money.ofMinor(5, 1))).isEqualTo(Money.ofMinor(95, 1));
+
+        assertThat(Money.ofMinor(1000, 2).minorAt(0)).isEqualTo(10);
+        assertThrows(ArithmeticException.class, () -> sum.minorAt(0));
+    }
+
+    // equals distingue la escala como BigDecimal; compareTo compara el valor
+    @Test
+    void equalsIsScaleSensitive_compareToIsNot() {
+        assertThat(Money.ofMinor(10, 0)).isNotEqualTo(Money.ofMinor(1000, 2));
+        assertThat(Money.ofMinor(10, 0).compareTo(Money.ofMinor(1000, 2))).isZero();
+        assertThat(money("9.99").compareTo(Money.ofMinor(10, 0))).isNegative();
+        assertThat(Money.ofMinor(Long.MAX_VALUE, 0).compareTo(Money.ofMinor(1, 2))).isPositive();
+        assertThat(money("-3.00").signum()).isEqualTo(-1);
+    }
+
+    @Test
+    void converter_roundTripsTheColumnExactly() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.ofMinor(5, 0))).isEqualTo(new BigDecimal("5"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("123.45"))).isEqualTo(Money.ofMinor(12345, 2));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("5"))).isEqualTo(Money.ofMinor(500, 2));
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+        assertThat(money("0.10").toString()).isEqualTo("0.10");
+    }
+
+    @Test
+    void productScales_useTheCardPrefix_andRejectInvalidConfig() {
+        ProductScales scales = new ProductScales(2, "654321:0, 111111:1");
+
+        assertThat(scales.scaleOfCard("6543210000000019")).isZero();
+        assertThat(scales.scaleOfCard("1111110000000001")).isEqualTo(1);
+        assertThat(scales.scaleOfCard("1234560000000009")).isEqualTo(2);
+        assertThat(scales.amount("6543210000000019", new BigDecimal("15.00"))).isEqualTo(Money.ofMinor(15, 0));
+        assertThrows(IllegalArgumentException.class, () -> scales.amount("6543210000000019", new BigDecimal("15.50")));
+
+        assertThrows(IllegalArgumentException.class, () -> new ProductScales(3, ""));
+        assertThrows(IllegalArgumentException.class, () -> new ProductScales(2, "654321"));
+        assertThrows(IllegalArgumentException.class, () -> new ProductScales(2, "654321:4"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.bankinc.prueba.pipeline;
+
+import com.bankinc.prueba.cache.CardSnapshot;
+import com.bankinc.prueba.exception.TooManyRequestsException;
+import com.bankinc.prueba.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PurchasePipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PurchasePipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    // Mientras el primer lote se confirma, las compras que llegan se juntan en el siguiente
+    @Test
+    void submissionsQueuedDuringACommit_areGroupedIntoOneBatch() throws Exception {
+        pipeline = new PurchasePipeline("pipeline", 1, 100, 16, 0, 100, meterRegistry);
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        pipeline.start((batch, state) -> {
+            batchSizes.add(batch.size());
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+            batch.forEach(submission -> submission.approve("tx-" + submission.price()));
+        });
+
+        CompletableFuture<String> first = pipeline.submit("A", Money.ofMinor(1, 0));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        List<CompletableFuture<String>> queued = List.of(
+                pipeline.submit("A", Money.ofMinor(2, 0)), pipeline.submit("B", Money.ofMinor(3, 0)),
+                pipeline.submit("C", Money.ofMinor(4, 0)));
+        assertThat(first).isNotDone(); // la respuesta espera al commit
+        releaseFirstBatch.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("tx-1");
+        assertThat(queued.get(2).get(5, TimeUnit.SECONDS)).isEqualTo("tx-4");
+        assertThat(batchSizes).containsExactly(1, 3);
+        assertThat(meterRegistry.get("purchase.pipeline.batch.size").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void declinedSubmission_completesWithItsException() {
+        pipeline = new PurchasePipeline("pipeline", 2, 100, 16, 0, 100, meterRegistry);
+        pipeline.start((batch, state) -> batch.forEach(submission -> submission.decline(new IllegalStateException("rechazada"))));
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> pipeline.submit("A", Money.ofMinor(1, 0)).get(5, TimeUnit.SECONDS));
+        assertThat(ex.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("rechazada");
+    }
+
+    // approve registra el resultado (Idempotency-Key) dentro de la transacción del lote; si el registro
+    // falla, el lote entero falla
+    @Test
+    void approve_recordsTheResult_andARecordFailureFailsTheBatch() throws Exception {
+        pipeline = new PurchasePipeline("pipeline", 1, 100, 16, 0, 100, meterRegistry);
+        pipeline.start((batch, state) -> batch.forEach(submission -> submission.approve("tx-" + submission.price())));
+        List<String> recorded = new CopyOnWriteArrayList<>();
+
+        assertThat(pipeline.submit("A", Money.ofMinor(7, 0), recorded::add).get(5, TimeUnit.SECONDS)).isEqualTo("tx-7");
+        assertThat(recorded).containsExactly("tx-7");
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> pipeline.submit("A", Money.ofMinor(1, 0), transactionId -> {
+                    throw new IllegalStateException("clave duplicada");
+                }).get(5, TimeUnit.SECONDS));
+        assertThat(ex.getCause()).hasMessage("clave duplicada");
+    }
+
+    // Un lote que no se confirma falla entero y la partición olvida su estado en memoria
+    @Test
+    void failedCommit_failsTheBatch_andClearsPartitionState() throws Exception {
+        pipeline = new PurchasePipeline("pipeline", 1, 100, 16, 0, 100, meterRegistry);
+        List<Integer> stateSizes = new CopyOnWriteArrayList<>();
+        pipeline.start((batch, state) -> {
+            stateSizes.add(state.size());
+            if (batch.get(0).cardId().equals("FAIL")) {
+                throw new IllegalStateException("BD caída");
+            }
+            state.put("A", snapshot("A"));
+            batch.forEach(submission -> submission.approve("ok"));
+        });
+
+        assertThat(pipeline.submit("A", Money.ofMinor(1, 0)).get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> pipeline.submit("FAIL", Money.ofMinor(1, 0)).get(5, TimeUnit.SECONDS));
+        assertThat(ex.getCause()).hasMessage("BD caída");
+        assertThat(pipeline.submit("A", Money.ofMinor(1, 0)).get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+
+        assertThat(stateSizes).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void fullQueue_rejectsWithTooManyRequests() throws Exception {
+        pipeline = new PurchasePipeline("pipeline", 1, 1, 16, 0, 100, meterRegistry);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.start((batch, state) -> {
+            committing.countDown();
+            await(release);
+            batch.forEach(submission -> submission.approve("ok"));
+        });
+
+        CompletableFuture<String> inFlight = pipeline.submit("A", Money.ofMinor(1, 0));
+        assertThat(committing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = pipeline.submit("A", Money.ofMinor(1, 0)); // ocupa la cola
+
+        assertThrows(TooManyRequestsException.class, () -> pipeline.submit("A", Money.ofMinor(1, 0)));
+        assertThat(meterRegistry.get("purchase.pipeline.rejected").counter().count()).isEqualTo(1.0);
+        release.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    void syncEngine_doesNotStartWriters() {
+        PurchasePipeline sync = new PurchasePipeline("sync", 4, 100, 16, 2, 100, meterRegistry);
+        sync.start((batch, state) -> {});
+
+        assertThat(sync.isEnabled()).isFalse();
+        assertThrows(IllegalStateException.class, () -> sync.submit("A", Money.ofMinor(1, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PurchasePipeline("disruptor", 4, 100, 16, 2, 100, meterRegistry));
+    }
+
+    private static CardSnapshot snapshot(String cardId) {
+        return new CardSnapshot(1L, cardId, "123456", "TITULAR", LocalDate.now().plusYears(1), Money.ofMinor(1000, 2), true, false);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.bankinc.prueba.replica;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.dto.CardDto;
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.journal.BalanceJournal;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.ProductScales;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import com.bankinc.prueba.service.CardService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dos H2 en memoria: primario (el de la aplicación) y réplica. No hay replicación real: replicate()
+// copia el primario en la réplica, y entre copias la réplica está "atrasada".
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rr_primary;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "app.db.replica.urls=" + ReadReplicaIntegrationTest.REPLICA_URL,
+        "app.db.replica.sticky-ms=300",
+        "app.card-cache.enabled=false"
+})
+public class ReadReplicaIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rr_replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private CardLockManager cardLocks;
+
+    @Autowired
+    private CardNumberAllocator cardNumbers;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private BalanceJournal balanceJournal;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private ProductScales productScales;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void replicate() {
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+
+    private String activeCard(String cardId, String balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId("654321");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        card.setBalance(Money.of(new BigDecimal(balance), Money.MAX_SCALE));
+        card.setActive(true);
+        return cardRepository.save(card).getCardId();
+    }
+
+    @Test
+    void balanceReads_goToReplica_exceptRightAfterAMutationOfTheCard() throws InterruptedException {
+        String cardId = activeCard("6543210000000019", "100.00");
+        replicate();
+        // Cambio aún no replicado (p. ej. hecho por otro nodo): la lectura sale de la réplica
+        primary.update("update cards set balance = 150 where card_id = ?", cardId);
+        assertThat(cardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("100.00");
+
+        cardService.rechargeBalance(cardId, new BigDecimal("10.00"));
+        assertThat(cardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("160.00"); // read-your-writes
+
+        Thread.sleep(400); // pasa la ventana: vuelve a la réplica, aún sin la recarga
+        assertThat(cardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("100.00");
+        replicate();
+        assertThat(cardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("160.00");
+    }
+
+    // Con la caché de tarjetas activada, lo leído de una réplica atrasada no se queda en caché: cuando la
+    // réplica se pone al día (aquí, con un cambio posterior en el primario) la consulta ve el saldo nuevo
+    @Test
+    void replicaLaggedBalance_isNotCached() {
+        CardService cachedCardService = new CardService(cardRepository, userRepository, cardLocks,
+                new CardCache(cardRepository, true, 1000, 30, null), cardNumbers, conflictRetry, balanceJournal,
+                readRouting, productScales, transactionManager, meterRegistry);
+        String cardId = activeCard("6543210000000027", "100.00");
+        replicate();
+        primary.update("update cards set balance = 150 where card_id = ?", cardId);
+        assertThat(cachedCardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("100.00");
+
+        primary.update("update cards set balance = 170 where card_id = ?", cardId);
+        replicate();
+        assertThat(cachedCardService.getBalance(cardId).toBigDecimal()).isEqualByComparingTo("170.00");
+    }
+
+    // La lista de tarjetas del usuario va al primario tras su propia mutación, la de otro usuario no
+    @Test
+    void userSeesTheCardTheyJustCreated_beforeItReachesTheReplica() {
+        for (String username : List.of("lectora", "otra")) {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("x");
+            userRepository.save(user);
+        }
+        replicate();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("lectora", null, List.of()));
+
+        String cardId = cardService.generateCardNumber("123456", "LECTORA", "lectora");
+        cardService.generateCardNumber("123456", "OTRA", "otra");
+
+        assertThat(cardService.findCardsByOwnerUsername("lectora")).extracting(CardDto::getCardId).containsExactly(cardId);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("otra", null, List.of()));
+        assertThat(cardService.findCardsByOwnerUsername("otra")).isEmpty(); // sin mutación propia: réplica
+    }
+}
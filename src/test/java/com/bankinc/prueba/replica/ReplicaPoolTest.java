@@ -0,0 +1,65 @@
+package com.bankinc.prueba.replica;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaPoolTest {
+
+    @Test
+    void connect_roundRobinsAcrossReplicas() throws SQLException {
+        Connection first = mock(Connection.class);
+        Connection second = mock(Connection.class);
+        ReplicaPool pool = new ReplicaPool(List.of(dataSource(first), dataSource(second)));
+
+        assertThat(List.of(pool.connect(), pool.connect(), pool.connect())).containsExactly(first, second, first);
+        assertThat(pool.getReplicaConnections()).isEqualTo(3);
+    }
+
+    // Una réplica que falla se salta al momento; sin ninguna sana se devuelve null (lee el primario)
+    @Test
+    void failingReplica_isMarkedDown_andPrimaryIsUsedWhenNoneIsHealthy() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("Connection refused"));
+        Connection healthy = mock(Connection.class);
+        DataSource working = dataSource(healthy);
+        ReplicaPool pool = new ReplicaPool(List.of(broken, working));
+
+        assertThat(pool.connect()).isSameAs(healthy);
+        assertThat(pool.getHealthyCount()).isEqualTo(1);
+
+        when(working.getConnection()).thenThrow(new SQLException("Connection refused"));
+        assertThat(pool.connect()).isNull();
+        assertThat(pool.getHealthyCount()).isZero();
+        assertThat(pool.getPrimaryFallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    void healthCheck_readmitsReplicaOnceItResponds() throws SQLException {
+        DataSource replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused")).thenReturn(connection);
+        ReplicaPool pool = new ReplicaPool(List.of(replica));
+
+        assertThat(pool.connect()).isNull();
+        pool.checkHealth();
+
+        assertThat(pool.getHealthyCount()).isEqualTo(1);
+        assertThat(pool.connect()).isSameAs(connection);
+    }
+
+    private static DataSource dataSource(Connection connection) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bankinc.prueba.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CachingPasswordEncoderTest {
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void matches_success_isCached_andSkipsDelegateNextTime() {
+        when(delegate.matches("secret", "$2a$hash")).thenReturn(true);
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(delegate, 60_000, 10, registry);
+
+        assertThat(encoder.matches("secret", "$2a$hash")).isTrue();
+        assertThat(encoder.matches("secret", "$2a$hash")).isTrue();
+
+        verify(delegate, times(1)).matches("secret", "$2a$hash");
+        assertThat(registry.counter("auth.password.cache.hits").count()).isEqualTo(1);
+    }
+
+    @Test
+    void matches_failure_isNeverCached() {
+        when(delegate.matches("wrong", "$2a$hash")).thenReturn(false);
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(delegate, 60_000, 10, registry);
+
+        assertThat(encoder.matches("wrong", "$2a$hash")).isFalse();
+        assertThat(encoder.matches("wrong", "$2a$hash")).isFalse();
+
+        verify(delegate, times(2)).matches("wrong", "$2a$hash");
+        assertThat(encoder.cachedCount()).isZero();
+    }
+
+    @Test
+    void matches_afterPasswordChange_rechecksAgainstNewHash() {
+        when(delegate.matches("secret", "$2a$old")).thenReturn(true);
+        when(delegate.matches("secret", "$2a$new")).thenReturn(false);
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(delegate, 60_000, 10, registry);
+
+        assertThat(encoder.matches("secret", "$2a$old")).isTrue();
+        assertThat(encoder.matches("secret", "$2a$new")).isFalse();
+    }
+
+    @Test
+    void matches_expiredEntry_rechecks() {
+        when(delegate.matches("secret", "$2a$hash")).thenReturn(true);
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(delegate, -1, 10, registry);
+
+        encoder.matches("secret", "$2a$hash");
+        encoder.matches("secret", "$2a$hash");
+
+        verify(delegate, times(2)).matches("secret", "$2a$hash");
+    }
+}
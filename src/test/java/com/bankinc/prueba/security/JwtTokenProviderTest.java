@@ -0,0 +1,61 @@
+package com.bankinc.prueba.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JwtTokenProviderTest {
+
+    private static final String SECRET = "test_secret_test_secret_test_secret_test_secret";
+
+    @Test
+    void resolveUsername_validToken_isVerifiedOnce_thenServedFromCache() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 10);
+        String token = provider.createToken("alice");
+
+        assertThat(provider.resolveUsername(token)).isEqualTo("alice");
+        assertThat(provider.cachedTokenCount()).isEqualTo(1);
+        assertThat(provider.resolveUsername(token)).isEqualTo("alice");
+        assertThat(provider.cachedTokenCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resolveUsername_tamperedOrForeignToken_isRejected_andNotCached() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 10);
+        JwtTokenProvider other = new JwtTokenProvider(SECRET.replace('t', 'x'), 60_000, 10);
+
+        assertThat(provider.resolveUsername(other.createToken("mallory"))).isNull();
+        assertThat(provider.resolveUsername("not.a.jwt")).isNull();
+        assertThat(provider.cachedTokenCount()).isZero();
+    }
+
+    @Test
+    void resolveUsername_expiredToken_isRejected() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, -1_000, 10);
+
+        assertThat(provider.resolveUsername(provider.createToken("bob"))).isNull();
+        assertThat(provider.cachedTokenCount()).isZero();
+    }
+
+    @Test
+    void cache_isBounded() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 2);
+        for (String user : new String[]{"u1", "u2", "u3"}) {
+            assertThat(provider.resolveUsername(provider.createToken(user))).isEqualTo(user);
+        }
+        assertThat(provider.cachedTokenCount()).isEqualTo(2);
+    }
+
+    @Test
+    void resolve_carriesTheSignedRoles_defaultingToUser() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 10);
+
+        assertThat(provider.resolve(provider.createToken("finanzas", "ROLE_USER,ROLE_FINANCE")).authorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_FINANCE");
+        assertThat(provider.resolve(provider.createToken("alice")).authorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+    }
+}
@@ -0,0 +1,275 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.dto.PurchaseRequest;
+import com.bankinc.prueba.dto.PurchaseResult;
+import com.bankinc.prueba.exception.InsufficientBalanceException;
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.id.TransactionIdGenerator;
+import com.bankinc.prueba.journal.BalanceJournal;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.ProductScales;
+import com.bankinc.prueba.pipeline.PurchasePipeline;
+import com.bankinc.prueba.replica.ReadRouting;
+import com.bankinc.prueba.repository.BalanceJournalRepository;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dos "nodos" sobre la misma BD: los servicios del contexto y otra pareja con sus propios locks y
+// caché, así los locks en proceso no protegen entre ellos. Varios hilos mezclan recargas, compras,
+// lotes (escriben el saldo por dirty checking) y anulaciones sobre dos tarjetas. El saldo final debe
+// ser exactamente el inicial más la suma de las operaciones que terminaron bien. Con el modelo de saldo
+// journal se repite en JournalBalanceConcurrencyIntegrationTest y con el motor de compras pipeline en
+// PipelineBalanceConcurrencyIntegrationTest.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conflicts;DB_CLOSE_DELAY=-1;MODE=MySQL")
+public class BalanceConcurrencyIntegrationTest {
+
+    private static final BigDecimal INITIAL = new BigDecimal("1000.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumbers;
+
+    @Autowired
+    private TransactionIdGenerator transactionIds;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BalanceJournal balanceJournal;
+
+    @Autowired
+    private BalanceJournalRepository balanceJournalRepository;
+
+    @Autowired
+    private PurchasePipeline purchasePipeline;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private ProductScales productScales;
+
+    private BalanceJournal otherJournal;
+    private PurchasePipeline otherPipeline;
+    private CardService otherCardService;
+    private TransactionService otherTransactionService;
+
+    // Segundo "nodo": sus propios locks, caché de tarjetas, posiciones del diario y particiones del pipeline
+    private void startOtherNode() {
+        CardLockManager otherLocks = new CardLockManager(1024);
+        CardCache otherCache = new CardCache(cardRepository, true, 1000, 30, null);
+        otherJournal = new BalanceJournal(cardRepository, balanceJournalRepository,
+                balanceJournal.isEnabled() ? "journal" : "row", 1000, 30, meterRegistry);
+        otherCardService = new CardService(cardRepository, userRepository, otherLocks, otherCache,
+                cardNumbers, conflictRetry, otherJournal, readRouting, productScales, transactionManager, meterRegistry);
+        otherPipeline = new PurchasePipeline(purchasePipeline.isEnabled() ? "pipeline" : "sync", 4, 10000, 256, 2,
+                10000, meterRegistry);
+        otherTransactionService = new TransactionService(cardRepository, transactionRepository, otherLocks,
+                conflictRetry, otherCache, otherJournal, otherPipeline, readRouting, transactionIds, productScales,
+                transactionManager, 1000, meterRegistry);
+    }
+
+    @AfterEach
+    void stopOtherNode() throws InterruptedException {
+        if (otherPipeline != null) {
+            otherPipeline.shutdown();
+        }
+    }
+
+    // Saldo consolidado tras compactar el diario de ambos nodos (en el modelo row no hay nada que compactar)
+    private BigDecimal consolidatedBalance(String cardId) {
+        balanceJournal.compactAll();
+        otherJournal.compactAll();
+        return cardRepository.findByCardId(cardId).orElseThrow().getBalance().toBigDecimal();
+    }
+
+    private Card card(String cardId, BigDecimal balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId("123456");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        card.setBalance(Money.of(balance, Money.MAX_SCALE));
+        card.setActive(true);
+        return cardRepository.save(card);
+    }
+
+    @Test
+    void concurrentMutationsFromTwoNodes_finalBalanceEqualsSumOfOperations() throws Exception {
+        String[] cardIds = {"1234560000000074", "1234560000000082"};
+        for (String cardId : cardIds) {
+            card(cardId, INITIAL);
+        }
+        startOtherNode();
+
+        // Variación esperada del saldo por tarjeta, en céntimos, solo de operaciones confirmadas
+        AtomicLong[] expectedCents = {new AtomicLong(), new AtomicLong()};
+        AtomicLong[] rechargedCents = {new AtomicLong(), new AtomicLong()};
+        Queue<String>[] purchased = new Queue[]{new ConcurrentLinkedQueue<String>(), new ConcurrentLinkedQueue<String>()};
+        AtomicLong failures = new AtomicLong();
+        int threads = 8;
+        int operationsPerThread = 60;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean firstNode = t % 2 == 0;
+                CardService cards = firstNode ? cardService : otherCardService;
+                TransactionService transactions = firstNode ? transactionService : otherTransactionService;
+                futures.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        int c = random.nextInt(cardIds.length);
+                        String cardId = cardIds[c];
+                        try {
+                            switch (random.nextInt(4)) {
+                                case 0 -> {
+                                    cards.rechargeBalance(cardId, new BigDecimal("3.00"));
+                                    expectedCents[c].addAndGet(300);
+                                    rechargedCents[c].addAndGet(300);
+                                }
+                                case 1 -> {
+                                    purchased[c].add(transactions.purchase(cardId, new BigDecimal("2.00")));
+                                    expectedCents[c].addAndGet(-200);
+                                }
+                                case 2 -> {
+                                    List<PurchaseResult> results = transactions.purchaseBatch(List.of(
+                                            new PurchaseRequest(cardId, new BigDecimal("1.00")),
+                                            new PurchaseRequest(cardId, new BigDecimal("1.00"))));
+                                    for (PurchaseResult result : results) {
+                                        assertThat(result.status()).isEqualTo("Completed");
+                                        purchased[c].add(result.transactionId());
+                                        expectedCents[c].addAndGet(-100);
+                                    }
+                                }
+                                default -> {
+                                    String transactionId = purchased[c].poll();
+                                    if (transactionId != null) {
+                                        Money price = transactionRepository.findByTransactionId(
+                                                UUID.fromString(transactionId)).orElseThrow().getPrice();
+                                        transactions.annulTransaction(transactionId);
+                                        expectedCents[c].addAndGet(price.minorAt(2));
+                                    }
+                                }
+                            }
+                        } catch (ConcurrencyFailureException ex) {
+                            // Reintentos agotados: la operación no se aplicó (rollback completo)
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int c = 0; c < cardIds.length; c++) {
+            BigDecimal expected = INITIAL.add(BigDecimal.valueOf(expectedCents[c].get(), 2));
+            BigDecimal balance = consolidatedBalance(cardIds[c]);
+            assertThat(balance).as("saldo de %s", cardIds[c]).isEqualByComparingTo(expected);
+
+            // El saldo también cuadra con lo registrado: inicial + recargas - compras completadas
+            BigDecimal completed = jdbcTemplate.queryForObject(
+                    "select coalesce(sum(t.price), 0) from transactions t join cards c on c.id = t.card_id"
+                            + " where c.card_id = ? and t.status = 'COMPLETED'", BigDecimal.class, cardIds[c]);
+            assertThat(balance).isEqualByComparingTo(
+                    INITIAL.add(BigDecimal.valueOf(rechargedCents[c].get(), 2)).subtract(completed));
+        }
+        assertThat(failures.get()).isLessThan((long) threads * operationsPerThread / 10);
+    }
+
+    @Test
+    void concurrentPurchasesFromTwoNodes_neverOverdraw() throws Exception {
+        String cardId = "1234560000000090";
+        card(cardId, new BigDecimal("10.00"));
+        startOtherNode();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger declined = new AtomicInteger();
+        int threads = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                TransactionService transactions = t % 2 == 0 ? transactionService : otherTransactionService;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        try {
+                            transactions.purchase(cardId, new BigDecimal("1.00"));
+                            completed.incrementAndGet();
+                        } catch (InsufficientBalanceException ex) {
+                            declined.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(completed.get()).isEqualTo(10);
+        assertThat(declined.get()).isEqualTo(20);
+        assertThat(consolidatedBalance(cardId)).isEqualByComparingTo("0.00");
+    }
+}
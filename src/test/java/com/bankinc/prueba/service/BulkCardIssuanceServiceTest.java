@@ -0,0 +1,153 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.dto.BulkCardRequest;
+import com.bankinc.prueba.dto.BulkIssuanceStatus;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkCardIssuanceServiceTest {
+
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkCardIssuanceService service;
+
+    @BeforeEach
+    void setUp() {
+        CardCache cardCache = new CardCache(cardRepository, false, 0, 0, null);
+        service = new BulkCardIssuanceService(cardService, cardRepository, userRepository, cardCache,
+                transactionManager, 2, 10, 1, 1, 60);
+
+        AtomicInteger serial = new AtomicInteger();
+        lenient().when(cardService.reserveCardNumbers(anyString(), anyInt())).thenAnswer(i -> IntStream
+                .range(0, i.<Integer>getArgument(1))
+                .mapToObj(n -> String.format("123456%010d", serial.getAndIncrement()))
+                .toList());
+        lenient().when(cardService.newCard(anyString(), anyString(), anyString(), any())).thenAnswer(i -> {
+            Card card = new Card();
+            card.setCardId(i.getArgument(0));
+            card.setHolderName(i.getArgument(2));
+            card.setOwner(i.getArgument(3));
+            return card;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private String results(UUID jobId, String username) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeResults(service.findJob(jobId, username).orElseThrow(), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void submit_issuesAllCardsInChunks_andStreamsResultsInRequestOrder() throws Exception {
+        User owner = new User();
+        when(userRepository.findByUsername("empresa")).thenReturn(Optional.of(owner));
+
+        BulkIssuanceStatus submitted = service.submit(
+                new BulkCardRequest("123456", Arrays.asList("Ana", "Luis, Jr.", null, "Eva", "Juan"), null), "empresa");
+
+        // La descarga espera a que el job termine
+        String csv = results(submitted.jobId(), "empresa");
+        assertThat(csv.split("\n")).containsExactly(
+                "cardId,holderName",
+                "1234560000000000,Ana",
+                "1234560000000001,\"Luis, Jr.\"",
+                "1234560000000002,TITULAR DE TARJETA",
+                "1234560000000003,Eva",
+                "1234560000000004,Juan");
+
+        BulkIssuanceStatus status = service.findJob(submitted.jobId(), "empresa").orElseThrow().status();
+        assertThat(status.status()).isEqualTo("COMPLETED");
+        assertThat(status.issued()).isEqualTo(5);
+        verify(cardRepository, times(3)).saveAll(anyList()); // chunks de 2
+        verify(transactionManager, times(3)).commit(any());
+        verify(cardService, times(5)).newCard(anyString(), eq("123456"), anyString(), eq(owner));
+        // Los números de cada chunk se reservan antes de abrir su transacción (sin segunda conexión)
+        InOrder order = inOrder(cardService, transactionManager);
+        for (int chunk = 0; chunk < 3; chunk++) {
+            order.verify(cardService).reserveCardNumbers(eq("123456"), anyInt());
+            order.verify(transactionManager).getTransaction(any());
+        }
+        verify(userRepository, times(1)).findByUsername("empresa"); // una vez por job, no por tarjeta
+    }
+
+    @Test
+    void run_whenAChunkFails_keepsCommittedChunks_andReportsFailure() throws Exception {
+        when(cardRepository.saveAll(anyList())).thenReturn(List.of()).thenThrow(new IllegalStateException("BD caída"));
+
+        BulkIssuanceStatus submitted = service.submit(
+                new BulkCardRequest("123456", List.of("A", "B", "C", "D"), null), "empresa");
+
+        assertThat(results(submitted.jobId(), "empresa").split("\n")).hasSize(3);
+        BulkIssuanceStatus status = service.findJob(submitted.jobId(), "empresa").orElseThrow().status();
+        assertThat(status.status()).isEqualTo("FAILED");
+        assertThat(status.issued()).isEqualTo(2);
+        assertThat(status.message()).contains("BD caída");
+    }
+
+    @Test
+    void findJob_onlyForTheUserWhoSubmittedIt() {
+        BulkIssuanceStatus submitted = service.submit(new BulkCardRequest("123456", List.of("A"), null), "empresa");
+
+        assertThat(service.findJob(submitted.jobId(), "otro")).isEmpty();
+        assertThat(service.findJob(UUID.randomUUID(), "empresa")).isEmpty();
+    }
+
+    @Test
+    void submit_invalidRequests_throw() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(new BulkCardRequest("PROD01", List.of("A"), null), "empresa"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(new BulkCardRequest("123456", List.of(), null), "empresa"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(new BulkCardRequest("123456", List.of("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11"), null), "empresa"));
+        when(userRepository.findByUsername("nadie")).thenReturn(Optional.empty());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(new BulkCardRequest("123456", List.of("A"), "nadie"), "empresa"));
+        verifyNoInteractions(cardService);
+    }
+}
@@ -1,15 +1,25 @@
 package com.bankinc.prueba.service;
 
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
 import com.bankinc.prueba.exception.CardBlockedException;
 import com.bankinc.prueba.exception.CardNotFoundException;
+import com.bankinc.prueba.id.CardNumberAllocator;
+import com.bankinc.prueba.journal.BalanceJournal;
 import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.ProductScales;
+import com.bankinc.prueba.replica.ReadRouting;
 import com.bankinc.prueba.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -29,16 +39,34 @@ public class CardServiceTest {
     @Mock
     private com.bankinc.prueba.repository.UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private CardNumberAllocator cardNumbers;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private CardService cardService;
 
+    @BeforeEach
+    void setUp() {
+        CardCache cardCache = new CardCache(cardRepository, true, 100, 60, meterRegistry);
+        cardService = new CardService(cardRepository, userRepository, new CardLockManager(16), cardCache, cardNumbers,
+                new ConflictRetry(3, 0, 0, meterRegistry),
+                new BalanceJournal(cardRepository, null, "row", 0, 0, meterRegistry),
+                new ReadRouting(null, null, "", 0, 0, meterRegistry), new ProductScales(2, "999999:0"),
+                transactionManager, meterRegistry);
+    }
+
     @Test
     void generateCardNumber_validProduct_createsAndSavesCard() {
         when(cardRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(cardNumbers.next("123456")).thenReturn("1234560000000009");
 
-            String cardId = cardService.generateCardNumber("PROD01", "Juan Perez", null);
+            String cardId = cardService.generateCardNumber("123456", "Juan Perez", null);
 
-        assertThat(cardId).isNotBlank().hasSize(16).startsWith("PROD01");
+        assertThat(cardId).isEqualTo("1234560000000009");
 
         ArgumentCaptor<Card> captor = ArgumentCaptor.forClass(Card.class);
         verify(cardRepository).save(captor.capture());
@@ -47,7 +75,13 @@ public class CardServiceTest {
         assertThat(saved.isActive()).isFalse();
         assertThat(saved.isBlocked()).isFalse();
         assertThat(saved.getExpirationDate()).isAfter(LocalDate.now());
-        assertThat(saved.getBalance()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(saved.getBalance().toBigDecimal()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void generateCardNumber_nonNumericProduct_throws() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.generateCardNumber("PROD01", "Juan Perez", null));
+        verifyNoInteractions(cardNumbers, cardRepository);
     }
 
     @Test
@@ -55,7 +89,7 @@ public class CardServiceTest {
         Card c = new Card();
         c.setCardId("PROD010000000001");
         c.setActive(true);
-        when(cardRepository.findByCardId(c.getCardId())).thenReturn(Optional.of(c));
+        when(cardRepository.findCachedByCardId(c.getCardId())).thenReturn(Optional.of(c));
 
         assertThrows(IllegalArgumentException.class, () -> cardService.enrollCard(c.getCardId()));
         verify(cardRepository, never()).save(any());
@@ -66,21 +100,91 @@ public class CardServiceTest {
         Card c = new Card();
         c.setCardId("PROD010000000002");
         c.setBlocked(true);
-        c.setBalance(BigDecimal.ZERO);
-        when(cardRepository.findByCardId(c.getCardId())).thenReturn(Optional.of(c));
+        c.setBalance(Money.zero(Money.MAX_SCALE));
+        when(cardRepository.credit(c.getCardId(), Money.ofMinor(1000, 2))).thenReturn(0);
+        when(cardRepository.findCachedByCardId(c.getCardId())).thenReturn(Optional.of(c));
 
         assertThrows(CardBlockedException.class, () -> cardService.rechargeBalance(c.getCardId(), new BigDecimal("10")));
         verify(cardRepository, never()).save(any());
     }
 
+    @Test
+    void rechargeBalance_success_creditsAtomically_withoutLoadingCard() {
+        when(cardRepository.credit("PROD010000000004", Money.ofMinor(1000, 2))).thenReturn(1);
+
+        cardService.rechargeBalance("PROD010000000004", new BigDecimal("10"));
+
+        verify(cardRepository, never()).findCachedByCardId(any());
+        verify(cardRepository, never()).save(any());
+        assertThat(rechargeCount("success")).isEqualTo(1);
+    }
+
+    @Test
+    void rechargeBalance_nonPositiveAmount_throws() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.rechargeBalance("PROD010000000005", BigDecimal.ZERO));
+        verify(cardRepository, never()).credit(any(), any());
+        assertThat(rechargeCount("error")).isEqualTo(1);
+        assertThat(rechargeCount("success")).isZero();
+    }
+
+    // Un importe con más decimales que los del producto se rechaza: nunca se redondea
+    @Test
+    void rechargeBalance_moreDecimalsThanTheProduct_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.rechargeBalance("PROD010000000007", new BigDecimal("10.005")));
+        assertThrows(IllegalArgumentException.class, () -> cardService.rechargeBalance("9999990000000008", new BigDecimal("10.50")));
+        verify(cardRepository, never()).credit(any(), any());
+
+        when(cardRepository.credit("9999990000000008", Money.ofMinor(10, 0))).thenReturn(1);
+        cardService.rechargeBalance("9999990000000008", new BigDecimal("10.00"));
+        verify(cardRepository).credit("9999990000000008", Money.ofMinor(10, 0));
+    }
+
+    private long rechargeCount(String outcome) {
+        return meterRegistry.get("card.operation").tags("operation", "recharge", "outcome", outcome).timer().count();
+    }
+
     @Test
     void getBalance_returnsCardBalance() {
         Card c = new Card();
         c.setCardId("PROD010000000003");
-        c.setBalance(new BigDecimal("25.75"));
+        c.setBalance(Money.of(new BigDecimal("25.75"), Money.MAX_SCALE));
         when(cardRepository.findByCardId(c.getCardId())).thenReturn(Optional.of(c));
 
-        BigDecimal bal = cardService.getBalance(c.getCardId());
-        assertThat(bal).isEqualByComparingTo(new BigDecimal("25.75"));
+        Money bal = cardService.getBalance(c.getCardId());
+        assertThat(bal).isEqualTo(Money.ofMinor(2575, 2));
+    }
+
+    // Un "no encontrada" no se cachea: la tarjeta emitida después (p. ej. en otro nodo) se ve en la siguiente lectura
+    @Test
+    void getBalance_unknownCard_isNotCached() {
+        Card c = new Card();
+        c.setId(9L);
+        c.setCardId("PROD010000000009");
+        c.setBalance(Money.of(new BigDecimal("12.00"), Money.MAX_SCALE));
+        when(cardRepository.findByCardId(c.getCardId())).thenReturn(Optional.empty(), Optional.of(c));
+
+        assertThrows(CardNotFoundException.class, () -> cardService.getBalance(c.getCardId()));
+        assertThat(cardService.getBalance(c.getCardId()).toBigDecimal()).isEqualByComparingTo("12.00");
+        assertThat(cardService.getBalance(c.getCardId()).toBigDecimal()).isEqualByComparingTo("12.00");
+        verify(cardRepository, times(2)).findByCardId(c.getCardId());
+    }
+
+    @Test
+    void getBalance_isCached_untilCardIsMutated() {
+        Card c = new Card();
+        c.setCardId("PROD010000000006");
+        c.setBalance(Money.of(new BigDecimal("5.00"), Money.MAX_SCALE));
+        when(cardRepository.findByCardId(c.getCardId())).thenReturn(Optional.of(c));
+        when(cardRepository.credit(c.getCardId(), Money.ofMinor(1000, 2))).thenReturn(1);
+
+        cardService.getBalance(c.getCardId());
+        cardService.getBalance(c.getCardId());
+        verify(cardRepository, times(1)).findByCardId(c.getCardId());
+
+        cardService.rechargeBalance(c.getCardId(), new BigDecimal("10"));
+        c.setBalance(Money.of(new BigDecimal("15.00"), Money.MAX_SCALE));
+
+        assertThat(cardService.getBalance(c.getCardId()).toBigDecimal()).isEqualByComparingTo("15.00");
+        verify(cardRepository, times(2)).findByCardId(c.getCardId());
     }
 }
@@ -0,0 +1,228 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.exception.IdempotencyConflictException;
+import com.bankinc.prueba.exception.IdempotencyKeyMismatchException;
+import com.bankinc.prueba.exception.InsufficientBalanceException;
+import com.bankinc.prueba.model.IdempotencyRecord;
+import com.bankinc.prueba.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private IdempotencyService idempotency;
+
+    @BeforeEach
+    void setUp() {
+        idempotency = new IdempotencyService(repository, transactionManager, 24, 1000, meterRegistry);
+    }
+
+    private double replays(String source) {
+        return meterRegistry.get("idempotency.replays").tag("source", source).counter().count();
+    }
+
+    // La operación registra la clave dentro de su transacción y devuelve value
+    private static Function<IdempotencyService.Recorder, String> charge(Supplier<String> value) {
+        return recorder -> {
+            String result = value.get();
+            recorder.record(result);
+            return result;
+        };
+    }
+
+    @Test
+    void duplicate_isAnsweredFromMemory_withoutRunningAgain() {
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyService.Result first = idempotency.execute("purchase", "ana", "k1", "CARD|10",
+                charge(() -> "tx-" + runs.incrementAndGet()));
+        IdempotencyService.Result retry = idempotency.execute("purchase", "ana", "k1", "CARD|10",
+                charge(() -> "tx-" + runs.incrementAndGet()));
+
+        assertThat(first).isEqualTo(new IdempotencyService.Result("tx-1", false));
+        assertThat(retry).isEqualTo(new IdempotencyService.Result("tx-1", true));
+        assertThat(runs.get()).isEqualTo(1);
+        verify(repository, times(1)).findById(anyString());
+        verify(repository).record(anyString(), eq("purchase"), anyString(), eq("tx-1"), any(), any());
+        assertThat(replays("memory")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDuplicate_waitsForTheOriginal() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<IdempotencyService.Result> original = CompletableFuture.supplyAsync(
+                () -> idempotency.execute("recharge", "ana", "k1", "CARD|5", charge(() -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "";
+                })));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<IdempotencyService.Result> duplicate = CompletableFuture.supplyAsync(
+                () -> idempotency.execute("recharge", "ana", "k1", "CARD|5", charge(() -> {
+                    runs.incrementAndGet();
+                    return "";
+                })));
+        Thread.sleep(50);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        assertThat(original.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).replayed()).isTrue();
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sameKeyWithDifferentRequest_isRejected() {
+        idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-1"));
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotency.execute("purchase", "ana", "k1", "CARD|99", charge(() -> "tx-2")));
+        // Otro usuario u otra operación con la misma clave no chocan
+        assertThat(idempotency.execute("purchase", "luis", "k1", "CARD|99", charge(() -> "tx-3")).value()).isEqualTo("tx-3");
+        assertThat(idempotency.execute("recharge", "ana", "k1", "CARD|99", charge(() -> "")).replayed()).isFalse();
+    }
+
+    // La transacción de la operación se deshizo con la fila: no queda nada que liberar y el reintento ejecuta
+    @Test
+    void failedOperation_leavesNoKeyBehind() {
+        assertThrows(InsufficientBalanceException.class, () -> idempotency.execute("purchase", "ana", "k1", "CARD|10",
+                recorder -> {
+                    throw new InsufficientBalanceException("Saldo insuficiente.");
+                }));
+        verify(repository, never()).record(anyString(), anyString(), anyString(), anyString(), any(), any());
+
+        IdempotencyService.Result retry = idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-1"));
+        assertThat(retry).isEqualTo(new IdempotencyService.Result("tx-1", false));
+        verify(repository, never()).deleteExpired(anyString(), any());
+    }
+
+    @Test
+    void keyCompletedByAnotherNode_isReplayedFromTheTable() {
+        IdempotencyRecord record = record(IdempotencyRecord.Status.COMPLETED, "CARD|10", LocalDateTime.now().plusHours(1));
+        record.setResult("tx-other-node");
+        when(repository.findById(anyString())).thenReturn(Optional.of(record));
+
+        IdempotencyService.Result result = idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-new"));
+
+        assertThat(result).isEqualTo(new IdempotencyService.Result("tx-other-node", true));
+        verify(repository, never()).record(anyString(), anyString(), anyString(), anyString(), any(), any());
+        assertThat(replays("database")).isEqualTo(1);
+    }
+
+    // Otro nodo registró la clave mientras esta ejecución estaba en curso: su transacción se deshace
+    // y se responde con la fila del otro nodo
+    @Test
+    void keyRecordedConcurrentlyByAnotherNode_isReplayedFromTheTable() {
+        IdempotencyRecord record = record(IdempotencyRecord.Status.COMPLETED, "CARD|10", LocalDateTime.now().plusHours(1));
+        record.setResult("tx-other-node");
+        when(repository.findById(anyString())).thenReturn(Optional.empty(), Optional.of(record));
+        when(repository.record(anyString(), anyString(), anyString(), anyString(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyService.Result result = idempotency.execute("purchase", "ana", "k1", "CARD|10",
+                charge(() -> "tx-" + runs.incrementAndGet()));
+
+        assertThat(result).isEqualTo(new IdempotencyService.Result("tx-other-node", true));
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(replays("database")).isEqualTo(1);
+    }
+
+    // Filas PENDING que dejó el registro en dos pasos anterior: siguen respondiendo 409 hasta caducar
+    @Test
+    void keyInProgressOnAnotherNode_isConflict() {
+        when(repository.findById(anyString()))
+                .thenReturn(Optional.of(record(IdempotencyRecord.Status.PENDING, "CARD|10", LocalDateTime.now().plusHours(1))));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-new")));
+    }
+
+    @Test
+    void expiredKey_isRecordedAgain() {
+        when(repository.findById(anyString()))
+                .thenReturn(Optional.of(record(IdempotencyRecord.Status.COMPLETED, "CARD|10", LocalDateTime.now().minusMinutes(1))));
+
+        IdempotencyService.Result result = idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-new"));
+
+        assertThat(result).isEqualTo(new IdempotencyService.Result("tx-new", false));
+        verify(repository).deleteExpired(anyString(), any());
+        verify(repository).record(anyString(), eq("purchase"), anyString(), eq("tx-new"), any(), any());
+    }
+
+    @Test
+    void replayCounters_areRegisteredOncePerOperation() {
+        idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-1"));
+        idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-2"));
+        idempotency.execute("purchase", "ana", "k1", "CARD|10", charge(() -> "tx-3"));
+
+        assertThat(meterRegistry.find("idempotency.replays").tag("operation", "purchase").counters()).hasSize(3);
+        assertThat(replays("memory")).isEqualTo(2);
+        assertThat(replays("database")).isZero();
+    }
+
+    @Test
+    void withoutKey_runsEveryTime_andInvalidKeyIsRejected() {
+        AtomicInteger runs = new AtomicInteger();
+        idempotency.execute("purchase", "ana", null, "CARD|10", charge(() -> "tx-" + runs.incrementAndGet()));
+        idempotency.execute("purchase", "ana", null, "CARD|10", charge(() -> "tx-" + runs.incrementAndGet()));
+
+        assertThat(runs.get()).isEqualTo(2);
+        verifyNoInteractions(repository);
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotency.execute("purchase", "ana", " ", "CARD|10", charge(() -> "tx")));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotency.execute("purchase", "ana", "x".repeat(256), "CARD|10", charge(() -> "tx")));
+    }
+
+    private static IdempotencyRecord record(IdempotencyRecord.Status status, String request, LocalDateTime expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setStatus(status);
+        record.setRequestHash(IdempotencyService.sha256(request));
+        record.setExpiresAt(expiresAt);
+        return record;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.bankinc.prueba.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Las mismas pruebas de dos nodos con el modelo de saldo journal (INSERT en balance_journal por
+// movimiento, seq por tarjeta como control de concurrencia)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal_conflicts;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "app.card-balance.model=journal"
+})
+public class JournalBalanceConcurrencyIntegrationTest extends BalanceConcurrencyIntegrationTest {
+}
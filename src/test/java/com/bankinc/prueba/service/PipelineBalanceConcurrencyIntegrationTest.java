@@ -0,0 +1,12 @@
+package com.bankinc.prueba.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Las mismas pruebas de dos nodos con el motor de compras pipeline (particiones con un único escritor
+// y confirmación por lotes; el débito condicionado sigue siendo el control entre nodos)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pipeline_conflicts;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "app.purchase-engine=pipeline"
+})
+public class PipelineBalanceConcurrencyIntegrationTest extends BalanceConcurrencyIntegrationTest {
+}
@@ -0,0 +1,162 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.dto.CardDto;
+import com.bankinc.prueba.migration.UserMigrationRunner;
+import com.bankinc.prueba.model.Card;
+import com.bankinc.prueba.model.User;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.MigrationCheckpointRepository;
+import com.bankinc.prueba.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Caché de segundo nivel (ver SecondLevelCacheConfig): lecturas repetidas sin SQL, e invalidación tras
+// las mutaciones de CardService (save y UPDATE en bloque) y de UserMigrationRunner.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:l2cache;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF",
+        "app.card-cache.enabled=false"
+})
+public class SecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MigrationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("x");
+        return userRepository.save(user);
+    }
+
+    private Card card(String cardId, String holderName, User owner) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId("654321");
+        card.setHolderName(holderName);
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        card.setActive(true);
+        card.setOwner(owner);
+        return cardRepository.save(card);
+    }
+
+    @Test
+    void userLookups_afterTheFirst_runNoSql() {
+        user("cacheado");
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        authService.loadUserByUsername("cacheado");
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+
+        statistics.clear();
+        authService.loadUserByUsername("cacheado");
+        assertThat(userRepository.findByUsername("cacheado")).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void ownerCardList_comesFromQueryCache_untilACardChanges() {
+        User owner = user("titular_l2");
+        String cardId = card("6543210000000027", "TITULAR", owner).getCardId();
+        cardService.findCardsByOwnerUsername("titular_l2");
+
+        statistics.clear();
+        assertThat(cardService.findCardsByOwnerUsername("titular_l2")).extracting(CardDto::getBalance)
+                                                                      .containsExactly(new BigDecimal("0.00"));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        cardService.rechargeBalance(cardId, new BigDecimal("10.00")); // UPDATE en bloque
+        assertThat(cardService.findCardsByOwnerUsername("titular_l2")).extracting(CardDto::getBalance)
+                                                                      .containsExactly(new BigDecimal("10.00"));
+
+        cardService.blockCard(cardId); // save de la entidad leída por natural id
+        assertThat(cardService.findCardsByOwnerUsername("titular_l2")).extracting(CardDto::isBlocked)
+                                                                      .containsExactly(true);
+        assertThat(cardRepository.findCachedByCardId(cardId)).get().extracting(Card::isBlocked).isEqualTo(true);
+    }
+
+    @Test
+    void migration_linksCards_visibleThroughCachedLookups() {
+        String cardId = card("6543210000000035", "Migrada Uno", null).getCardId();
+        assertThat(cardRepository.findCachedByCardId(cardId)).get().extracting(Card::getOwner).isNull();
+        assertThat(cardService.findCardsByOwnerUsername("migrada_uno")).isEmpty();
+
+        new UserMigrationRunner(cardRepository, userRepository, checkpointRepository, passwordEncoder,
+                transactionManager, conflictRetry, 100, 1, 0, new SimpleMeterRegistry()).migrate();
+
+        Long userId = userRepository.findByUsername("migrada_uno").orElseThrow().getId();
+        assertThat(cardService.findCardsByOwnerUsername("migrada_uno")).extracting(CardDto::getCardId)
+                                                                       .containsExactly(cardId);
+        assertThat(cardRepository.findCachedByCardId(cardId)).get().extracting(card -> card.getOwner().getId())
+                                                              .isEqualTo(userId);
+    }
+
+    // Los INSERT nativos declaran su tabla: no vacían las regiones de User y Card
+    @Test
+    void nativeInserts_keepOtherRegionsCached() {
+        Long userId = user("conservado").getId();
+        userRepository.findByUsername("conservado");
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isTrue();
+
+        idempotencyService.execute("recharge", "conservado", "clave-l2", "{}",
+                recorder -> new TransactionTemplate(transactionManager).execute(status -> {
+                    recorder.record("ok");
+                    return "ok";
+                }));
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isTrue();
+    }
+}
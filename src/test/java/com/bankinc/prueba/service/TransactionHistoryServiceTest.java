@@ -0,0 +1,107 @@
+package com.bankinc.prueba.service;
+
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.dto.TransactionHistoryItem;
+import com.bankinc.prueba.dto.TransactionHistoryPage;
+import com.bankinc.prueba.exception.CardNotFoundException;
+import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.repository.CardRepository;
+import com.bankinc.prueba.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionHistoryServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    private TransactionHistoryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TransactionHistoryService(transactionRepository,
+                new CardCache(cardRepository, false, 0, 0, null), 2, 50);
+    }
+
+    private static List<TransactionHistoryItem> rows(int count) {
+        List<TransactionHistoryItem> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new TransactionHistoryItem(100L - i, UUID.randomUUID(), Money.ofMinor(1000, 2), NOW.minusMinutes(i),
+                    Transaction.Status.COMPLETED));
+        }
+        return rows;
+    }
+
+    @Test
+    void firstPage_fetchesOneExtraRow_andReturnsCursorOfLastItem() {
+        when(cardRepository.findIdByCardId("1234560000000009")).thenReturn(Optional.of(7L));
+        when(transactionRepository.findHistoryPage(eq(7L), any(), any(), eq(Long.MAX_VALUE), isNull(), eq(PageRequest.ofSize(3))))
+                .thenReturn(rows(3));
+
+        TransactionHistoryPage page = service.getCardTransactions("1234560000000009", null, null, null, null, null);
+
+        assertThat(page.items()).hasSize(2);
+        assertThat(page.nextCursor()).isNotNull();
+        TransactionHistoryService.Cursor cursor = TransactionHistoryService.Cursor.decode(page.nextCursor());
+        assertThat(cursor.transactionDate()).isEqualTo(NOW.minusMinutes(1));
+        assertThat(cursor.id()).isEqualTo(99L);
+    }
+
+    @Test
+    void nextPage_seeksFromCursor_withFilters() {
+        String cursor = new TransactionHistoryService.Cursor(NOW.minusMinutes(1), 99L).encode();
+        LocalDateTime from = NOW.minusDays(1);
+        when(cardRepository.findIdByCardId("1234560000000009")).thenReturn(Optional.of(7L));
+        when(transactionRepository.findHistoryPage(7L, from, NOW.minusMinutes(1), 99L, Transaction.Status.ANNULLED,
+                PageRequest.ofSize(6))).thenReturn(rows(1));
+
+        TransactionHistoryPage page = service.getCardTransactions("1234560000000009", "annulled", from, NOW, cursor, 5);
+
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void invalidParameters_throwBadRequest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getCardTransactions("1234560000000009", null, null, null, null, 51));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getCardTransactions("1234560000000009", "PENDIENTE", null, null, null, null));
+        when(cardRepository.findIdByCardId("1234560000000009")).thenReturn(Optional.of(7L));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getCardTransactions("1234560000000009", null, null, null, "no-es-un-cursor", null));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void unknownCard_throwsNotFound() {
+        when(cardRepository.findIdByCardId("0000000000000000")).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class,
+                () -> service.getCardTransactions("0000000000000000", null, null, null, null, null));
+    }
+}
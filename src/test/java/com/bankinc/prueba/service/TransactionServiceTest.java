@@ -1,26 +1,47 @@
 package com.bankinc.prueba.service;
 
+import com.bankinc.prueba.cache.CardCache;
+import com.bankinc.prueba.concurrency.CardLockManager;
+import com.bankinc.prueba.concurrency.ConflictRetry;
+import com.bankinc.prueba.dto.PurchaseRequest;
+import com.bankinc.prueba.dto.PurchaseResult;
 import com.bankinc.prueba.exception.CardBlockedException;
+import com.bankinc.prueba.exception.CardNotFoundException;
 import com.bankinc.prueba.exception.InsufficientBalanceException;
 import com.bankinc.prueba.exception.TransactionExpiredException;
+import com.bankinc.prueba.id.UuidV7Generator;
+import com.bankinc.prueba.journal.BalanceJournal;
 import com.bankinc.prueba.model.Card;
 import com.bankinc.prueba.model.Transaction;
+import com.bankinc.prueba.money.Money;
+import com.bankinc.prueba.money.ProductScales;
+import com.bankinc.prueba.pipeline.PurchasePipeline;
+import com.bankinc.prueba.replica.ReadRouting;
+import com.bankinc.prueba.repository.BalanceJournalRepository;
 import com.bankinc.prueba.repository.CardRepository;
 import com.bankinc.prueba.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,27 +53,49 @@ public class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
-    @InjectMocks
+    @Mock
+    private BalanceJournalRepository balanceJournalRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CardLockManager cardLocks = new CardLockManager(16);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ReadRouting readRouting = new ReadRouting(null, null, "", 0, 0, meterRegistry);
+
     private TransactionService transactionService;
 
+    @BeforeEach
+    void setUp() {
+        transactionService = new TransactionService(cardRepository, transactionRepository, cardLocks,
+                new ConflictRetry(3, 0, 0, meterRegistry), new CardCache(cardRepository, false, 0, 0, null),
+                new BalanceJournal(cardRepository, balanceJournalRepository, "row", 0, 0, meterRegistry),
+                new PurchasePipeline("sync", 1, 1, 1, 0, 1, meterRegistry), readRouting, new UuidV7Generator(),
+                new ProductScales(2, ""), transactionManager, 3, meterRegistry);
+    }
+
     @Test
-    void purchase_success_reducesBalance_and_savesTransaction() {
+    void purchase_success_debitsAtomically_and_savesTransaction() {
         Card c = new Card();
+        c.setId(7L);
         c.setCardId("CARD123");
-        c.setActive(true);
-        c.setBlocked(false);
-        c.setExpirationDate(LocalDate.now().plusYears(1));
-        c.setBalance(new BigDecimal("200.00"));
 
-        when(cardRepository.findByCardId("CARD123")).thenReturn(Optional.of(c));
+        when(cardRepository.findIdByCardId("CARD123")).thenReturn(Optional.of(7L));
+        when(cardRepository.debit(eq("CARD123"), eq(money("50.00")), any(LocalDate.class))).thenReturn(1);
+        when(cardRepository.getReferenceById(7L)).thenReturn(c);
         when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         String txId = transactionService.purchase("CARD123", new BigDecimal("50.00"));
 
         assertThat(txId).isNotBlank();
-        assertThat(c.getBalance()).isEqualByComparingTo(new BigDecimal("150.00"));
-        verify(cardRepository).save(c);
-        verify(transactionRepository).save(any(Transaction.class));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(captor.capture());
+        assertThat(captor.getValue().getCard()).isSameAs(c);
+        assertThat(captor.getValue().getPrice().toBigDecimal()).isEqualByComparingTo("50.00");
+        verify(cardRepository, never()).findByCardId(any());
+        verify(cardRepository, never()).save(any());
     }
 
     @Test
@@ -62,54 +105,234 @@ public class TransactionServiceTest {
         c.setActive(true);
         c.setBlocked(false);
         c.setExpirationDate(LocalDate.now().plusYears(1));
-        c.setBalance(new BigDecimal("10.00"));
+        c.setBalance(Money.of(new BigDecimal("10.00"), Money.MAX_SCALE));
 
+        when(cardRepository.findIdByCardId("CARDLOW")).thenReturn(Optional.of(1L));
+        when(cardRepository.debit(eq("CARDLOW"), eq(money("20.00")), any(LocalDate.class))).thenReturn(0);
         when(cardRepository.findByCardId("CARDLOW")).thenReturn(Optional.of(c));
 
         assertThrows(InsufficientBalanceException.class, () -> transactionService.purchase("CARDLOW", new BigDecimal("20.00")));
         verify(transactionRepository, never()).save(any());
+        assertThat(declined("insufficient_balance")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("transaction.operation").tags("operation", "purchase", "outcome", "error")
+                                .timer().count()).isEqualTo(1);
     }
 
+    // Un importe con más decimales que los del producto se rechaza antes de tocar la tarjeta: no se redondea
     @Test
-    void annulTransaction_success_revertsBalance_and_marksAnnulled() {
+    void purchase_moreDecimalsThanTheProduct_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.purchase("CARD123", new BigDecimal("10.001")));
+        verifyNoInteractions(cardRepository, transactionRepository);
+    }
+
+    @Test
+    void purchase_blockedCard_throwsCardBlocked() {
         Card c = new Card();
-        c.setCardId("CARDANN");
-        c.setBalance(new BigDecimal("100.00"));
+        c.setCardId("CARDBLK");
+        c.setActive(true);
+        c.setBlocked(true);
+        c.setExpirationDate(LocalDate.now().plusYears(1));
+        c.setBalance(Money.of(new BigDecimal("100.00"), Money.MAX_SCALE));
 
-        Transaction tx = new Transaction();
-        tx.setTransactionId("TX1");
-        tx.setCard(c);
-        tx.setPrice(new BigDecimal("40.00"));
-        tx.setTransactionDate(LocalDateTime.now().minusHours(1));
-        tx.setStatus(Transaction.Status.COMPLETED);
+        when(cardRepository.findIdByCardId("CARDBLK")).thenReturn(Optional.of(2L));
+        when(cardRepository.debit(eq("CARDBLK"), any(), any(LocalDate.class))).thenReturn(0);
+        when(cardRepository.findByCardId("CARDBLK")).thenReturn(Optional.of(c));
+
+        assertThrows(CardBlockedException.class, () -> transactionService.purchase("CARDBLK", new BigDecimal("5.00")));
+        verify(transactionRepository, never()).save(any());
+        assertThat(declined("blocked")).isEqualTo(1.0);
+        assertThat(declined("insufficient_balance")).isZero();
+    }
+
+    // Modelo journal: saldo consolidado 100 + diario -95 = 5; la compra de 10 se rechaza sin escribir
+    @Test
+    void journalPurchase_checksSnapshotPlusTail() {
+        TransactionService journaled = new TransactionService(cardRepository, transactionRepository, cardLocks,
+                new ConflictRetry(3, 0, 0, meterRegistry), new CardCache(cardRepository, false, 0, 0, null),
+                new BalanceJournal(cardRepository, balanceJournalRepository, "journal", 100, 60, meterRegistry),
+                new PurchasePipeline("sync", 1, 1, 1, 0, 1, meterRegistry), readRouting, new UuidV7Generator(),
+                new ProductScales(2, ""), transactionManager, 3, meterRegistry);
+        CardRepository.JournalHead head = mock(CardRepository.JournalHead.class);
+        when(head.isActive()).thenReturn(true);
+        when(head.getExpirationDate()).thenReturn(LocalDate.now().plusYears(1));
+        when(head.getBalance()).thenReturn(money("100.00"));
+        when(head.getJournalSeq()).thenReturn(4L);
+        BalanceJournalRepository.Tail tail = mock(BalanceJournalRepository.Tail.class);
+        when(tail.getTotal()).thenReturn(new BigDecimal("-95.00"));
+        when(tail.getLastSeq()).thenReturn(9L);
+        when(cardRepository.findIdByCardId("CARDJ")).thenReturn(Optional.of(3L));
+        when(cardRepository.findJournalHead(3L)).thenReturn(Optional.of(head));
+        when(balanceJournalRepository.findTail(3L, 4L)).thenReturn(tail);
+
+        assertThrows(InsufficientBalanceException.class, () -> journaled.purchase("CARDJ", new BigDecimal("10.00")));
 
-        when(transactionRepository.findByTransactionId("TX1")).thenReturn(Optional.of(tx));
+        when(cardRepository.getReferenceById(3L)).thenReturn(new Card());
         when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        assertThat(journaled.purchase("CARDJ", new BigDecimal("5.00"))).isNotBlank();
+        verify(balanceJournalRepository).append(eq(3L), eq(10L), eq(new BigDecimal("-5.00")), any(LocalDateTime.class));
+        verify(cardRepository, never()).debit(any(), any(), any());
+    }
 
-        transactionService.annulTransaction("TX1");
+    // Motor pipeline: la primera compra lee la tarjeta; las siguientes deciden con el saldo de la
+    // partición y un rechazo se confirma releyendo la tarjeta antes de responder
+    @Test
+    void pipelinePurchase_decidesFromPartitionState_andRereadsBeforeDeclining() throws Exception {
+        PurchasePipeline pipeline = new PurchasePipeline("pipeline", 2, 100, 16, 0, 100, meterRegistry);
+        TransactionService pipelined = new TransactionService(cardRepository, transactionRepository, cardLocks,
+                new ConflictRetry(3, 0, 0, meterRegistry), new CardCache(cardRepository, false, 0, 0, null),
+                new BalanceJournal(cardRepository, balanceJournalRepository, "row", 0, 0, meterRegistry),
+                pipeline, readRouting, new UuidV7Generator(), new ProductScales(2, ""), transactionManager, 3,
+                meterRegistry);
+        Card c = new Card();
+        c.setId(5L);
+        c.setCardId("CARDP");
+        c.setActive(true);
+        c.setExpirationDate(LocalDate.now().plusYears(1));
+        c.setBalance(Money.of(new BigDecimal("30.00"), Money.MAX_SCALE));
+        when(cardRepository.findByCardId("CARDP")).thenReturn(Optional.of(c));
+        when(cardRepository.debit(eq("CARDP"), any(), any(LocalDate.class))).thenAnswer(i -> {
+            c.setBalance(c.getBalance().minus(i.getArgument(1)));
+            return 1;
+        });
+        when(cardRepository.getReferenceById(5L)).thenReturn(c);
 
-        assertThat(tx.getStatus()).isEqualTo(Transaction.Status.ANNULLED);
-        assertThat(c.getBalance()).isEqualByComparingTo(new BigDecimal("140.00"));
-        verify(cardRepository).save(c);
-        verify(transactionRepository).save(tx);
+        try {
+            assertThat(pipelined.purchase("CARDP", new BigDecimal("20.00"))).isNotBlank();
+            assertThrows(InsufficientBalanceException.class, () -> pipelined.purchase("CARDP", new BigDecimal("20.00")));
+            assertThat(pipelined.purchase("CARDP", new BigDecimal("5.00"))).isNotBlank();
+        } finally {
+            pipeline.shutdown();
+        }
+
+        assertThat(c.getBalance().toBigDecimal()).isEqualByComparingTo("5.00");
+        verify(cardRepository, times(2)).findByCardId("CARDP");
+        verify(transactionRepository, times(2)).saveAll(argThat(txs -> txs instanceof List<?> l && l.size() == 1));
+        assertThat(declined("insufficient_balance")).isEqualTo(1.0);
+    }
+
+    // Un conflicto repite el lote y vuelve a decidir sus rechazos: se cuentan una vez, tras el commit
+    @Test
+    void pipelineBatchRetriedOnConflict_countsEachDeclineOnce() throws Exception {
+        PurchasePipeline pipeline = new PurchasePipeline("pipeline", 1, 100, 16, 0, 100, meterRegistry);
+        TransactionService pipelined = new TransactionService(cardRepository, transactionRepository, cardLocks,
+                new ConflictRetry(3, 0, 0, meterRegistry), new CardCache(cardRepository, false, 0, 0, null),
+                new BalanceJournal(cardRepository, balanceJournalRepository, "row", 0, 0, meterRegistry),
+                pipeline, readRouting, new UuidV7Generator(), new ProductScales(2, ""), transactionManager, 3,
+                meterRegistry);
+        Card c = new Card();
+        c.setId(6L);
+        c.setCardId("CARDR");
+        c.setActive(true);
+        c.setExpirationDate(LocalDate.now().plusYears(1));
+        c.setBalance(Money.of(new BigDecimal("10.00"), Money.MAX_SCALE));
+        when(cardRepository.findByCardId("CARDR")).thenReturn(Optional.of(c));
+        when(cardRepository.findByCardId("MISSINGR")).thenReturn(Optional.empty());
+        when(transactionRepository.saveAll(any()))
+                .thenThrow(new CannotAcquireLockException("deadlock"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        try {
+            assertThrows(InsufficientBalanceException.class, () -> pipelined.purchase("CARDR", new BigDecimal("20.00")));
+            assertThrows(CardNotFoundException.class, () -> pipelined.purchase("MISSINGR", new BigDecimal("1.00")));
+        } finally {
+            pipeline.shutdown();
+        }
+
+        verify(cardRepository, times(2)).findByCardId("CARDR");
+        assertThat(declined("insufficient_balance")).isEqualTo(1.0);
+        assertThat(declined("not_found")).isEqualTo(1.0);
+    }
+
+    private static final UUID TX1 = UUID.fromString("0190a3b2-7c00-7000-8000-000000000001");
+    private static final UUID TXOLD = UUID.fromString("0190a3b2-7c00-7000-8000-000000000002");
+
+    @Test
+    void annulTransaction_success_refundsBalance_and_marksAnnulled() {
+        when(transactionRepository.findChargeByTransactionId(TX1)).thenReturn(Optional.of(charge("CARDANN", "40.00")));
+        when(transactionRepository.markAnnulled(eq(TX1), any(LocalDateTime.class))).thenReturn(1);
+
+        transactionService.annulTransaction(TX1.toString());
+
+        verify(cardRepository).refund("CARDANN", money("40.00"));
+        verify(transactionRepository, never()).findByTransactionId(any());
     }
 
     @Test
     void annulTransaction_expired_throws() {
         Card c = new Card();
         c.setCardId("CARDEXP");
-        c.setBalance(new BigDecimal("100.00"));
+        c.setBalance(Money.of(new BigDecimal("100.00"), Money.MAX_SCALE));
 
         Transaction tx = new Transaction();
-        tx.setTransactionId("TXOLD");
+        tx.setTransactionId(TXOLD);
         tx.setCard(c);
-        tx.setPrice(new BigDecimal("10.00"));
+        tx.setPrice(Money.of(new BigDecimal("10.00"), Money.MAX_SCALE));
         tx.setTransactionDate(LocalDateTime.now().minusDays(2)); // older than 24h
         tx.setStatus(Transaction.Status.COMPLETED);
 
-        when(transactionRepository.findByTransactionId("TXOLD")).thenReturn(Optional.of(tx));
+        when(transactionRepository.findChargeByTransactionId(TXOLD)).thenReturn(Optional.of(charge("CARDEXP", "10.00")));
+        when(transactionRepository.markAnnulled(eq(TXOLD), any(LocalDateTime.class))).thenReturn(0);
+        when(transactionRepository.findByTransactionId(TXOLD)).thenReturn(Optional.of(tx));
 
-        assertThrows(TransactionExpiredException.class, () -> transactionService.annulTransaction("TXOLD"));
-        verify(cardRepository, never()).save(any());
+        assertThrows(TransactionExpiredException.class, () -> transactionService.annulTransaction(TXOLD.toString()));
+        verify(cardRepository, never()).refund(any(), any());
+    }
+
+    @Test
+    void annulTransaction_malformedId_isNotFound() {
+        assertThrows(CardNotFoundException.class, () -> transactionService.annulTransaction("no-es-un-uuid"));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void purchaseBatch_validatesEachItemAgainstRunningBalance() {
+        Card c = new Card();
+        c.setCardId("CARDBATCH");
+        c.setActive(true);
+        c.setExpirationDate(LocalDate.now().plusYears(1));
+        c.setBalance(Money.of(new BigDecimal("30.00"), Money.MAX_SCALE));
+
+        when(cardRepository.findAllByCardIdIn(any())).thenReturn(List.of(c));
+
+        List<PurchaseResult> results = transactionService.purchaseBatch(List.of(
+                new PurchaseRequest("CARDBATCH", new BigDecimal("20.00")),
+                new PurchaseRequest("CARDBATCH", new BigDecimal("20.00")),
+                new PurchaseRequest("MISSING", new BigDecimal("1.00"))));
+
+        assertThat(results).extracting(PurchaseResult::status).containsExactly("Completed", "Rejected", "Rejected");
+        assertThat(results.get(0).transactionId()).isNotBlank();
+        assertThat(results.get(1).message()).startsWith("Saldo insuficiente");
+        assertThat(c.getBalance().toBigDecimal()).isEqualByComparingTo("10.00");
+        verify(transactionRepository).saveAll(argThat(txs -> txs instanceof List<?> l && l.size() == 1));
+        assertThat(declined("insufficient_balance")).isEqualTo(1.0);
+        assertThat(declined("not_found")).isEqualTo(1.0);
+    }
+
+    private double declined(String reason) {
+        return meterRegistry.get("transaction.purchase.declined").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void purchaseBatch_overMaxSize_throws() {
+        List<PurchaseRequest> purchases = List.of(
+                new PurchaseRequest("A", BigDecimal.ONE), new PurchaseRequest("B", BigDecimal.ONE),
+                new PurchaseRequest("C", BigDecimal.ONE), new PurchaseRequest("D", BigDecimal.ONE));
+
+        assertThrows(IllegalArgumentException.class, () -> transactionService.purchaseBatch(purchases));
+        verifyNoInteractions(cardRepository, transactionRepository);
+    }
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount), Money.MAX_SCALE);
+    }
+
+    private static TransactionRepository.CardCharge charge(String cardId, String price) {
+        return new TransactionRepository.CardCharge() {
+            @Override
+            public String getCardId() { return cardId; }
+
+            @Override
+            public Money getPrice() { return money(price); }
+        };
     }
 }